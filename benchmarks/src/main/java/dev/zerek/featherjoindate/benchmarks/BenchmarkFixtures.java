@@ -0,0 +1,69 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.configs.JoinDateMessages;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Shared setup for benchmarks that need plugin objects outside a running server.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Loads the messages.yml bundled in the plugin jar.
+     */
+    static JoinDateMessages loadMessages() {
+        try (InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream("messages.yml")) {
+            if (in == null) throw new IllegalStateException("messages.yml not found on the classpath");
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                YamlConfiguration yaml = YamlConfiguration.loadConfiguration(reader);
+                Map<String, String> messages = new HashMap<>();
+                for (String key : yaml.getKeys(false)) messages.put(key, yaml.getString(key));
+                return new JoinDateMessages(messages);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read messages.yml", e);
+        }
+    }
+
+    /**
+     * Creates an OfflinePlayer that answers the calls the message formatter makes.
+     *
+     * @param uuid The player's UUID
+     * @param name The player's name, may be null
+     */
+    static OfflinePlayer offlinePlayer(UUID uuid, String name) {
+        return (OfflinePlayer) Proxy.newProxyInstance(
+                BenchmarkFixtures.class.getClassLoader(),
+                new Class<?>[]{OfflinePlayer.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getUniqueId":
+                            return uuid;
+                        case "isOnline":
+                            return false;
+                        case "hashCode":
+                            return uuid.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
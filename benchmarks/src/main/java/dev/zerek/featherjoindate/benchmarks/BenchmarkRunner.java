@@ -0,0 +1,48 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Runs the benchmarks and writes the results as JSON to results/featherjoindate-&lt;version&gt;.json,
+ * so runs against different plugin versions can be compared.
+ * Any arguments are used as benchmark include patterns; with none every benchmark runs.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        File resultsFolder = new File("results");
+        if (!resultsFolder.exists() && !resultsFolder.mkdirs()) {
+            throw new IOException("Unable to create " + resultsFolder.getAbsolutePath());
+        }
+        File resultFile = new File(resultsFolder, "featherjoindate-" + pluginVersion() + ".json");
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getPath());
+        if (args.length == 0) options.include("dev\\.zerek\\.featherjoindate\\.benchmarks\\..*");
+        for (String include : args) options.include(include);
+
+        new Runner(options.build()).run();
+        System.out.println("Results written to " + resultFile.getAbsolutePath());
+    }
+
+    private static String pluginVersion() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = BenchmarkRunner.class.getResourceAsStream("/benchmark.properties")) {
+            if (in != null) properties.load(in);
+        }
+        return properties.getProperty("featherjoindate.version", "unknown");
+    }
+}
@@ -0,0 +1,118 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.storage.JoinJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures how many joins per second the journal can take during an outage: a plain append, as done on the
+ * main thread for every join, and a flush window of appends followed by the sync each flush does.
+ * The flushing group samples how long a main-thread append takes while another thread syncs, rotates and
+ * compacts the journal the way a flush does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JoinJournalBenchmark {
+
+    private static final int JOINS_PER_SYNC = 200;
+
+    private File folder;
+    private JoinJournal journal;
+    private JoinEvent[] joins;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("featherjoindate").toFile();
+        journal = new JoinJournal(Logger.getLogger("FeatherJoinDate"), folder);
+        joins = new JoinEvent[1024];
+        for (int i = 0; i < joins.length; i++) {
+            joins[i] = new JoinEvent(UUID.randomUUID(), "Player" + i, System.currentTimeMillis());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        File[] files = folder.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        folder.delete();
+    }
+
+    private JoinEvent nextJoin() {
+        next = (next + 1) & (joins.length - 1);
+        return joins[next];
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        journal.append(nextJoin());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOINS_PER_SYNC)
+    public void appendAndSync() throws IOException {
+        for (int i = 0; i < JOINS_PER_SYNC; i++) journal.append(nextJoin());
+        journal.sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOINS_PER_SYNC)
+    public void compact() throws IOException {
+        List<JoinEvent> live = new ArrayList<>(JOINS_PER_SYNC);
+        for (int i = 0; i < JOINS_PER_SYNC; i++) {
+            JoinEvent join = nextJoin();
+            journal.append(join);
+            live.add(join);
+        }
+        journal.compact(journal.rotate(), live);
+    }
+
+    @Benchmark
+    @Group("flushing")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void appendWhileFlushing() throws IOException {
+        journal.append(joins[ThreadLocalRandom.current().nextInt(joins.length)]);
+    }
+
+    @Benchmark
+    @Group("flushing")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void flush() throws IOException {
+        journal.sync();
+        List<JoinEvent> live = new ArrayList<>(JOINS_PER_SYNC);
+        for (int i = 0; i < JOINS_PER_SYNC; i++) live.add(joins[ThreadLocalRandom.current().nextInt(joins.length)]);
+        journal.compact(journal.rotate(), live);
+    }
+}
@@ -0,0 +1,148 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+import dev.zerek.featherjoindate.managers.JoinManager;
+import dev.zerek.featherjoindate.managers.PlayerCacheManager;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures JoinManager queries against an embedded H2 database in MySQL mode.
+ * Point -Dbenchmark.jdbc.url (plus .user and .password) at a scratch MySQL database to measure the real thing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JoinManagerBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"10000"})
+    public int players;
+
+    private JdbcConnectionPool dataSource;
+    private JoinManager uncachedJoinManager;
+    private JoinManager cachedJoinManager;
+    private UUID[] uuids;
+    private String[] usernames;
+    private List<JoinEvent> joinBatch;
+    private int next;
+
+    @Setup
+    public void setup() {
+        String url = System.getProperty("benchmark.jdbc.url",
+                "jdbc:h2:mem:featherjoindate;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource = JdbcConnectionPool.create(url,
+                System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        dataSource.setMaxConnections(4);
+
+        Logger logger = Logger.getLogger("FeatherJoinDate");
+        DatabaseManager databaseManager = new DatabaseManager(logger, dataSource);
+        uncachedJoinManager = new JoinManager(logger, databaseManager, new PlayerCacheManager(0, 1));
+        cachedJoinManager = new JoinManager(logger, databaseManager, new PlayerCacheManager(players, 60));
+
+        // Every tenth player has also joined under a second name, shared with another account
+        uuids = new UUID[players];
+        usernames = new String[players];
+        long now = System.currentTimeMillis();
+        List<JoinEvent> seed = new ArrayList<>(1000);
+        for (int i = 0; i < players; i++) {
+            uuids[i] = UUID.randomUUID();
+            usernames[i] = "player" + i;
+            seed.add(new JoinEvent(uuids[i], usernames[i], now - i * 60_000L));
+            if (i % 10 == 0) seed.add(new JoinEvent(uuids[i], "shared" + (i / 20), now));
+            if (seed.size() >= 1000) {
+                storeEach(seed);
+                seed.clear();
+            }
+        }
+        storeEach(seed);
+
+        joinBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) joinBatch.add(new JoinEvent(uuids[i], usernames[i], now));
+    }
+
+    // storeJoins takes at most one join per UUID, so split repeat UUIDs into separate batches
+    private void storeEach(List<JoinEvent> joins) {
+        List<JoinEvent> first = new ArrayList<>();
+        List<JoinEvent> second = new ArrayList<>();
+        List<UUID> seen = new ArrayList<>();
+        for (JoinEvent join : joins) {
+            if (seen.contains(join.getUuid())) second.add(join);
+            else {
+                seen.add(join.getUuid());
+                first.add(join);
+            }
+        }
+        uncachedJoinManager.storeJoins(first);
+        uncachedJoinManager.storeJoins(second);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.dispose();
+    }
+
+    private int nextIndex() {
+        next = (next + 7919) % players;
+        return next;
+    }
+
+    @Benchmark
+    public PlayerJoinRecord getPlayerFullDataUncached() {
+        return uncachedJoinManager.getPlayerFullData(uuids[nextIndex()]);
+    }
+
+    @Benchmark
+    public PlayerJoinRecord getPlayerFullDataCached() {
+        return cachedJoinManager.getPlayerFullData(uuids[nextIndex()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<UUID, PlayerJoinRecord> getPlayerFullDataBatch() {
+        List<UUID> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) batch.add(uuids[nextIndex()]);
+        return uncachedJoinManager.getPlayerFullData(batch);
+    }
+
+    @Benchmark
+    public List<String> getUsernameUUIDs() {
+        return uncachedJoinManager.getUsernameUUIDs(usernames[nextIndex()]);
+    }
+
+    @Benchmark
+    public String getMostRecentUsernameForUUID() {
+        return uncachedJoinManager.getMostRecentUsernameForUUID(uuids[nextIndex()].toString());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean storeJoinsBatch() {
+        return uncachedJoinManager.storeJoins(joinBatch);
+    }
+}
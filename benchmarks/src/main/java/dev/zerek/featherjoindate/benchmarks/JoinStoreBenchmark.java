@@ -0,0 +1,138 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+import dev.zerek.featherjoindate.managers.JoinManager;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import dev.zerek.featherjoindate.storage.JoinStore;
+import dev.zerek.featherjoindate.storage.StorageType;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Runs the same workload against every JoinStore backend: MySQL syntax on H2 in MySQL mode, and a SQLite file in WAL mode.
+ * That the backends behave the same way is checked by JoinStoreConformanceTest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JoinStoreBenchmark {
+
+    private static final int BATCH_SIZE = 200;
+
+    @Param({"mysql", "sqlite"})
+    public String backend;
+
+    @Param({"10000"})
+    public int players;
+
+    private JdbcConnectionPool h2Pool;
+    private File sqliteFolder;
+    private JoinStore joinStore;
+    private UUID[] uuids;
+    private String[] usernames;
+    private List<JoinEvent> joinBatch;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        Logger logger = Logger.getLogger("FeatherJoinDate");
+        StorageType storageType = StorageType.fromName(backend);
+        DatabaseManager databaseManager;
+        if (storageType == StorageType.SQLITE) {
+            sqliteFolder = Files.createTempDirectory("featherjoindate").toFile();
+            SQLiteDataSource dataSource = new SQLiteDataSource();
+            dataSource.setUrl("jdbc:sqlite:" + new File(sqliteFolder, "joindates.db").getAbsolutePath());
+            dataSource.setJournalMode("WAL");
+            dataSource.setSynchronous("NORMAL");
+            dataSource.setBusyTimeout(5000);
+            dataSource.setEnforceForeignKeys(true);
+            databaseManager = new DatabaseManager(logger, dataSource, storageType, new PluginMetrics());
+        } else {
+            // IGNORECASE stands in for MySQL's case-insensitive default collation
+            h2Pool = JdbcConnectionPool.create(
+                    "jdbc:h2:mem:joinstore;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+            databaseManager = new DatabaseManager(logger, h2Pool, storageType, new PluginMetrics());
+        }
+        databaseManager.initialize();
+        joinStore = JoinManager.createJoinStore(databaseManager);
+
+        uuids = new UUID[players];
+        usernames = new String[players];
+        long now = System.currentTimeMillis();
+        List<JoinEvent> seed = new ArrayList<>(1000);
+        for (int i = 0; i < players; i++) {
+            uuids[i] = UUID.randomUUID();
+            usernames[i] = "player" + i;
+            seed.add(new JoinEvent(uuids[i], usernames[i], now - i * 60_000L));
+            if (seed.size() == 1000) {
+                joinStore.storeJoins(seed);
+                seed.clear();
+            }
+        }
+        joinStore.storeJoins(seed);
+
+        joinBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) joinBatch.add(new JoinEvent(uuids[i], usernames[i], now));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (h2Pool != null) h2Pool.dispose();
+        if (sqliteFolder != null) {
+            File[] files = sqliteFolder.listFiles();
+            if (files != null) for (File file : files) file.delete();
+            sqliteFolder.delete();
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 7919) % players;
+        return next;
+    }
+
+    @Benchmark
+    public List<JoinEvent> storeJoinsBatch() throws SQLException {
+        joinStore.storeJoins(joinBatch);
+        return joinBatch;
+    }
+
+    @Benchmark
+    public Map<UUID, PlayerJoinRecord> loadPlayerRecordsBatch() throws SQLException {
+        List<UUID> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) batch.add(uuids[nextIndex()]);
+        return joinStore.loadPlayerRecords(batch);
+    }
+
+    @Benchmark
+    public List<String> findUUIDs() throws SQLException {
+        return joinStore.findUUIDs(usernames[nextIndex()]);
+    }
+}
@@ -0,0 +1,88 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.leaderboard.LeaderboardType;
+import dev.zerek.featherjoindate.leaderboard.RankedPlayers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-memory leaderboards at server scale: loading and ranking every player as done at startup,
+ * serving a /seen top page, and the incremental updates made as joins and playtime are written.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+
+    @Param({"100000", "500000"})
+    public int players;
+
+    private UUID[] uuids;
+    private long[] joinDates;
+    private long[] playtimes;
+    private RankedPlayers ranked;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        uuids = new UUID[players];
+        joinDates = new long[players];
+        playtimes = new long[players];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < players; i++) {
+            uuids[i] = UUID.randomUUID();
+            joinDates[i] = now - (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(3650));
+            playtimes[i] = (long) (random.nextDouble() * TimeUnit.HOURS.toMillis(2000));
+        }
+        ranked = load();
+    }
+
+    private RankedPlayers load() {
+        RankedPlayers loading = new RankedPlayers();
+        for (int i = 0; i < players; i++) loading.load(uuids[i], joinDates[i], playtimes[i], "Player" + (i % 100000));
+        loading.rank();
+        return loading;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RankedPlayers loadAndRank() {
+        return load();
+    }
+
+    @Benchmark
+    public List<RankedPlayers.Entry> page() {
+        return ranked.page(LeaderboardType.OLDEST, random.nextInt(players / 10) * 10, 10);
+    }
+
+    @Benchmark
+    public void setPlaytime() {
+        // A checkpoint's worth of playtime, which moves a player a short way up the ranking
+        int player = random.nextInt(players);
+        playtimes[player] += TimeUnit.MINUTES.toMillis(5);
+        ranked.setPlaytime(uuids[player], playtimes[player]);
+    }
+
+    @Benchmark
+    public void recordJoin() {
+        ranked.recordJoin(uuids[random.nextInt(players)], System.currentTimeMillis(), "Rejoined");
+    }
+}
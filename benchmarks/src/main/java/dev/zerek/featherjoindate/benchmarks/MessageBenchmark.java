@@ -0,0 +1,75 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.configs.JoinDateMessages;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import dev.zerek.featherjoindate.utils.MessageFormatterUtility;
+import net.kyori.adventure.text.TextComponent;
+import org.bukkit.OfflinePlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning templates from messages.yml into components, with and without placeholders,
+ * and the full /seen message formatting on top of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageBenchmark {
+
+    private JoinDateMessages messages;
+    private Map<String, String> placeholders;
+    private OfflinePlayer offlinePlayer;
+    private PlayerJoinRecord record;
+
+    @Setup
+    public void setup() {
+        messages = BenchmarkFixtures.loadMessages();
+
+        placeholders = new HashMap<>();
+        placeholders.put("player", "Zerek");
+        placeholders.put("joindate", "Jan 01, 2021");
+        placeholders.put("jointime", "03:30 PM");
+        placeholders.put("joindateago", "(1000d ago)");
+        placeholders.put("lastlogindate", "Oct 18, 2026");
+        placeholders.put("lastlogintime", "09:15 AM");
+        placeholders.put("lastloginago", "(Today)");
+        placeholders.put("usernames", "OldName, OlderName");
+
+        offlinePlayer = BenchmarkFixtures.offlinePlayer(UUID.randomUUID(), "Zerek");
+        record = new PlayerJoinRecord(1_609_533_000_000L, 1_792_300_000_000L,
+                UsernameHistory.of("OlderName", "OldName", "Zerek"));
+    }
+
+    @Benchmark
+    public TextComponent getWithoutPlaceholders() {
+        return messages.get("error-no-permission");
+    }
+
+    @Benchmark
+    public TextComponent getJoinDateTemplate() {
+        return messages.get("joindate-offline", placeholders);
+    }
+
+    @Benchmark
+    public TextComponent formatJoinDateMessage() {
+        return MessageFormatterUtility.formatJoinDateMessage(messages, offlinePlayer, record);
+    }
+}
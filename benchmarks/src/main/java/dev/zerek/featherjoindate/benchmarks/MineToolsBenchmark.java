@@ -0,0 +1,77 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.zerek.featherjoindate.utils.MineToolsAPIUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures MineTools username lookups against a local HTTP stub, so the numbers reflect
+ * the plugin's own overhead rather than the public API's latency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MineToolsBenchmark {
+
+    private HttpServer server;
+    private MineToolsAPIUtility mineTools;
+    private UUID cachedUuid;
+
+    @Setup
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/uuid/", exchange -> {
+            String uuid = exchange.getRequestURI().getPath().substring("/uuid/".length());
+            byte[] body = ("{\"id\":\"" + uuid + "\",\"name\":\"Stub_" + uuid.substring(0, 8) + "\",\"status\":\"OK\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        String apiUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/uuid/";
+        mineTools = new MineToolsAPIUtility(Logger.getLogger("FeatherJoinDate"), apiUrl);
+
+        cachedUuid = UUID.randomUUID();
+        mineTools.getCurrentUsername(cachedUuid).join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public String cachedLookup() {
+        return mineTools.getCurrentUsername(cachedUuid).join();
+    }
+
+    @Benchmark
+    public String uncachedLookup() {
+        return mineTools.getCurrentUsername(UUID.randomUUID()).join();
+    }
+}
@@ -0,0 +1,95 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.search.NameMatch;
+import dev.zerek.featherjoindate.search.NameSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures /seen search at a few million names: building the trigram index as done at startup, and searching for
+ * fragments of three letters, the widest allowed, and of six. The index's size is printed once built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class NameSearchBenchmark {
+
+    private static final String NAME_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_";
+
+    @Param({"3000000"})
+    public int names;
+
+    private UUID[] uuids;
+    private String[] usernames;
+    private NameSearchIndex index;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        // Two names per account on average, as accounts keep their history
+        uuids = new UUID[names / 2];
+        for (int i = 0; i < uuids.length; i++) uuids[i] = UUID.randomUUID();
+        usernames = new String[names];
+        for (int i = 0; i < names; i++) {
+            int length = 3 + random.nextInt(14);
+            StringBuilder name = new StringBuilder(length);
+            for (int j = 0; j < length; j++) name.append(NAME_CHARS.charAt(random.nextInt(NAME_CHARS.length())));
+            usernames[i] = name.toString();
+        }
+        index = build();
+        System.out.printf("%n%d names indexed in %d bytes, %.1f bytes per name%n",
+                index.size(), index.memoryBytes(), index.memoryBytes() / (double) index.size());
+    }
+
+    private NameSearchIndex build() {
+        NameSearchIndex.Builder builder = new NameSearchIndex.Builder(Integer.MAX_VALUE);
+        for (int i = 0; i < names; i++) {
+            if (i % 2 == 0) builder.addAccount(uuids[i / 2]);
+            builder.addName(usernames[i], i % 2 == 1);
+        }
+        return builder.build();
+    }
+
+    private String fragment(int length) {
+        String name;
+        do {
+            name = usernames[random.nextInt(names)];
+        } while (name.length() < length);
+        int start = random.nextInt(name.length() - length + 1);
+        return name.substring(start, start + length);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public NameSearchIndex buildIndex() {
+        return build();
+    }
+
+    @Benchmark
+    public List<NameMatch> searchThreeLetters() {
+        return index.search(fragment(3), 500);
+    }
+
+    @Benchmark
+    public List<NameMatch> searchSixLetters() {
+        return index.search(fragment(6), 500);
+    }
+}
@@ -0,0 +1,100 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old Map based player data bag with PlayerJoinRecord, from the values a
+ * row lookup produces through to the strings the /seen message needs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlayerDataBenchmark {
+
+    @Param({"1", "4", "12"})
+    public int usernameCount;
+
+    private long joinDate;
+    private long lastLogin;
+    private String currentUsername;
+    private String concatenatedUsernames;
+    private String previousConcatenatedUsernames;
+
+    @Setup
+    public void setup() {
+        joinDate = 1_600_000_000_000L;
+        lastLogin = 1_700_000_000_000L;
+
+        String[] usernames = new String[usernameCount];
+        for (int i = 0; i < usernameCount; i++) usernames[i] = "Player_" + i;
+        currentUsername = usernames[usernameCount - 1];
+        concatenatedUsernames = String.join(",", usernames);
+        previousConcatenatedUsernames = String.join(",", Arrays.copyOf(usernames, usernameCount - 1));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public String mapBag() {
+        // JoinManager: build the bag, with the current name already filtered out by the query
+        Map<String, Object> playerData = new HashMap<>();
+        playerData.put("exists", true);
+        playerData.put("joinDate", joinDate);
+        playerData.put("lastLogin", lastLogin);
+        List<String> previousUsernames = new ArrayList<>();
+        if (!previousConcatenatedUsernames.isEmpty()) {
+            previousUsernames = Arrays.asList(previousConcatenatedUsernames.split(","));
+        }
+        playerData.put("previousUsernames", previousUsernames);
+
+        // SeenCommand: cast everything back out
+        if (!(boolean) playerData.get("exists")) return null;
+        long joined = (long) playerData.get("joinDate");
+        long lastLogged = (long) playerData.get("lastLogin");
+        List<String> names = (List<String>) playerData.get("previousUsernames");
+
+        // MessageFormatterUtility: de-duplicate and join
+        boolean hasPastUsernames = !names.isEmpty();
+        String joinedNames = String.join(", ", new ArrayList<>(new HashSet<>(names)));
+        return hasPastUsernames ? joinedNames : (joined + lastLogged > 0 ? "" : null);
+    }
+
+    @Benchmark
+    public String typedRecord() {
+        // JoinManager: build the record from the full history
+        PlayerJoinRecord record = new PlayerJoinRecord(joinDate, lastLogin,
+                UsernameHistory.fromConcatenated(concatenatedUsernames));
+
+        // SeenCommand
+        if (!record.exists()) return null;
+        long joined = record.getJoinDate();
+        long lastLogged = record.getLastLogin();
+
+        // MessageFormatterUtility
+        boolean hasPastUsernames = record.getUsernames().hasOtherThan(currentUsername);
+        String joinedNames = record.getUsernames().joinExcluding(currentUsername, ", ");
+        return hasPastUsernames ? joinedNames : (joined + lastLogged > 0 ? "" : null);
+    }
+}
@@ -0,0 +1,55 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the schema work done on every plugin enable, against a database that is already up to date.
+ * Point -Dbenchmark.jdbc.url (plus .user and .password) at a scratch MySQL database to include real round trips.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaBootstrapBenchmark {
+
+    private JdbcConnectionPool dataSource;
+    private Logger logger;
+
+    @Setup
+    public void setup() {
+        dataSource = JdbcConnectionPool.create(
+                System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:schema;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        logger = Logger.getLogger("FeatherJoinDate");
+        // The first construction creates the tables; measured runs find them current
+        new DatabaseManager(logger, dataSource);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.dispose();
+    }
+
+    @Benchmark
+    public DatabaseManager bootstrapCurrentSchema() {
+        return new DatabaseManager(logger, dataSource);
+    }
+}
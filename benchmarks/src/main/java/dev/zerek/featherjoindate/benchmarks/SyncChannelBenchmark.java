@@ -0,0 +1,104 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+import dev.zerek.featherjoindate.managers.JoinManager;
+import dev.zerek.featherjoindate.managers.LeaderboardManager;
+import dev.zerek.featherjoindate.managers.PlayerCacheManager;
+import dev.zerek.featherjoindate.managers.SyncManager;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import dev.zerek.featherjoindate.storage.StorageType;
+import dev.zerek.featherjoindate.sync.ChangeLogSyncChannel;
+import dev.zerek.featherjoindate.sync.LocalSyncChannel;
+import dev.zerek.featherjoindate.sync.SyncChannel;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Simulates several servers sharing one database in a single JVM: one server publishes a batch of joins,
+ * then every other server polls and applies it to its cache. Runs over the change_log table on an embedded
+ * H2 database in MySQL mode, and over the in-process channel to show the cost of the table itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncChannelBenchmark {
+
+    private static final int JOINS_PER_BATCH = 100;
+
+    @Param({"changelog", "local"})
+    public String channel;
+
+    @Param({"4"})
+    public int servers;
+
+    private JdbcConnectionPool h2Pool;
+    private SyncManager[] syncManagers;
+    private List<JoinEvent> batch;
+
+    @Setup
+    public void setup() {
+        Logger logger = Logger.getLogger("FeatherJoinDate");
+        h2Pool = JdbcConnectionPool.create(
+                "jdbc:h2:mem:sync;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        DatabaseManager databaseManager = new DatabaseManager(logger, h2Pool, StorageType.MYSQL, new PluginMetrics());
+        databaseManager.initialize();
+        LocalSyncChannel.Log log = new LocalSyncChannel.Log();
+
+        syncManagers = new SyncManager[servers];
+        for (int i = 0; i < servers; i++) {
+            SyncChannel syncChannel = channel.equals("local")
+                    ? new LocalSyncChannel(log)
+                    : new ChangeLogSyncChannel(databaseManager, "server-" + i, 500, TimeUnit.MINUTES.toMillis(60));
+            JoinManager joinManager = new JoinManager(logger, JoinManager.createJoinStore(databaseManager),
+                    new PlayerCacheManager(1000, 10), new PluginMetrics(), Collections.singletonList(new LeaderboardManager(logger)));
+            syncManagers[i] = new SyncManager(logger, syncChannel, joinManager);
+            // The first poll marks where each server starts reading
+            syncManagers[i].poll();
+        }
+
+        batch = new ArrayList<>(JOINS_PER_BATCH);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < JOINS_PER_BATCH; i++) batch.add(new JoinEvent(UUID.randomUUID(), "player" + i, now));
+    }
+
+    @TearDown
+    public void tearDown() {
+        h2Pool.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOINS_PER_BATCH)
+    public void publishAndPoll() {
+        syncManagers[0].publishJoins(batch);
+        for (int i = 1; i < servers; i++) syncManagers[i].poll();
+    }
+
+    @Benchmark
+    public void pollIdle() {
+        // What every server pays each poll interval when nothing has changed
+        syncManagers[1].poll();
+    }
+}
@@ -0,0 +1,51 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.utils.TimeFormatterUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeFormatterBenchmark {
+
+    // Held in a field so the JIT can't constant-fold the argument
+    public long epochMillis = 1_609_533_000_000L;
+
+    @Benchmark
+    public String formatDate() {
+        return TimeFormatterUtility.formatDate(epochMillis);
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return TimeFormatterUtility.formatTime(epochMillis);
+    }
+
+    @Benchmark
+    public String formatRelativeTime() {
+        return TimeFormatterUtility.formatRelativeTime(epochMillis);
+    }
+
+    @Benchmark
+    public String formatOnlineTime() {
+        return TimeFormatterUtility.formatOnlineTime(epochMillis);
+    }
+
+    @Benchmark
+    public boolean hasUnknownValues() {
+        return TimeFormatterUtility.hasUnknownValues(epochMillis, epochMillis);
+    }
+}
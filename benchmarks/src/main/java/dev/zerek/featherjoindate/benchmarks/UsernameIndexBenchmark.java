@@ -0,0 +1,93 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.completion.UsernameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the tab completion username index at server scale: building it from every stored name as done at
+ * startup, completing a prefix as a player types, and merging in the names of new players.
+ * The index's size is printed once built, for the memory cost per name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsernameIndexBenchmark {
+
+    private static final String NAME_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_";
+
+    @Param({"1000000"})
+    public int names;
+
+    private String[] usernames;
+    private UsernameIndex index;
+    private UsernameIndex newPlayers;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        usernames = new String[names];
+        for (int i = 0; i < names; i++) usernames[i] = randomName();
+        index = build();
+        System.out.printf("%n%d names indexed in %d bytes, %.1f bytes per name%n",
+                index.size(), index.memoryBytes(), index.memoryBytes() / (double) index.size());
+
+        UsernameIndex.Builder builder = new UsernameIndex.Builder(4096);
+        for (int i = 0; i < 4096; i++) builder.add(randomName());
+        newPlayers = builder.build();
+    }
+
+    private String randomName() {
+        int length = 3 + random.nextInt(14);
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) name.append(NAME_CHARS.charAt(random.nextInt(NAME_CHARS.length())));
+        return name.toString();
+    }
+
+    private UsernameIndex build() {
+        UsernameIndex.Builder builder = new UsernameIndex.Builder(Integer.MAX_VALUE);
+        for (String username : usernames) builder.add(username);
+        return builder.build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public UsernameIndex buildIndex() {
+        return build();
+    }
+
+    @Benchmark
+    public List<String> completeOneLetter() {
+        // The widest prefix a player types, which fills the suggestion limit
+        return index.complete(usernames[random.nextInt(names)].substring(0, 1), 50);
+    }
+
+    @Benchmark
+    public List<String> completeThreeLetters() {
+        return index.complete(usernames[random.nextInt(names)].substring(0, 3), 50);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public UsernameIndex mergeNewPlayers() {
+        // What the username index manager pays once every 4096 new names
+        return index.merge(newPlayers, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,120 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+import dev.zerek.featherjoindate.managers.JoinManager;
+import dev.zerek.featherjoindate.managers.PlayerCacheManager;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the uncached /seen lookup path as the usernames table grows, up to 5M rows.
+ * With the username_lower index the sampled latencies should stay flat across table sizes.
+ * The database is an H2 file in a temporary folder so large tables don't have to fit in the heap.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsernameLookupBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    @Param({"100000", "1000000", "5000000"})
+    public int usernameRows;
+
+    private File folder;
+    private JdbcConnectionPool dataSource;
+    private JoinManager joinManager;
+    private String[] usernames;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("featherjoindate").toFile();
+        dataSource = JdbcConnectionPool.create(
+                "jdbc:h2:file:" + new File(folder, "joindates").getAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                "sa", "");
+
+        Logger logger = Logger.getLogger("FeatherJoinDate");
+        joinManager = new JoinManager(logger, new DatabaseManager(logger, dataSource), new PlayerCacheManager(0, 1));
+
+        // Every player has joined under two names, so there are two username rows per player
+        int players = usernameRows / 2;
+        usernames = new String[players];
+        long now = System.currentTimeMillis();
+        List<JoinEvent> current = new ArrayList<>(SEED_BATCH_SIZE);
+        List<JoinEvent> previous = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < players; i++) {
+            UUID uuid = UUID.randomUUID();
+            usernames[i] = "Player" + i;
+            previous.add(new JoinEvent(uuid, "Old" + i, now - 86_400_000L));
+            current.add(new JoinEvent(uuid, usernames[i], now));
+            if (current.size() == SEED_BATCH_SIZE) {
+                seed(previous, current);
+            }
+        }
+        seed(previous, current);
+    }
+
+    private void seed(List<JoinEvent> previous, List<JoinEvent> current) {
+        joinManager.storeJoins(previous);
+        joinManager.storeJoins(current);
+        previous.clear();
+        current.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.dispose();
+        File[] files = folder.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        folder.delete();
+    }
+
+    private String nextUsername() {
+        next = (next + 7919) % usernames.length;
+        return usernames[next];
+    }
+
+    @Benchmark
+    public List<String> getUsernameUUIDs() {
+        // Typed names rarely match the stored case
+        return joinManager.getUsernameUUIDs(nextUsername().toLowerCase(Locale.ROOT));
+    }
+
+    @Benchmark
+    public List<String> getUsernameUUIDsUnseen() {
+        return joinManager.getUsernameUUIDs("unseen" + nextUsername());
+    }
+
+    @Benchmark
+    public PlayerJoinRecord seenLookup() {
+        List<String> uuids = joinManager.getUsernameUUIDs(nextUsername());
+        return uuids.isEmpty() ? null : joinManager.getPlayerFullData(UUID.fromString(uuids.get(0)));
+    }
+}
@@ -0,0 +1,136 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.storage.BinaryUuidMigration;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Times the chunked backfill of the binary UUID migration on text-keyed tables of a million players, one in a
+ * hundred with a mojang_uuid that isn't a UUID, and the same backfill resumed after a run converted half the rows.
+ * Point -Dbenchmark.jdbc.url (plus .user and .password) at a scratch MySQL database to measure the real thing;
+ * on H2, UNHEX is supplied as a Java function.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UuidMigrationBenchmark {
+
+    @Param({"1000000"})
+    public int players;
+
+    @Param({"0", "50"})
+    public int convertedPercent;
+
+    private JdbcConnectionPool dataSource;
+    private final BinaryUuidMigration migration = new BinaryUuidMigration(Logger.getLogger("FeatherJoinDate"));
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        dataSource = JdbcConnectionPool.create(
+                System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            if (conn.getMetaData().getURL().startsWith("jdbc:h2:")) {
+                stmt.execute("CREATE ALIAS IF NOT EXISTS UNHEX FOR \"" + getClass().getName() + ".unhex\"");
+            }
+        }
+    }
+
+    /**
+     * UNHEX for H2, which has no function of that name.
+     */
+    public static byte[] unhex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        return bytes;
+    }
+
+    @Setup(Level.Iteration)
+    public void createTables() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS usernames");
+            stmt.execute("DROP TABLE IF EXISTS joins");
+            stmt.execute("CREATE TABLE joins (mojang_uuid VARCHAR(64) PRIMARY KEY, " +
+                    "last_login TIMESTAMP NOT NULL, joindate TIMESTAMP NOT NULL)");
+            stmt.execute("CREATE TABLE usernames (id INT AUTO_INCREMENT PRIMARY KEY, mojang_uuid VARCHAR(64) NOT NULL, " +
+                    "username VARCHAR(32), UNIQUE (mojang_uuid, username))");
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int start = 0; start < players; start += 5000) {
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement joins = conn.prepareStatement("INSERT INTO joins (mojang_uuid, joindate, last_login) VALUES (?, ?, ?)");
+                     PreparedStatement names = conn.prepareStatement("INSERT INTO usernames (mojang_uuid, username) VALUES (?, ?)")) {
+                    for (int i = start; i < Math.min(players, start + 5000); i++) {
+                        String uuid = i % 100 == 0 ? "not-a-uuid-" + i : UUID.randomUUID().toString();
+                        joins.setString(1, uuid);
+                        joins.setTimestamp(2, now);
+                        joins.setTimestamp(3, now);
+                        joins.addBatch();
+                        names.setString(1, uuid);
+                        names.setString(2, "player" + i);
+                        names.addBatch();
+                    }
+                    joins.executeBatch();
+                    names.executeBatch();
+                }
+                conn.commit();
+            }
+        }
+
+        // A run that stopped part way, leaving the first rows of each table converted
+        if (convertedPercent == 0) return;
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            for (String table : new String[]{"joins", "usernames"}) {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN uuid_bin BINARY(16) NULL");
+            }
+            long limit = (long) players * convertedPercent / 100;
+            String valid = "mojang_uuid NOT LIKE 'not-a-uuid-%'";
+            stmt.execute("UPDATE usernames SET uuid_bin = UNHEX(REPLACE(mojang_uuid, '-', '')) WHERE " + valid + " AND id <= " + limit);
+            stmt.execute("UPDATE joins SET uuid_bin = UNHEX(REPLACE(mojang_uuid, '-', '')) WHERE " + valid +
+                    " AND mojang_uuid IN (SELECT mojang_uuid FROM usernames WHERE id <= " + limit + ")");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS usernames");
+            stmt.execute("DROP TABLE IF EXISTS joins");
+        }
+        dataSource.dispose();
+    }
+
+    @Benchmark
+    public long backfill() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return migration.backfill(conn, "joins") + migration.backfill(conn, "usernames");
+        }
+    }
+}
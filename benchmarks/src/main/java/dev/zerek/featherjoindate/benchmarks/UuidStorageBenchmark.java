@@ -0,0 +1,167 @@
+package dev.zerek.featherjoindate.benchmarks;
+
+import dev.zerek.featherjoindate.utils.UUIDUtility;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old VARCHAR(64) UUID layout with the BINARY(16) layout on a realistically sized table,
+ * using the same key lookups and batched inserts JoinStore runs.
+ * Point -Dbenchmark.jdbc.url (plus .user and .password) at a scratch MySQL database to measure the real thing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UuidStorageBenchmark {
+
+    private static final int INSERT_BATCH_SIZE = 100;
+
+    @Param({"varchar", "binary"})
+    public String layout;
+
+    @Param({"1000000"})
+    public int players;
+
+    private JdbcConnectionPool dataSource;
+    private boolean binary;
+    private UUID[] uuids;
+    private int next;
+
+    @Setup
+    public void setup() throws SQLException {
+        binary = "binary".equals(layout);
+        dataSource = JdbcConnectionPool.create(
+                System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:uuids;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+
+        String uuidType = binary ? "BINARY(16)" : "VARCHAR(64)";
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS usernames");
+            stmt.execute("DROP TABLE IF EXISTS joins");
+            stmt.execute("CREATE TABLE joins (mojang_uuid " + uuidType + " PRIMARY KEY, " +
+                    "last_login TIMESTAMP NOT NULL, joindate TIMESTAMP NOT NULL)");
+            stmt.execute("CREATE TABLE usernames (id INT AUTO_INCREMENT PRIMARY KEY, mojang_uuid " + uuidType + " NOT NULL, " +
+                    "username VARCHAR(32), UNIQUE (mojang_uuid, username))");
+        }
+
+        uuids = new UUID[players];
+        for (int i = 0; i < players; i++) uuids[i] = UUID.randomUUID();
+        for (int start = 0; start < players; start += 5000) {
+            insert(start, Math.min(players, start + 5000));
+        }
+    }
+
+    private void insert(int from, int to) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement joins = conn.prepareStatement("INSERT INTO joins (mojang_uuid, joindate, last_login) VALUES (?, ?, ?)");
+                 PreparedStatement names = conn.prepareStatement("INSERT INTO usernames (mojang_uuid, username) VALUES (?, ?)")) {
+                for (int i = from; i < to; i++) {
+                    bind(joins, 1, uuids[i]);
+                    joins.setTimestamp(2, now);
+                    joins.setTimestamp(3, now);
+                    joins.addBatch();
+                    bind(names, 1, uuids[i]);
+                    names.setString(2, "player" + i);
+                    names.addBatch();
+                }
+                joins.executeBatch();
+                names.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    private void bind(PreparedStatement stmt, int index, UUID uuid) throws SQLException {
+        if (binary) stmt.setBytes(index, UUIDUtility.toBytes(uuid));
+        else stmt.setString(index, uuid.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS usernames");
+            stmt.execute("DROP TABLE IF EXISTS joins");
+        }
+        dataSource.dispose();
+    }
+
+    private UUID nextUuid() {
+        next = (next + 7919) % players;
+        return uuids[next];
+    }
+
+    @Benchmark
+    public long lookupJoin() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT joindate FROM joins WHERE mojang_uuid = ?")) {
+            bind(stmt, 1, nextUuid());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getTimestamp(1).getTime() : 0L;
+            }
+        }
+    }
+
+    @Benchmark
+    public String lookupLatestUsername() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT username FROM usernames WHERE mojang_uuid = ? ORDER BY id DESC LIMIT 1")) {
+            bind(stmt, 1, nextUuid());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int insertNewPlayers() throws SQLException {
+        // Fresh random UUIDs, so every batch lands at scattered points in the primary key
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement joins = conn.prepareStatement("INSERT INTO joins (mojang_uuid, joindate, last_login) VALUES (?, ?, ?)");
+                 PreparedStatement names = conn.prepareStatement("INSERT INTO usernames (mojang_uuid, username) VALUES (?, ?)")) {
+                for (int i = 0; i < INSERT_BATCH_SIZE; i++) {
+                    UUID uuid = UUID.randomUUID();
+                    bind(joins, 1, uuid);
+                    joins.setTimestamp(2, now);
+                    joins.setTimestamp(3, now);
+                    joins.addBatch();
+                    bind(names, 1, uuid);
+                    names.setString(2, "new" + i);
+                    names.addBatch();
+                }
+                joins.executeBatch();
+                names.executeBatch();
+            }
+            conn.commit();
+        }
+        return INSERT_BATCH_SIZE;
+    }
+}
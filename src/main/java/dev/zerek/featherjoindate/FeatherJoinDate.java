@@ -1,51 +1,215 @@
 package dev.zerek.featherjoindate;
 
 import dev.zerek.featherjoindate.commands.SeenCommand;
+import dev.zerek.featherjoindate.commands.SeenTabCompleter;
 import dev.zerek.featherjoindate.configs.JoinDateConfig;
 import dev.zerek.featherjoindate.configs.JoinDateMessages;
+import dev.zerek.featherjoindate.listeners.AsyncTabCompleteListener;
 import dev.zerek.featherjoindate.listeners.PlayerJoinListener;
+import dev.zerek.featherjoindate.listeners.PlayerQuitListener;
 import dev.zerek.featherjoindate.listeners.PlayerShowListener;
 import dev.zerek.featherjoindate.managers.DatabaseManager;
 import dev.zerek.featherjoindate.managers.JoinManager;
+import dev.zerek.featherjoindate.managers.JoinQueueManager;
+import dev.zerek.featherjoindate.managers.LeaderboardManager;
+import dev.zerek.featherjoindate.managers.NameSearchManager;
+import dev.zerek.featherjoindate.managers.PlayerCacheManager;
+import dev.zerek.featherjoindate.managers.PlaytimeManager;
+import dev.zerek.featherjoindate.managers.SyncManager;
+import dev.zerek.featherjoindate.managers.UsernameIndexManager;
+import dev.zerek.featherjoindate.metrics.MetricsHttpServer;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import dev.zerek.featherjoindate.utils.IoExecutor;
 import dev.zerek.featherjoindate.utils.MineToolsAPIUtility;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 public final class FeatherJoinDate extends JavaPlugin {
 
     private JoinDateConfig joinDateConfig;
     private JoinDateMessages joinDateMessages;
+    private PluginMetrics metrics;
+    private MetricsHttpServer metricsHttpServer;
+    private IoExecutor ioExecutor;
     private DatabaseManager databaseManager;
+    private PlayerCacheManager playerCacheManager;
+    private LeaderboardManager leaderboardManager;
+    private UsernameIndexManager usernameIndexManager;
+    private NameSearchManager nameSearchManager;
     private JoinManager joinManager;
+    private JoinQueueManager joinQueueManager;
+    private PlaytimeManager playtimeManager;
+    private SyncManager syncManager;
     private MineToolsAPIUtility mineToolsAPIUtility;
 
     @Override
     public void onEnable() {
         this.joinDateConfig = new JoinDateConfig(this);
         this.joinDateMessages = new JoinDateMessages(this);
+        this.metrics = new PluginMetrics();
+        this.ioExecutor = new IoExecutor(this, this.joinDateConfig);
         this.databaseManager = new DatabaseManager(this, this.joinDateConfig);
+        this.playerCacheManager = new PlayerCacheManager(this.joinDateConfig);
+        this.getServer().getOnlinePlayers().forEach(player -> this.playerCacheManager.markOnline(player.getUniqueId()));
+        this.leaderboardManager = new LeaderboardManager(this.getLogger());
+        this.usernameIndexManager = new UsernameIndexManager(this.getLogger(),
+                this.joinDateConfig.isTabCompleteEnabled(), this.joinDateConfig.getTabCompleteMaxNames());
+        this.nameSearchManager = new NameSearchManager(this.getLogger(), this.ioExecutor,
+                this.joinDateConfig.isSearchEnabled(), this.joinDateConfig.getSearchMaxNames());
         this.joinManager = new JoinManager(this);
-        this.mineToolsAPIUtility = new MineToolsAPIUtility(this);
+        this.syncManager = new SyncManager(this, this.joinDateConfig);
+        this.joinQueueManager = new JoinQueueManager(this, this.joinDateConfig);
+        this.playtimeManager = new PlaytimeManager(this, this.joinDateConfig);
+        this.getServer().getOnlinePlayers().forEach(player -> this.playtimeManager.startSession(player.getUniqueId()));
+        this.mineToolsAPIUtility = new MineToolsAPIUtility(this, this.joinDateConfig);
+        this.registerMetrics();
         this.getServer().getPluginManager().registerEvents(new PlayerJoinListener(this), this);
         this.getServer().getPluginManager().registerEvents(new PlayerShowListener(this), this);
+        this.getServer().getPluginManager().registerEvents(new PlayerQuitListener(this), this);
+        SeenTabCompleter seenTabCompleter = new SeenTabCompleter(this);
+        this.getServer().getPluginManager().registerEvents(new AsyncTabCompleteListener(this, seenTabCompleter), this);
         this.getCommand("seen").setExecutor(new SeenCommand(this));
+        this.getCommand("seen").setTabCompleter(seenTabCompleter);
+        this.ioExecutor.execute(this::initializeDatabase);
+    }
+
+    /**
+     * Prepares the database off the main thread, so a slow or unreachable database can't hold up server startup.
+     * Until this succeeds joins stay queued and /seen reports that it is warming up; failed attempts are retried.
+     */
+    private void initializeDatabase() {
+        long start = System.nanoTime();
+        if (!this.databaseManager.initialize()) {
+            int retrySeconds = Math.max(1, this.joinDateConfig.getStorageInitRetrySeconds());
+            this.getLogger().warning(String.format("Database not ready, retrying in %d seconds.", retrySeconds));
+            this.getServer().getScheduler().runTaskLater(this, () -> this.ioExecutor.execute(this::initializeDatabase), retrySeconds * 20L);
+            return;
+        }
+        this.getLogger().info(String.format("Database ready in %d ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+        // Write the joins buffered while warming up, then load whoever is online, then rank and index everyone
+        this.joinQueueManager.flush();
+        this.getServer().getScheduler().runTask(this, this::warmOnlinePlayers);
+        // The first poll marks where this server starts reading other servers' changes, so none are missed while loading
+        this.syncManager.poll();
+        this.joinManager.reloadViews();
+    }
+
+    /**
+     * Loads the records of players already online, such as after a reload or while the database was warming up, in one batch.
+     */
+    private void warmOnlinePlayers() {
+        List<UUID> onlinePlayers = new ArrayList<>();
+        this.getServer().getOnlinePlayers().forEach(player -> onlinePlayers.add(player.getUniqueId()));
+        if (onlinePlayers.isEmpty()) return;
+        this.ioExecutor.tryExecute(() -> this.joinManager.getPlayerFullData(onlinePlayers));
+    }
+
+    /**
+     * Exposes cache and queue state as metrics, and starts the HTTP endpoint if it is enabled.
+     */
+    private void registerMetrics() {
+        this.metrics.registerGauge("cache_hits_total", "Player record lookups answered from the cache", true, this.playerCacheManager::getHitCount);
+        this.metrics.registerGauge("cache_misses_total", "Player record lookups that went to the database", true, this.playerCacheManager::getMissCount);
+        this.metrics.registerGauge("cache_evictions_total", "Offline player records evicted from the cache", true, this.playerCacheManager::getEvictionCount);
+        this.metrics.registerGauge("cache_size", "Player records currently cached", false, this.playerCacheManager::getSize);
+        this.metrics.registerGauge("join_queue_pending", "Joins waiting to be written", false, this.joinQueueManager::getPendingCount);
+        this.metrics.registerGauge("join_journal_bytes", "Bytes held in the join journal", false, this.joinQueueManager::getJournalSize);
+        this.metrics.registerGauge("io_queued", "Plugin I/O tasks waiting for a thread", false, this.ioExecutor::getQueuedCount);
+        this.metrics.registerGauge("io_running", "Plugin I/O tasks running", false, this.ioExecutor::getRunningCount);
+        this.metrics.registerGauge("playtime_pending", "Players with playtime waiting to be written", false, this.playtimeManager::getPendingCount);
+        if (this.usernameIndexManager.isEnabled()) {
+            this.metrics.registerGauge("username_index_names", "Usernames indexed for tab completion", false, this.usernameIndexManager::getNameCount);
+            this.metrics.registerGauge("username_index_bytes", "Bytes held by the tab completion username index", false, this.usernameIndexManager::getMemoryBytes);
+        }
+        if (this.nameSearchManager.isEnabled()) {
+            this.metrics.registerGauge("name_search_names", "Usernames indexed for /seen search", false, this.nameSearchManager::getNameCount);
+            this.metrics.registerGauge("name_search_bytes", "Bytes held by the /seen search index", false, this.nameSearchManager::getMemoryBytes);
+        }
+        if (this.syncManager.isEnabled()) {
+            this.metrics.registerGauge("sync_changes_published_total", "Changes published to other servers", true, this.syncManager::getPublishedCount);
+            this.metrics.registerGauge("sync_changes_received_total", "Changes received from other servers", true, this.syncManager::getReceivedCount);
+        }
+
+        if (!this.joinDateConfig.isMetricsHttpEnabled()) return;
+        try {
+            this.metricsHttpServer = new MetricsHttpServer(this.getLogger(), this.metrics,
+                    this.joinDateConfig.getMetricsHttpHost(), this.joinDateConfig.getMetricsHttpPort());
+        } catch (IOException e) {
+            this.getLogger().severe("Unable to start metrics endpoint: " + e.getMessage());
+        }
     }
 
     @Override
     public void onDisable() {
-        // Plugin shutdown logic
+        if (this.metricsHttpServer != null) this.metricsHttpServer.stop();
+        // Let lookups and writes already under way finish while the database is still open
+        if (this.ioExecutor != null) this.ioExecutor.shutdown();
+        // Write out any joins still waiting in the queue
+        if (this.joinQueueManager != null) this.joinQueueManager.shutdown();
+        // Then the playtime of everyone still online, now that their joins have rows
+        if (this.playtimeManager != null) this.playtimeManager.shutdown();
+        if (this.syncManager != null) this.syncManager.shutdown();
+        if (this.databaseManager != null) this.databaseManager.close();
+        if (this.mineToolsAPIUtility != null) this.mineToolsAPIUtility.shutdown();
+    }
+
+    public JoinDateConfig getJoinDateConfig() {
+        return this.joinDateConfig;
     }
 
     public JoinDateMessages getJoinDateMessages() {
         return this.joinDateMessages;
     }
 
+    public PluginMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    public IoExecutor getIoExecutor() {
+        return this.ioExecutor;
+    }
+
     public DatabaseManager getDatabaseManager() {
         return this.databaseManager;
     }
 
+    public PlayerCacheManager getPlayerCacheManager() {
+        return this.playerCacheManager;
+    }
+
+    public LeaderboardManager getLeaderboardManager() {
+        return this.leaderboardManager;
+    }
+
+    public UsernameIndexManager getUsernameIndexManager() {
+        return this.usernameIndexManager;
+    }
+
+    public NameSearchManager getNameSearchManager() {
+        return this.nameSearchManager;
+    }
+
     public JoinManager getJoinManager() {
         return this.joinManager;
     }
+
+    public JoinQueueManager getJoinQueueManager() {
+        return this.joinQueueManager;
+    }
+
+    public SyncManager getSyncManager() {
+        return this.syncManager;
+    }
+
+    public PlaytimeManager getPlaytimeManager() {
+        return this.playtimeManager;
+    }
     
     public MineToolsAPIUtility getMineToolsAPIUtility() {
         return this.mineToolsAPIUtility;
@@ -0,0 +1,164 @@
+package dev.zerek.featherjoindate.backup;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * The file formats players can be exported to, one player per line.
+ * Times are milliseconds since epoch and usernames are listed oldest first.
+ */
+public enum ExportFormat {
+
+    /**
+     * uuid,joindate,last_login,playtime,sessions,usernames with the usernames separated by '|', which usernames can't contain.
+     * Older exports lack the playtime and sessions columns; as no field can contain a comma, they are told apart
+     * by the number of fields on each line.
+     */
+    CSV(".csv", false) {
+        @Override
+        String header() {
+            return "uuid,joindate,last_login,playtime,sessions,usernames";
+        }
+
+        @Override
+        String encode(UUID uuid, PlayerJoinRecord record) {
+            UsernameHistory usernames = record.getUsernames();
+            StringBuilder line = new StringBuilder(64 + usernames.size() * 17);
+            line.append(uuid).append(',').append(record.getJoinDate()).append(',').append(record.getLastLogin()).append(',')
+                    .append(record.getPlaytime()).append(',').append(record.getSessions()).append(',');
+            for (int i = 0; i < usernames.size(); i++) {
+                if (i > 0) line.append('|');
+                line.append(usernames.get(i));
+            }
+            return line.toString();
+        }
+
+        @Override
+        ExportedRecord decode(String line) {
+            if (line.startsWith("uuid,")) return null;
+            String[] fields = line.split(",", -1);
+            if (fields.length < 3 || fields.length > 6) throw new IllegalArgumentException("Expected 3 to 6 fields");
+            // uuid,joindate,last_login[,usernames] before playtime and sessions were exported
+            boolean withPlaytime = fields.length > 4;
+            int usernamesField = withPlaytime ? 5 : 3;
+            String[] usernames = fields.length > usernamesField && !fields[usernamesField].isEmpty()
+                    ? fields[usernamesField].split("\\|") : new String[0];
+            return new ExportedRecord(UUID.fromString(fields[0]),
+                    new PlayerJoinRecord(Long.parseLong(fields[1]), Long.parseLong(fields[2]), UsernameHistory.of(usernames),
+                            withPlaytime ? Long.parseLong(fields[3]) : 0,
+                            withPlaytime ? Integer.parseInt(fields[4]) : 0));
+        }
+    },
+
+    /**
+     * Gzipped newline-delimited JSON: {"uuid":...,"joindate":...,"last_login":...,"playtime":...,"sessions":...,"usernames":[...]}
+     * per line. Playtime and sessions are optional when restoring, as older exports lack them.
+     */
+    NDJSON(".ndjson.gz", true) {
+        @Override
+        String header() {
+            return null;
+        }
+
+        @Override
+        String encode(UUID uuid, PlayerJoinRecord record) {
+            JsonObject object = new JsonObject();
+            object.addProperty("uuid", uuid.toString());
+            object.addProperty("joindate", record.getJoinDate());
+            object.addProperty("last_login", record.getLastLogin());
+            object.addProperty("playtime", record.getPlaytime());
+            object.addProperty("sessions", record.getSessions());
+            JsonArray usernames = new JsonArray();
+            for (int i = 0; i < record.getUsernames().size(); i++) usernames.add(record.getUsernames().get(i));
+            object.add("usernames", usernames);
+            return object.toString();
+        }
+
+        @Override
+        ExportedRecord decode(String line) {
+            JsonObject object = JsonParser.parseString(line).getAsJsonObject();
+            List<String> usernames = new ArrayList<>();
+            if (object.has("usernames")) {
+                for (JsonElement username : object.get("usernames").getAsJsonArray()) usernames.add(username.getAsString());
+            }
+            return new ExportedRecord(UUID.fromString(object.get("uuid").getAsString()),
+                    new PlayerJoinRecord(object.get("joindate").getAsLong(), object.get("last_login").getAsLong(),
+                            UsernameHistory.of(usernames.toArray(new String[0])),
+                            object.has("playtime") ? object.get("playtime").getAsLong() : 0,
+                            object.has("sessions") ? object.get("sessions").getAsInt() : 0));
+        }
+    };
+
+    private final String extension;
+    private final boolean gzipped;
+
+    ExportFormat(String extension, boolean gzipped) {
+        this.extension = extension;
+        this.gzipped = gzipped;
+    }
+
+    /**
+     * @return The first line of the file, or null if the format has none
+     */
+    abstract String header();
+
+    abstract String encode(UUID uuid, PlayerJoinRecord record);
+
+    /**
+     * @return The player on the line, or null if the line is a header
+     * @throws IllegalArgumentException If the line is malformed
+     */
+    abstract ExportedRecord decode(String line);
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public boolean isGzipped() {
+        return gzipped;
+    }
+
+    /**
+     * @return The format with the given name ignoring case, or null if there is none
+     */
+    public static ExportFormat fromName(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) return format;
+        }
+        return null;
+    }
+
+    /**
+     * @return The format a file was exported in, judged by its extension, or null if it isn't an export
+     */
+    public static ExportFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (lower.endsWith(format.extension)) return format;
+        }
+        return null;
+    }
+
+    /**
+     * One decoded line.
+     */
+    static final class ExportedRecord {
+
+        final UUID uuid;
+        final PlayerJoinRecord record;
+
+        ExportedRecord(UUID uuid, PlayerJoinRecord record) {
+            this.uuid = uuid;
+            this.record = record;
+        }
+    }
+}
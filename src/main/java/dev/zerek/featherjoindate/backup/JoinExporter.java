@@ -0,0 +1,114 @@
+package dev.zerek.featherjoindate.backup;
+
+import dev.zerek.featherjoindate.managers.JoinManager;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every player's record from the database into a file, one line at a time,
+ * so memory use stays flat however many players there are.
+ * Progress can be polled from another thread while {@link #run()} works.
+ */
+public class JoinExporter {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final JoinManager joinManager;
+    private final File file;
+    private final ExportFormat format;
+
+    private final AtomicLong exported = new AtomicLong();
+    private volatile long total;
+    private volatile long startedAt;
+
+    /**
+     * Constructs a new JoinExporter writing to a timestamped file in a folder.
+     *
+     * @param joinManager The database to export
+     * @param folder      The folder to write the export to
+     * @param format      The format to write
+     */
+    public JoinExporter(JoinManager joinManager, File folder, ExportFormat format) {
+        this.joinManager = joinManager;
+        this.format = format;
+        this.file = new File(folder, "joindates-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + format.getExtension());
+    }
+
+    /**
+     * Writes the export. It is written under a temporary name and renamed once complete,
+     * so a partial export never looks like a finished one. Blocks until done, so run it off the main thread.
+     *
+     * @return The number of players exported
+     * @throws IOException If the file can't be written or the database can't be read
+     */
+    public long run() throws IOException {
+        startedAt = System.nanoTime();
+        total = joinManager.countPlayers();
+        Files.createDirectories(file.getParentFile().toPath());
+        File partial = new File(file.getPath() + ".part");
+
+        long count;
+        try (OutputStream out = open(partial);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_BYTES)) {
+            String header = format.header();
+            if (header != null) {
+                writer.write(header);
+                writer.write('\n');
+            }
+            count = joinManager.exportRecords((uuid, record) -> {
+                writer.write(format.encode(uuid, record));
+                writer.write('\n');
+                exported.incrementAndGet();
+            });
+        } catch (IOException e) {
+            partial.delete();
+            throw e;
+        }
+
+        if (count < 0) {
+            partial.delete();
+            throw new IOException("Unable to read the database, see the log");
+        }
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    private OutputStream open(File target) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(target.toPath()), BUFFER_BYTES);
+        return format.isGzipped() ? new GZIPOutputStream(out, BUFFER_BYTES) : out;
+    }
+
+    // === Progress ===
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getExported() {
+        return exported.get();
+    }
+
+    /**
+     * @return The number of players counted before the export started
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public long getElapsedMillis() {
+        return startedAt == 0 ? 0 : (System.nanoTime() - startedAt) / 1_000_000L;
+    }
+}
@@ -0,0 +1,139 @@
+package dev.zerek.featherjoindate.backup;
+
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.managers.JoinManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams an export back into the database in fixed-size batches, so a fresh database can be rebuilt
+ * from a file of any size. Restoring into a database that already has players merges the two:
+ * each player keeps the earlier join date, the later last login, and every username.
+ * Progress can be polled from another thread while {@link #run()} works.
+ */
+public class JoinRestorer {
+
+    // Players written per transaction
+    private static final int BATCH_SIZE = 2000;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Logger logger;
+    private final JoinManager joinManager;
+    private final File file;
+    private final ExportFormat format;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong restored = new AtomicLong();
+    private volatile long startedAt;
+
+    /**
+     * Constructs a new JoinRestorer.
+     *
+     * @param logger      The logger to report malformed lines to
+     * @param joinManager The database to restore into
+     * @param file        An export written by {@link JoinExporter}
+     * @param format      The format the file was written in
+     */
+    public JoinRestorer(Logger logger, JoinManager joinManager, File file, ExportFormat format) {
+        this.logger = logger;
+        this.joinManager = joinManager;
+        this.file = file;
+        this.format = format;
+    }
+
+    /**
+     * Reads the file and writes its players. Blocks until done, so run it off the main thread.
+     *
+     * @return The number of players restored
+     * @throws IOException If the file can't be read or a batch can't be written
+     */
+    public long run() throws IOException {
+        startedAt = System.nanoTime();
+        long malformed = 0;
+        Map<UUID, PlayerJoinRecord> batch = new LinkedHashMap<>();
+
+        try (InputStream in = open();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_BYTES)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                ExportFormat.ExportedRecord record;
+                try {
+                    record = format.decode(line);
+                } catch (RuntimeException e) {
+                    malformed++;
+                    continue;
+                }
+                if (record == null) continue;
+
+                batch.put(record.uuid, record.record);
+                if (batch.size() == BATCH_SIZE) write(batch);
+            }
+        }
+        write(batch);
+
+        if (malformed > 0) logger.warning(String.format("Skipped %d malformed lines restoring %s.", malformed, file.getName()));
+        return restored.get();
+    }
+
+    private void write(Map<UUID, PlayerJoinRecord> batch) throws IOException {
+        if (batch.isEmpty()) return;
+        if (!joinManager.restoreRecords(batch)) throw new IOException("Unable to write restored records, see the log");
+        restored.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    /**
+     * Opens the file, counting the bytes read from disk so progress can be reported against its size.
+     */
+    private InputStream open() throws IOException {
+        InputStream counting = new FilterInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_BYTES)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytesRead.incrementAndGet();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                int count = super.read(bytes, offset, length);
+                if (count > 0) bytesRead.addAndGet(count);
+                return count;
+            }
+        };
+        return format.isGzipped() ? new GZIPInputStream(counting, BUFFER_BYTES) : counting;
+    }
+
+    // === Progress ===
+
+    public long getRestored() {
+        return restored.get();
+    }
+
+    /**
+     * @return How much of the file has been read, from 0 to 100
+     */
+    public int getPercentRead() {
+        long size = file.length();
+        return size == 0 ? 100 : (int) Math.min(100, bytesRead.get() * 100 / size);
+    }
+
+    public long getElapsedMillis() {
+        return startedAt == 0 ? 0 : (System.nanoTime() - startedAt) / 1_000_000L;
+    }
+}
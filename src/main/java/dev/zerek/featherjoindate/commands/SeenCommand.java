@@ -1,7 +1,25 @@
 package dev.zerek.featherjoindate.commands;
 
 import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.backup.ExportFormat;
+import dev.zerek.featherjoindate.backup.JoinExporter;
+import dev.zerek.featherjoindate.backup.JoinRestorer;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import dev.zerek.featherjoindate.importer.LegacyImporter;
+import dev.zerek.featherjoindate.leaderboard.LeaderboardType;
+import dev.zerek.featherjoindate.leaderboard.RankedPlayers;
+import dev.zerek.featherjoindate.managers.LeaderboardManager;
+import dev.zerek.featherjoindate.managers.PlayerCacheManager;
+import dev.zerek.featherjoindate.metrics.Counter;
+import dev.zerek.featherjoindate.metrics.LatencyHistogram;
+import dev.zerek.featherjoindate.search.NameMatch;
+import dev.zerek.featherjoindate.search.NameSearchIndex;
+import dev.zerek.featherjoindate.utils.IoExecutor;
 import dev.zerek.featherjoindate.utils.MessageFormatterUtility;
+import dev.zerek.featherjoindate.utils.RequestCoalescer;
+import dev.zerek.featherjoindate.utils.TimeFormatterUtility;
+import dev.zerek.featherjoindate.utils.TokenBucketLimiter;
 import net.kyori.adventure.text.TextComponent;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -9,23 +27,53 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 public class SeenCommand implements CommandExecutor {
 
+    // Ticks between progress reports from bulk jobs
+    private static final long JOB_PROGRESS_TICKS = 100L;
+    // Players shown per page of /seen top
+    private static final int TOP_PAGE_SIZE = 10;
+    // Accounts shown per page of /seen search, and the most it pages through
+    private static final int SEARCH_PAGE_SIZE = 10;
+    private static final int SEARCH_MAX_RESULTS = 500;
+
     private final FeatherJoinDate plugin;
+    // Imports, exports and restores all stream through the pool, so only one runs at a time
+    private final AtomicBoolean jobRunning = new AtomicBoolean(false);
+    // Bounds how often each sender may look players up, and how many lookups run at once across all senders
+    private final TokenBucketLimiter rateLimiter;
+    private final RequestCoalescer<String, List<TextComponent>> lookups;
 
     public SeenCommand(FeatherJoinDate plugin) {
         this.plugin = plugin;
+        this.rateLimiter = new TokenBucketLimiter(plugin.getJoinDateConfig().getSeenRateLimitBurst(),
+                plugin.getJoinDateConfig().getSeenRateLimitPerSecond());
+        this.lookups = new RequestCoalescer<>(plugin.getJoinDateConfig().getSeenMaxConcurrentLookups());
+        plugin.getMetrics().registerGauge("seen_coalesced_total", "/seen requests that shared a lookup already running", true, lookups::getCoalescedCount);
+        plugin.getMetrics().registerGauge("seen_lookups_running", "/seen lookups running", false, lookups::getRunningCount);
+        plugin.getMetrics().registerGauge("seen_rate_limited_senders", "Senders held by the /seen rate limiter", false, rateLimiter::size);
     }
 
     @Override
@@ -37,6 +85,76 @@ public class SeenCommand implements CommandExecutor {
             return true;
         }
 
+        // Reload messages.yml
+        if (args.length == 1 && args[0].equalsIgnoreCase("reload") && sender.hasPermission("feather.joindate.reload")) {
+            boolean started = plugin.getIoExecutor().tryExecute(() -> {
+                plugin.getJoinDateMessages().reload();
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    sender.sendMessage(plugin.getJoinDateMessages().get("reload-complete"));
+                });
+            });
+            if (!started) sender.sendMessage(plugin.getJoinDateMessages().get("error-seen-busy"));
+            return true;
+        }
+
+        // Show recorded metrics
+        if (args.length == 1 && args[0].equalsIgnoreCase("metrics") && sender.hasPermission("feather.joindate.metrics")) {
+            displayMetrics(sender);
+            return true;
+        }
+
+        // Import join history from before the plugin was installed
+        if (args.length >= 1 && args[0].equalsIgnoreCase("import") && sender.hasPermission("feather.joindate.import")) {
+            startImport(sender, args.length > 1 && args[1].equalsIgnoreCase("essentials"));
+            return true;
+        }
+
+        // Export every stored player to a file, or restore one
+        if (args.length >= 1 && args[0].equalsIgnoreCase("export") && sender.hasPermission("feather.joindate.export")) {
+            ExportFormat format = args.length > 1 ? ExportFormat.fromName(args[1]) : ExportFormat.NDJSON;
+            if (format == null) {
+                sender.sendMessage(plugin.getJoinDateMessages().get("error-arg-count"));
+                return true;
+            }
+            startExport(sender, format);
+            return true;
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("restore") && sender.hasPermission("feather.joindate.export")) {
+            startRestore(sender, args[1]);
+            return true;
+        }
+
+        // Show a page of a leaderboard
+        if (args.length >= 2 && args.length <= 3 && args[0].equalsIgnoreCase("top") && sender.hasPermission("feather.joindate.top")) {
+            LeaderboardType type = LeaderboardType.fromName(args[1]);
+            int page = args.length == 3 ? parsePage(args[2]) : 1;
+            if (type == null || page < 1) {
+                sender.sendMessage(plugin.getJoinDateMessages().get("error-arg-count"));
+                return true;
+            }
+            displayLeaderboard(sender, type, page);
+            return true;
+        }
+
+        // Find accounts by part of any name they have used
+        if (args.length >= 2 && args.length <= 3 && args[0].equalsIgnoreCase("search") && sender.hasPermission("feather.joindate.search")) {
+            int page = args.length == 3 ? parsePage(args[2]) : 1;
+            if (args[1].length() < NameSearchIndex.MIN_FRAGMENT_LENGTH || page < 1) {
+                sender.sendMessage(plugin.getJoinDateMessages().get("error-search-fragment"));
+                return true;
+            }
+            if (!plugin.getDatabaseManager().isReady()) {
+                sender.sendMessage(plugin.getJoinDateMessages().get("error-warming-up"));
+                return true;
+            }
+            if (!tryAcquire(sender)) return true;
+            // Usernames have no spaces, so search keys never collide with name lookups
+            String fragment = args[1];
+            submit(sender, "search " + fragment.toLowerCase(Locale.ROOT) + " " + page,
+                    () -> CompletableFuture.completedFuture(searchReplies(fragment, page)));
+            return true;
+        }
+
         // Validate argument count
         if (args.length > 1) { 
             sender.sendMessage(plugin.getJoinDateMessages().get("error-arg-count"));
@@ -57,28 +175,73 @@ public class SeenCommand implements CommandExecutor {
             targetName = args[0];
         }
 
-        // Handle the command logic asynchronously
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> processSeenCommand(sender, targetName));
+        // Lookups need the database, which is prepared in the background after startup
+        if (!plugin.getDatabaseManager().isReady()) {
+            sender.sendMessage(plugin.getJoinDateMessages().get("error-warming-up"));
+            return true;
+        }
+
+        if (!tryAcquire(sender)) return true;
+        submit(sender, targetName.toLowerCase(Locale.ROOT), () -> processSeenCommand(targetName));
         return true;
     }
 
     /**
-     * Process the seen command for the given target player name
+     * Runs a lookup asynchronously and sends its replies on the main thread. A request for a key already being
+     * looked up shares its replies rather than running again; a new lookup is refused if every worker is busy,
+     * or if the plugin's I/O queue is full.
+     *
+     * @param key    What the replies depend on, and nothing about the sender
+     * @param lookup The lookup, run on the plugin's I/O executor
      */
-    private void processSeenCommand(CommandSender sender, String targetName) {
-        // First check if target is the sender
-        if (sender instanceof Player && sender.getName().equalsIgnoreCase(targetName)) {
-            // Directly use the sender's player object
-            Player player = (Player) sender;
-            displayPlayerStats(sender, player);
+    private void submit(CommandSender sender, String key, Supplier<CompletableFuture<List<TextComponent>>> lookup) {
+        CompletableFuture<List<TextComponent>> replies = lookups.submit(key,
+                () -> plugin.getIoExecutor().supply(lookup).thenCompose(started -> started));
+        if (replies == null) {
+            plugin.getMetrics().getSeenBusy().increment();
+            sender.sendMessage(plugin.getJoinDateMessages().get("error-seen-busy"));
             return;
         }
+        replies.whenComplete((messages, error) -> {
+            if (error == null) {
+                Bukkit.getScheduler().runTask(plugin, () -> messages.forEach(sender::sendMessage));
+            } else if ((error instanceof CompletionException ? error.getCause() : error) instanceof RejectedExecutionException) {
+                plugin.getMetrics().getSeenBusy().increment();
+                Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage(plugin.getJoinDateMessages().get("error-seen-busy")));
+            } else {
+                plugin.getLogger().severe("/seen lookup failed: " + error.getMessage());
+            }
+        });
+    }
 
-        // Check if there's an online player with this name
+    /**
+     * Takes one of the sender's tokens for a lookup, telling them if they have none left.
+     *
+     * @return true if the sender may look something up
+     */
+    private boolean tryAcquire(CommandSender sender) {
+        if (sender.hasPermission("feather.joindate.ratelimit.bypass") || rateLimiter.tryAcquire(sender.getName().toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        plugin.getMetrics().getSeenRateLimited().increment();
+        sender.sendMessage(plugin.getJoinDateMessages().get("error-rate-limited"));
+        return false;
+    }
+
+    /**
+     * Looks up a player by name. The replies depend only on the name, so every sender asking for it can share them.
+     *
+     * @param targetName The name to look up
+     * @return The messages to send, in order
+     */
+    private CompletableFuture<List<TextComponent>> processSeenCommand(String targetName) {
+        List<TextComponent> replies = new ArrayList<>();
+
+        // Check if there's an online player with this name, which includes a sender looking up themselves
         Player onlinePlayer = Bukkit.getPlayerExact(targetName);
         if (onlinePlayer != null) {
-            displayPlayerStats(sender, onlinePlayer);
-            return;
+            displayPlayerStats(replies, onlinePlayer);
+            return CompletableFuture.completedFuture(replies);
         }
 
         // Get all UUIDs that have used this username
@@ -88,103 +251,13 @@ public class SeenCommand implements CommandExecutor {
             // No player with this username has ever joined
             Map<String, String> params = new HashMap<>();
             params.put("player", targetName);
-            sender.sendMessage(plugin.getJoinDateMessages().get("error-unseen-player", params));
-            return;
+            replies.add(plugin.getJoinDateMessages().get("error-unseen-player", params));
+            return CompletableFuture.completedFuture(replies);
         }
 
         if (uuids.size() > 1) {
             // Multiple players have used this username - check if any currently has it
-            OfflinePlayer currentHolder = null;
-            Set<String> currentUsernames = new HashSet<>(); 
-
-            for (String uuid : uuids) {
-                OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(uuid));
-                String currentName = offlinePlayer.getName();
-
-                if (currentName != null) {
-                    // Check if this player currently has the searched username
-                    if (currentName.equalsIgnoreCase(targetName)) {
-                        currentHolder = offlinePlayer;
-                        break;
-                    }
-                    currentUsernames.add(offlinePlayer.getName());
-                } else {
-                    // Name is null, try to get it from MineTools API directly
-                    // We're already in an async task, so we can call this directly
-                    String apiUsername = plugin.getMineToolsAPIUtility()
-                            .getCurrentUsername(offlinePlayer.getUniqueId())
-                            .join(); // This blocks until the API call completes
-                            
-                    if (apiUsername != null) {
-                        // Check if this is the current holder of the name
-                        if (apiUsername.equalsIgnoreCase(targetName)) {
-                            currentHolder = offlinePlayer;
-                            break;
-                        }
-                        currentUsernames.add(apiUsername);
-                    } else {
-                        // API lookup failed, fall back to database
-                        String databaseName = plugin.getJoinManager()
-                                .getMostRecentUsernameForUUID(offlinePlayer.getUniqueId().toString());
-                        if (databaseName != null) {
-                            // Check if this is the current holder of the name
-                            if (databaseName.equalsIgnoreCase(targetName)) {
-                                currentHolder = offlinePlayer;
-                                break;
-                            }
-                            currentUsernames.add(databaseName);
-                        }
-                    }
-                }
-            }
-
-            // If we found a current holder of the username, use that player
-            if (currentHolder != null) {
-                // Check if the current holder has a null name
-                if (currentHolder.getName() == null) {
-                    // Use MineToolsAPI to get the current username
-                    String apiUsername = plugin.getMineToolsAPIUtility()
-                        .getCurrentUsername(currentHolder.getUniqueId())
-                        .join(); // This blocks until the API call completes
-
-                    // Use the target name if API lookup fails
-                    String nameToUse = apiUsername != null ? apiUsername : targetName;
-                    displayPlayerStatsWithCustomName(sender, currentHolder, nameToUse);
-                } else {
-                    displayPlayerStats(sender, currentHolder);
-                }
-            } else {
-                // No current holder, show the ambiguity message with all the usernames we found
-                if (currentUsernames.isEmpty()) {
-                    // If we couldn't find any current usernames, try one more fallback
-                    for (String uuid : uuids) {
-                        String databaseName = plugin.getJoinManager()
-                                .getMostRecentUsernameForUUID(uuid);
-                        if (databaseName != null) {
-                            currentUsernames.add(databaseName);
-                        }
-                    }
-                }
-                
-                // Now send the message with all usernames we found
-                if (!currentUsernames.isEmpty()) {
-                    // Send message on the main thread
-                    final List<String> finalUsernames = new ArrayList<>(new HashSet<>(currentUsernames));
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        Map<String, String> params = new HashMap<>();
-                        params.put("usernames", String.join(", ", finalUsernames));
-                        sender.sendMessage(plugin.getJoinDateMessages().get("error-unseen-player-multiple", params));
-                    });
-                } else {
-                    // We couldn't find any usernames at all - this is an edge case
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        Map<String, String> params = new HashMap<>();
-                        params.put("usernames", "Unknown players");
-                        sender.sendMessage(plugin.getJoinDateMessages().get("error-unseen-player-multiple", params));
-                    });
-                }
-            }
-            return;
+            return resolveAmbiguousUsername(replies, targetName, uuids);
         }
 
         // Single UUID found - get the offline player
@@ -197,116 +270,458 @@ public class SeenCommand implements CommandExecutor {
                 .getCurrentUsername(offlinePlayer.getUniqueId());
 
             // Handle the result when it's ready
-            futureUsername.thenAccept(apiUsername -> {
+            return futureUsername.thenApply(apiUsername -> {
                 if (apiUsername != null) {
                     if (!apiUsername.equalsIgnoreCase(targetName)) {
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            sender.sendMessage(plugin.getJoinDateMessages().get("warning-old-username",
-                                    new HashMap<>() {{
-                                        put("player", targetName);
-                                        put("currentusername", apiUsername);
-                                    }}));
-                        });
+                        replies.add(plugin.getJoinDateMessages().get("warning-old-username",
+                                new HashMap<>() {{
+                                    put("player", targetName);
+                                    put("currentusername", apiUsername);
+                                }}));
                     }
-                    displayPlayerStatsWithCustomName(sender, offlinePlayer, apiUsername);
+                    displayPlayerStatsWithCustomName(replies, offlinePlayer, apiUsername);
                 } else {
                     // API lookup failed, fall back to database lookup
                     String databaseName = plugin.getJoinManager().getMostRecentUsernameForUUID(offlinePlayer.getUniqueId().toString());
                     if (!databaseName.equalsIgnoreCase(targetName)) {
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            sender.sendMessage(plugin.getJoinDateMessages().get("warning-old-username",
-                                    new HashMap<>() {{
-                                        put("player", targetName);
-                                        put("currentusername", databaseName);
-                                    }}));
-                        });
+                        replies.add(plugin.getJoinDateMessages().get("warning-old-username",
+                                new HashMap<>() {{
+                                    put("player", targetName);
+                                    put("currentusername", databaseName);
+                                }}));
                     }
-                    displayPlayerStatsWithCustomName(sender, offlinePlayer, databaseName);
+                    displayPlayerStatsWithCustomName(replies, offlinePlayer, databaseName);
                 }
+                return replies;
             });
-            return;
         }
         if (!offlinePlayer.getName().equalsIgnoreCase(targetName)) {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                sender.sendMessage(plugin.getJoinDateMessages().get("warning-old-username",
-                        new HashMap<>() {{
-                            put("player", targetName);
-                            put("currentusername", offlinePlayer.getName());
-                        }}));
+            replies.add(plugin.getJoinDateMessages().get("warning-old-username",
+                    new HashMap<>() {{
+                        put("player", targetName);
+                        put("currentusername", offlinePlayer.getName());
+                    }}));
+        }
+        displayPlayerStats(replies, offlinePlayer);
+        return CompletableFuture.completedFuture(replies);
+    }
+
+    /**
+     * Resolves which of several accounts that have used a username currently holds it.
+     * Every account is resolved at once: names the server knows are checked first, then MineTools
+     * lookups run in parallel while the database fallbacks are fetched in a single query.
+     * The first exact match ends the search, and the whole resolution is bounded by a deadline.
+     * No thread waits for the lookups: the replies are built on an I/O thread once they are done or the deadline passes,
+     * so a lookup never holds a thread that the MineTools lookups queued behind it need.
+     *
+     * @return The replies, completing exceptionally with a RejectedExecutionException if the I/O queue is full
+     */
+    private CompletableFuture<List<TextComponent>> resolveAmbiguousUsername(List<TextComponent> replies, String targetName, List<String> uuids) {
+        long startedAt = System.nanoTime();
+        Map<UUID, String> currentUsernames = new LinkedHashMap<>();
+        Map<UUID, OfflinePlayer> unresolved = new LinkedHashMap<>();
+
+        for (String uuid : uuids) {
+            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(uuid));
+            String currentName = offlinePlayer.getName();
+
+            if (currentName == null) {
+                unresolved.put(offlinePlayer.getUniqueId(), offlinePlayer);
+            } else if (currentName.equalsIgnoreCase(targetName)) {
+                // This player currently has the searched username
+                displayPlayerStats(replies, offlinePlayer);
+                return CompletableFuture.completedFuture(replies);
+            } else {
+                currentUsernames.put(offlinePlayer.getUniqueId(), currentName);
+            }
+        }
+
+        // Look up every unknown name at once; the first exact match completes the holder
+        CompletableFuture<UUID> currentHolder = new CompletableFuture<>();
+        Map<UUID, CompletableFuture<String>> apiLookups = new LinkedHashMap<>();
+        for (UUID uuid : unresolved.keySet()) {
+            CompletableFuture<String> lookup = plugin.getMineToolsAPIUtility().getCurrentUsername(uuid);
+            lookup.thenAccept(apiUsername -> {
+                if (apiUsername != null && apiUsername.equalsIgnoreCase(targetName)) currentHolder.complete(uuid);
             });
+            apiLookups.put(uuid, lookup);
         }
-        displayPlayerStats(sender, offlinePlayer);
+
+        // Fetch the database fallbacks for all of them in one query while the lookups run
+        Map<String, String> databaseNames = Collections.emptyMap();
+        if (!unresolved.isEmpty()) {
+            List<String> unresolvedUuids = new ArrayList<>();
+            unresolved.keySet().forEach(uuid -> unresolvedUuids.add(uuid.toString()));
+            databaseNames = plugin.getJoinManager().getMostRecentUsernamesForUUIDs(unresolvedUuids);
+        }
+        if (apiLookups.isEmpty()) {
+            return CompletableFuture.completedFuture(finishResolving(replies, targetName, currentHolder, apiLookups,
+                    unresolved, databaseNames, currentUsernames));
+        }
+
+        // Continue after the first exact match or every lookup, whichever comes first, up to the deadline
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(plugin.getJoinDateConfig().getSeenResolveTimeoutMillis())
+                - (System.nanoTime() - startedAt);
+        CompletableFuture<Void> allLookups = CompletableFuture.allOf(apiLookups.values().toArray(new CompletableFuture[0]));
+        Map<String, String> fallbacks = databaseNames;
+        return CompletableFuture.anyOf(currentHolder, allLookups)
+                .exceptionally(e -> null)
+                .completeOnTimeout(null, Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS)
+                .thenApplyAsync(done -> finishResolving(replies, targetName, currentHolder, apiLookups,
+                        unresolved, fallbacks, currentUsernames), plugin.getIoExecutor());
+    }
+
+    /**
+     * Replies with the account that holds the name, judged by the lookups that finished in time and the
+     * database names for the rest, or with every account's current name if none does.
+     */
+    private List<TextComponent> finishResolving(List<TextComponent> replies, String targetName, CompletableFuture<UUID> currentHolder,
+                                                Map<UUID, CompletableFuture<String>> apiLookups, Map<UUID, OfflinePlayer> unresolved,
+                                                Map<String, String> databaseNames, Map<UUID, String> currentUsernames) {
+        UUID holder = currentHolder.getNow(null);
+        if (holder != null) {
+            displayPlayerStatsWithCustomName(replies, unresolved.get(holder), apiLookups.get(holder).getNow(targetName));
+            return replies;
+        }
+
+        // Fall back to the database name for accounts the API couldn't resolve in time
+        for (Map.Entry<UUID, CompletableFuture<String>> lookup : apiLookups.entrySet()) {
+            UUID uuid = lookup.getKey();
+            String currentName = lookup.getValue().isCompletedExceptionally() ? null : lookup.getValue().getNow(null);
+            if (currentName == null) currentName = databaseNames.get(uuid.toString());
+            if (currentName == null) continue;
+
+            if (currentName.equalsIgnoreCase(targetName)) {
+                displayPlayerStatsWithCustomName(replies, unresolved.get(uuid), currentName);
+                return replies;
+            }
+            currentUsernames.put(uuid, currentName);
+        }
+
+        // No current holder, show the ambiguity message with all the usernames we found
+        final String usernames = currentUsernames.isEmpty()
+                ? "Unknown players"
+                : String.join(", ", new LinkedHashSet<>(currentUsernames.values()));
+        Map<String, String> params = new HashMap<>();
+        params.put("usernames", usernames);
+        replies.add(plugin.getJoinDateMessages().get("error-unseen-player-multiple", params));
+        return replies;
     }
 
     /**
      * Display the join statistics for a player
      */
-    private void displayPlayerStats(CommandSender sender, OfflinePlayer offlinePlayer) {
-        // Run the database query asynchronously (we're already in an async task)
-        // But send the message on the main thread
-        displayPlayerStatsAsync(sender, offlinePlayer);
+    private void displayPlayerStats(List<TextComponent> replies, OfflinePlayer offlinePlayer) {
+        displayPlayerStatsWithCustomName(replies, offlinePlayer, offlinePlayer.getName());
     }
 
-    private void displayPlayerStatsAsync(CommandSender sender, OfflinePlayer offlinePlayer) {
-        // Get player data from database
-        Map<String, Object> playerData = plugin.getJoinManager().getPlayerFullData(offlinePlayer);
+    /**
+     * Display the join statistics for a player using a custom name
+     * This is used when the OfflinePlayer has a null name but we found the name elsewhere
+     */
+    private void displayPlayerStatsWithCustomName(List<TextComponent> replies, OfflinePlayer offlinePlayer, String customName) {
+        // Get player data (we're already in an async task)
+        PlayerJoinRecord stored = plugin.getJoinManager().getPlayerFullData(offlinePlayer.getUniqueId());
 
         // Check if player exists in database
-        if (!(boolean) playerData.get("exists")) {
+        if (!stored.exists()) {
             Map<String, String> params = new HashMap<>();
-            params.put("player", offlinePlayer.getName() != null ? offlinePlayer.getName() : "Unknown");
-            // Send message on the main thread
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                sender.sendMessage(plugin.getJoinDateMessages().get("error-unseen-player", params));
-            });
+            params.put("player", customName != null ? customName : "Unknown");
+            replies.add(plugin.getJoinDateMessages().get("error-unseen-player", params));
             return;
         }
         
-        // Format and send the message
-        TextComponent message = MessageFormatterUtility.formatJoinDateMessage(
-                plugin,
-                offlinePlayer,
-                (long) playerData.get("joinDate"),
-                (long) playerData.get("lastLogin"),
-                (List<String>) playerData.get("previousUsernames"));
-        
-        // Send message on the main thread
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            sender.sendMessage(message);
-        });
+        // Include playtime measured since the last flush, so the total is current
+        PlayerJoinRecord record = plugin.getPlaytimeManager().withUnrecorded(offlinePlayer.getUniqueId(), stored);
+
+        // Format the message; it is sent on the main thread once the lookup completes
+        replies.add(MessageFormatterUtility.formatJoinDateMessage(
+                plugin.getJoinDateMessages(), offlinePlayer, record, customName));
+    }
+
+    private static int parsePage(String arg) {
+        try {
+            return Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
-    
+
     /**
-     * Display the join statistics for a player using a custom name
-     * This is used when the OfflinePlayer has a null name but we found the name elsewhere
+     * Sends a page of a leaderboard. Pages are read from the in-memory ranking, so this never waits on the database.
      */
-    private void displayPlayerStatsWithCustomName(CommandSender sender, OfflinePlayer offlinePlayer, String customName) {
-        // Get player data from database
-        Map<String, Object> playerData = plugin.getJoinManager().getPlayerFullData(offlinePlayer);
+    private void displayLeaderboard(CommandSender sender, LeaderboardType type, int page) {
+        LeaderboardManager leaderboards = plugin.getLeaderboardManager();
+        if (!leaderboards.isLoaded()) {
+            sender.sendMessage(plugin.getJoinDateMessages().get("error-warming-up"));
+            return;
+        }
 
-        // Check if player exists in database
-        if (!(boolean) playerData.get("exists")) {
+        int pages = Math.max(1, (leaderboards.getPlayerCount() + TOP_PAGE_SIZE - 1) / TOP_PAGE_SIZE);
+        Map<String, String> header = new HashMap<>();
+        header.put("board", type.name().toLowerCase(Locale.ROOT));
+        header.put("page", String.valueOf(Math.min(page, pages)));
+        header.put("pages", String.valueOf(pages));
+        sender.sendMessage(plugin.getJoinDateMessages().get("top-header", header));
+
+        for (RankedPlayers.Entry entry : leaderboards.getPage(type, Math.min(page, pages), TOP_PAGE_SIZE)) {
+            String name = entry.getName() != null ? entry.getName() : Bukkit.getOfflinePlayer(entry.getUuid()).getName();
             Map<String, String> params = new HashMap<>();
-            params.put("player", customName != null ? customName : "Unknown");
-            // Send message on the main thread
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                sender.sendMessage(plugin.getJoinDateMessages().get("error-unseen-player", params));
-            });
+            params.put("rank", String.valueOf(entry.getRank()));
+            params.put("player", name != null ? name : entry.getUuid().toString());
+            params.put("value", type == LeaderboardType.PLAYTIME
+                    ? TimeFormatterUtility.formatDuration(entry.getPlaytime())
+                    : TimeFormatterUtility.formatDate(entry.getJoinDate()));
+            sender.sendMessage(plugin.getJoinDateMessages().get("top-entry", params));
+        }
+    }
+
+    /**
+     * Lists a page of the accounts that have used a name containing a fragment. Matches come from the in-memory
+     * name index; only the accounts on the page are read, for their current and past names.
+     *
+     * @return The messages to send, in order
+     */
+    private List<TextComponent> searchReplies(String fragment, int page) {
+        List<TextComponent> replies = new ArrayList<>();
+        List<NameMatch> matches = plugin.getNameSearchManager().search(fragment, SEARCH_MAX_RESULTS);
+        Map<String, String> header = new HashMap<>();
+        header.put("fragment", fragment);
+        if (matches.isEmpty()) {
+            replies.add(plugin.getJoinDateMessages().get("search-none", header));
+            return replies;
+        }
+
+        int pages = (matches.size() + SEARCH_PAGE_SIZE - 1) / SEARCH_PAGE_SIZE;
+        int shown = Math.min(page, pages);
+        List<NameMatch> pageMatches = matches.subList((shown - 1) * SEARCH_PAGE_SIZE, Math.min(matches.size(), shown * SEARCH_PAGE_SIZE));
+        List<UUID> uuids = new ArrayList<>(pageMatches.size());
+        pageMatches.forEach(match -> uuids.add(match.getUuid()));
+        Map<UUID, PlayerJoinRecord> records = plugin.getJoinManager().getPlayerFullData(uuids);
+
+        header.put("count", matches.size() == SEARCH_MAX_RESULTS ? SEARCH_MAX_RESULTS + "+" : String.valueOf(matches.size()));
+        header.put("page", String.valueOf(shown));
+        header.put("pages", String.valueOf(pages));
+        replies.add(plugin.getJoinDateMessages().get("search-header", header));
+
+        int rank = (shown - 1) * SEARCH_PAGE_SIZE;
+        for (NameMatch match : pageMatches) {
+            UsernameHistory usernames = records.getOrDefault(match.getUuid(), PlayerJoinRecord.ABSENT).getUsernames();
+            String current = usernames.getLatest() != null ? usernames.getLatest() : match.getName();
+            String past = usernames.joinExcluding(current, ", ");
+            Map<String, String> params = new HashMap<>();
+            params.put("rank", String.valueOf(++rank));
+            params.put("player", current);
+            params.put("matched", match.getName());
+            params.put("usernames", past.isEmpty() ? "-" : past);
+            replies.add(plugin.getJoinDateMessages().get("search-entry", params));
+        }
+        return replies;
+    }
+
+    /**
+     * Imports world playerdata, usercache.json and optionally Essentials userdata in the background.
+     */
+    private void startImport(CommandSender sender, boolean essentials) {
+        File playerData = new File(Bukkit.getWorlds().get(0).getWorldFolder(), "playerdata");
+        File userData = essentials ? new File(plugin.getDataFolder().getParentFile(), "Essentials/userdata") : null;
+        // Scan on half the cores, leaving an I/O thread free for joins and /seen
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors() / 2, plugin.getJoinDateConfig().getExecutorThreads() - 1);
+        LegacyImporter importer = new LegacyImporter(plugin.getLogger(), plugin.getJoinManager(), plugin.getIoExecutor(), parallelism,
+                playerData, userData, new File(Bukkit.getWorldContainer(), "usercache.json"));
+
+        Map<String, String> params = new HashMap<>();
+        params.put("sources", essentials ? "playerdata, Essentials userdata and usercache.json" : "playerdata and usercache.json");
+
+        runJob(sender, "import-started", params, () -> {
+            Map<String, String> progress = new HashMap<>();
+            if (importer.isWriting()) {
+                progress.put("phase", "writing");
+                progress.put("done", String.valueOf(importer.getPlayersWritten()));
+                progress.put("total", String.valueOf(importer.getPlayersFound()));
+            } else {
+                progress.put("phase", "scanning");
+                progress.put("done", String.valueOf(importer.getFilesScanned()));
+                progress.put("total", String.valueOf(importer.getFilesTotal()));
+            }
+            progress.put("elapsed", String.valueOf(importer.getElapsedMillis() / 1000));
+            return plugin.getJoinDateMessages().get("import-progress", progress);
+        }, () -> {
+            long players = importer.run();
+            plugin.getJoinManager().reloadViews();
+            plugin.getSyncManager().publishInvalidateAll();
+            Map<String, String> result = rateParams(players, importer.getElapsedMillis());
+            result.put("files", String.valueOf(importer.getFilesScanned()));
+            return plugin.getJoinDateMessages().get("import-complete", result);
+        });
+    }
+
+    /**
+     * Streams every stored player into a file in the plugin's exports folder in the background.
+     */
+    private void startExport(CommandSender sender, ExportFormat format) {
+        JoinExporter exporter = new JoinExporter(plugin.getJoinManager(), new File(plugin.getDataFolder(), "exports"), format);
+
+        Map<String, String> params = new HashMap<>();
+        params.put("file", exporter.getFile().getName());
+
+        runJob(sender, "export-started", params, () -> {
+            Map<String, String> progress = new HashMap<>();
+            progress.put("done", String.valueOf(exporter.getExported()));
+            progress.put("total", String.valueOf(exporter.getTotal()));
+            progress.put("elapsed", String.valueOf(exporter.getElapsedMillis() / 1000));
+            return plugin.getJoinDateMessages().get("export-progress", progress);
+        }, () -> {
+            long players = exporter.run();
+            Map<String, String> result = rateParams(players, exporter.getElapsedMillis());
+            result.put("file", exporter.getFile().getName());
+            return plugin.getJoinDateMessages().get("export-complete", result);
+        });
+    }
+
+    /**
+     * Streams an export from the plugin's exports folder back into the database in the background.
+     */
+    private void startRestore(CommandSender sender, String fileName) {
+        File folder = new File(plugin.getDataFolder(), "exports");
+        File file = new File(folder, fileName);
+        ExportFormat format = ExportFormat.fromFileName(fileName);
+        Map<String, String> params = new HashMap<>();
+        params.put("file", fileName);
+
+        // Only files directly inside the exports folder can be restored
+        if (format == null || !file.isFile() || !folder.getAbsoluteFile().equals(file.getAbsoluteFile().getParentFile())) {
+            sender.sendMessage(plugin.getJoinDateMessages().get("error-restore-file", params));
             return;
         }
-        
-        // Create custom parameters with the custom name
-        Map<String, String> customParams = new HashMap<>();
-        customParams.put("player", customName);
-        
-        // Format and send the message with custom parameters
-        TextComponent message = MessageFormatterUtility.formatJoinDateMessage(
-                plugin, offlinePlayer, (long) playerData.get("joinDate"), (long) playerData.get("lastLogin"),
-                (List<String>) playerData.get("previousUsernames"), customParams);
-        
-        // Send message on the main thread
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            sender.sendMessage(message);
+        JoinRestorer restorer = new JoinRestorer(plugin.getLogger(), plugin.getJoinManager(), file, format);
+
+        runJob(sender, "restore-started", params, () -> {
+            Map<String, String> progress = new HashMap<>();
+            progress.put("done", String.valueOf(restorer.getRestored()));
+            progress.put("percent", String.valueOf(restorer.getPercentRead()));
+            progress.put("elapsed", String.valueOf(restorer.getElapsedMillis() / 1000));
+            return plugin.getJoinDateMessages().get("restore-progress", progress);
+        }, () -> {
+            long players = restorer.run();
+            plugin.getJoinManager().reloadViews();
+            plugin.getSyncManager().publishInvalidateAll();
+            Map<String, String> result = rateParams(players, restorer.getElapsedMillis());
+            result.put("file", fileName);
+            return plugin.getJoinDateMessages().get("restore-complete", result);
+        });
+    }
+
+    private static Map<String, String> rateParams(long players, long elapsedMillis) {
+        double seconds = Math.max(0.001, elapsedMillis / 1000.0);
+        Map<String, String> params = new HashMap<>();
+        params.put("players", String.valueOf(players));
+        params.put("seconds", String.format(Locale.ROOT, "%.1f", seconds));
+        params.put("rate", String.format(Locale.ROOT, "%.0f", players / seconds));
+        return params;
+    }
+
+    /**
+     * A bulk job that blocks until done and describes its result.
+     */
+    private interface BulkJob {
+        TextComponent run() throws IOException;
+    }
+
+    /**
+     * Runs a bulk job such as an import or export on an async task, sending the sender its progress
+     * every few seconds and its result at the end. Only one bulk job runs at a time.
+     */
+    private void runJob(CommandSender sender, String startedKey, Map<String, String> startedParams,
+                        Supplier<TextComponent> progress, BulkJob job) {
+        if (!plugin.getDatabaseManager().isReady()) {
+            sender.sendMessage(plugin.getJoinDateMessages().get("error-warming-up"));
+            return;
+        }
+        if (!jobRunning.compareAndSet(false, true)) {
+            sender.sendMessage(plugin.getJoinDateMessages().get("error-job-running"));
+            return;
+        }
+        sender.sendMessage(plugin.getJoinDateMessages().get(startedKey, startedParams));
+
+        BukkitTask progressTask = Bukkit.getScheduler().runTaskTimer(plugin,
+                () -> sender.sendMessage(progress.get()), JOB_PROGRESS_TICKS, JOB_PROGRESS_TICKS);
+
+        boolean started = plugin.getIoExecutor().tryExecute(() -> {
+            TextComponent result;
+            try {
+                result = job.run();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Bulk job failed: " + e.getMessage());
+                result = jobFailed(e);
+            } catch (RuntimeException e) {
+                // Still has to reach the sender and stop the progress messages
+                plugin.getLogger().log(Level.SEVERE, "Bulk job failed", e);
+                result = jobFailed(e);
+            } finally {
+                jobRunning.set(false);
+            }
+            TextComponent message = result;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                progressTask.cancel();
+                sender.sendMessage(message);
+            });
         });
+        if (!started) {
+            jobRunning.set(false);
+            progressTask.cancel();
+            sender.sendMessage(plugin.getJoinDateMessages().get("error-seen-busy"));
+        }
+    }
+
+    private TextComponent jobFailed(Exception e) {
+        Map<String, String> params = new HashMap<>();
+        params.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        return plugin.getJoinDateMessages().get("error-job-failed", params);
+    }
+
+    /**
+     * Sends a summary of the recorded metrics: latency percentiles, failure counts and the cache hit rate.
+     */
+    private void displayMetrics(CommandSender sender) {
+        sender.sendMessage(plugin.getJoinDateMessages().get("metrics-header"));
+
+        for (LatencyHistogram histogram : plugin.getMetrics().getHistograms()) {
+            Map<String, String> params = new HashMap<>();
+            params.put("name", histogram.getDisplayName());
+            params.put("count", String.valueOf(histogram.getCount()));
+            params.put("mean", formatMillis(histogram.getMeanMillis()));
+            params.put("p50", formatMillis(histogram.getPercentileMillis(0.50)));
+            params.put("p95", formatMillis(histogram.getPercentileMillis(0.95)));
+            params.put("p99", formatMillis(histogram.getPercentileMillis(0.99)));
+            sender.sendMessage(plugin.getJoinDateMessages().get("metrics-latency", params));
+        }
+
+        for (Counter counter : plugin.getMetrics().getCounters()) {
+            Map<String, String> params = new HashMap<>();
+            params.put("name", counter.getName());
+            params.put("value", String.valueOf(counter.get()));
+            sender.sendMessage(plugin.getJoinDateMessages().get("metrics-counter", params));
+        }
+
+        PlayerCacheManager cache = plugin.getPlayerCacheManager();
+        long lookups = cache.getHitCount() + cache.getMissCount();
+        Map<String, String> params = new HashMap<>();
+        params.put("hitrate", lookups == 0 ? "-" : String.format(Locale.ROOT, "%.1f%%", cache.getHitCount() * 100.0 / lookups));
+        params.put("size", String.valueOf(cache.getSize()));
+        params.put("evictions", String.valueOf(cache.getEvictionCount()));
+        sender.sendMessage(plugin.getJoinDateMessages().get("metrics-cache", params));
+
+        IoExecutor executor = plugin.getIoExecutor();
+        Map<String, String> executorParams = new HashMap<>();
+        executorParams.put("mode", executor.isVirtual() ? "virtual" : "platform");
+        executorParams.put("running", String.valueOf(executor.getRunningCount()));
+        executorParams.put("queued", String.valueOf(executor.getQueuedCount()));
+        sender.sendMessage(plugin.getJoinDateMessages().get("metrics-executor", executorParams));
+    }
+
+    private static String formatMillis(double millis) {
+        if (Double.isInfinite(millis)) return ">10s";
+        return String.format(Locale.ROOT, "%.2fms", millis);
     }
 }
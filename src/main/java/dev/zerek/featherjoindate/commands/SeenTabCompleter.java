@@ -0,0 +1,75 @@
+package dev.zerek.featherjoindate.commands;
+
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.backup.ExportFormat;
+import dev.zerek.featherjoindate.leaderboard.LeaderboardType;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Suggests subcommands the sender may use and stored usernames for /seen. Names come from the in-memory
+ * username index, so completing never waits on the database. Paper asks through AsyncTabCompleteListener
+ * off the main thread; this is also registered as the command's completer for anything that asks directly.
+ */
+public class SeenTabCompleter implements TabCompleter {
+
+    // The client only shows a screenful, and every suggestion is sent to it
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final FeatherJoinDate plugin;
+
+    public SeenTabCompleter(FeatherJoinDate plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command,
+                                      @NotNull String alias, @NotNull String[] args) {
+        return complete(sender, args);
+    }
+
+    /**
+     * @param sender The sender typing the command
+     * @param args   The arguments typed so far, the last one possibly empty
+     * @return The suggestions for the last argument
+     */
+    public List<String> complete(CommandSender sender, String[] args) {
+        List<String> suggestions = new ArrayList<>();
+        if (args.length == 0 || !sender.hasPermission("feather.joindate.seen")) return suggestions;
+        String typed = args[args.length - 1];
+
+        if (args.length == 1) {
+            addMatching(suggestions, typed, "reload", sender.hasPermission("feather.joindate.reload"));
+            addMatching(suggestions, typed, "metrics", sender.hasPermission("feather.joindate.metrics"));
+            addMatching(suggestions, typed, "import", sender.hasPermission("feather.joindate.import"));
+            addMatching(suggestions, typed, "export", sender.hasPermission("feather.joindate.export"));
+            addMatching(suggestions, typed, "restore", sender.hasPermission("feather.joindate.export"));
+            addMatching(suggestions, typed, "top", sender.hasPermission("feather.joindate.top"));
+            addMatching(suggestions, typed, "search", sender.hasPermission("feather.joindate.search"));
+            suggestions.addAll(plugin.getUsernameIndexManager().complete(typed, MAX_SUGGESTIONS - suggestions.size()));
+            return suggestions;
+        }
+
+        if (args.length == 2) {
+            String subcommand = args[0].toLowerCase(Locale.ROOT);
+            if (subcommand.equals("top") && sender.hasPermission("feather.joindate.top")) {
+                for (LeaderboardType type : LeaderboardType.values()) addMatching(suggestions, typed, type.name().toLowerCase(Locale.ROOT), true);
+            } else if (subcommand.equals("export") && sender.hasPermission("feather.joindate.export")) {
+                for (ExportFormat format : ExportFormat.values()) addMatching(suggestions, typed, format.name().toLowerCase(Locale.ROOT), true);
+            } else if (subcommand.equals("import") && sender.hasPermission("feather.joindate.import")) {
+                addMatching(suggestions, typed, "essentials", true);
+            }
+        }
+        return suggestions;
+    }
+
+    private static void addMatching(List<String> suggestions, String typed, String option, boolean allowed) {
+        if (allowed && option.regionMatches(true, 0, typed, 0, typed.length())) suggestions.add(option);
+    }
+}
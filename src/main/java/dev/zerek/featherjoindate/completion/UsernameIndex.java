@@ -0,0 +1,274 @@
+package dev.zerek.featherjoindate.completion;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every stored username, sorted ignoring case for prefix completion. Names are packed into one byte array as a
+ * length byte followed by their UTF-8 bytes, and an int array holds where each name starts in sorted order,
+ * so a million Minecraft names cost about 15 bytes each with no per-name objects. A completion is a binary
+ * search for the prefix and a scan over the names after it.
+ *
+ * Immutable, so completions can read it from any thread; new names are added by merging into a new index.
+ */
+public final class UsernameIndex {
+
+    public static final UsernameIndex EMPTY = new UsernameIndex(new byte[0], new int[0]);
+
+    // Names must fit their length byte; Minecraft names are at most 16
+    private static final int MAX_NAME_BYTES = 255;
+    // Array headers and fields, counted so small indexes report honestly
+    private static final int OVERHEAD_BYTES = 64;
+
+    private final byte[] pool;
+    // Start of each name in the pool, sorted by name ignoring case
+    private final int[] offsets;
+
+    private UsernameIndex(byte[] pool, int[] offsets) {
+        this.pool = pool;
+        this.offsets = offsets;
+    }
+
+    // === Queries ===
+
+    /**
+     * @return The number of distinct names, ignoring case
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @return The bytes held by the index
+     */
+    public long memoryBytes() {
+        return OVERHEAD_BYTES + pool.length + 4L * offsets.length;
+    }
+
+    /**
+     * @param name The name to look for
+     * @return true if the name, ignoring case, is in the index
+     */
+    public boolean contains(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int position = lowerBound(bytes);
+        return position < offsets.length
+                && compare(pool, offsets[position] + 1, pool[offsets[position]] & 0xFF, bytes, 0, bytes.length) == 0;
+    }
+
+    /**
+     * Finds names starting with a prefix, ignoring case.
+     *
+     * @param prefix The start of the name being typed; empty matches every name
+     * @param limit  The most names to return
+     * @return The matching names in order, ignoring case
+     */
+    public List<String> complete(String prefix, int limit) {
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        List<String> names = new ArrayList<>(Math.min(limit, 16));
+        for (int position = lowerBound(bytes); position < offsets.length && names.size() < limit; position++) {
+            int offset = offsets[position];
+            int length = pool[offset] & 0xFF;
+            if (length < bytes.length || compare(pool, offset + 1, bytes.length, bytes, 0, bytes.length) != 0) break;
+            names.add(new String(pool, offset + 1, length, StandardCharsets.UTF_8));
+        }
+        return names;
+    }
+
+    /**
+     * @return The first position whose name does not sort before the given bytes
+     */
+    private int lowerBound(byte[] bytes) {
+        int low = 0;
+        int high = offsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int offset = offsets[mid];
+            if (compare(pool, offset + 1, pool[offset] & 0xFF, bytes, 0, bytes.length) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // === Merging ===
+
+    /**
+     * Merges two indexes into a new one in a single pass, keeping one of any names the two share.
+     *
+     * @param other    The names to add
+     * @param maxNames The most names the result may hold; names past it are left out
+     * @return The merged index
+     */
+    public UsernameIndex merge(UsernameIndex other, int maxNames) {
+        if (other.size() == 0) return this;
+        Builder builder = new Builder(Math.min(maxNames, size() + other.size()), pool.length + other.pool.length);
+        int left = 0;
+        int right = 0;
+        while ((left < size() || right < other.size()) && builder.size() < maxNames) {
+            int result;
+            if (left >= size()) result = 1;
+            else if (right >= other.size()) result = -1;
+            else result = compare(pool, offsets[left] + 1, pool[offsets[left]] & 0xFF,
+                        other.pool, other.offsets[right] + 1, other.pool[other.offsets[right]] & 0xFF);
+
+            if (result <= 0) builder.append(pool, offsets[left++]);
+            else builder.append(other.pool, other.offsets[right++]);
+            if (result == 0) right++;
+        }
+        return builder.packed();
+    }
+
+    // === Comparison ===
+
+    /**
+     * Compares two names byte by byte with ASCII letters folded to lower case, which for the letters, digits and
+     * underscores of Minecraft names is the same order as comparing them ignoring case.
+     */
+    private static int compare(byte[] a, int aStart, int aLength, byte[] b, int bStart, int bLength) {
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int result = fold(a[aStart + i]) - fold(b[bStart + i]);
+            if (result != 0) return result;
+        }
+        return aLength - bLength;
+    }
+
+    private static int fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    /**
+     * Collects names in any order, then sorts them into an index. Sorting once is O(n log n) and boxes nothing,
+     * where keeping a sorted structure up to date while loading would be far slower.
+     */
+    public static final class Builder {
+
+        private final int maxNames;
+        private byte[] pool;
+        private int poolSize;
+        private int[] offsets;
+        private int size;
+
+        /**
+         * @param maxNames The most names the index may hold; names past it are refused
+         */
+        public Builder(int maxNames) {
+            this(maxNames, 1024 * 16);
+        }
+
+        private Builder(int maxNames, int poolCapacity) {
+            this.maxNames = maxNames;
+            this.pool = new byte[Math.max(16, poolCapacity)];
+            this.offsets = new int[Math.max(16, Math.min(maxNames, poolCapacity / 8))];
+        }
+
+        /**
+         * Adds a name. Duplicates are dropped when the index is built.
+         *
+         * @param name The name to add
+         * @return false if the name was refused for being empty or too long, or because the index is full
+         */
+        public boolean add(String name) {
+            if (size >= maxNames) return false;
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0 || bytes.length > MAX_NAME_BYTES) return false;
+            ensureCapacity(bytes.length + 1);
+            offsets[size++] = poolSize;
+            pool[poolSize++] = (byte) bytes.length;
+            System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+            poolSize += bytes.length;
+            return true;
+        }
+
+        /**
+         * @return The number of names added, counting duplicates
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return true once no more names will be accepted
+         */
+        public boolean isFull() {
+            return size >= maxNames;
+        }
+
+        private void append(byte[] source, int offset) {
+            int length = (source[offset] & 0xFF) + 1;
+            ensureCapacity(length);
+            offsets[size++] = poolSize;
+            System.arraycopy(source, offset, pool, poolSize, length);
+            poolSize += length;
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (poolSize + bytes > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(poolSize + bytes, pool.length + (pool.length >> 1)));
+            }
+            if (size == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+        }
+
+        /**
+         * Sorts the names, drops duplicates and packs the survivors in sorted order, so neighbouring names are
+         * adjacent in memory and the arrays hold nothing unused.
+         *
+         * @return The index
+         */
+        public UsernameIndex build() {
+            sort();
+            int kept = 0;
+            int keptBytes = 0;
+            for (int i = 0; i < size; i++) {
+                if (kept > 0 && compareAt(offsets[kept - 1], offsets[i]) == 0) continue;
+                offsets[kept++] = offsets[i];
+                keptBytes += (pool[offsets[i]] & 0xFF) + 1;
+            }
+
+            byte[] packedPool = new byte[keptBytes];
+            int[] packedOffsets = new int[kept];
+            int position = 0;
+            for (int i = 0; i < kept; i++) {
+                int length = (pool[offsets[i]] & 0xFF) + 1;
+                System.arraycopy(pool, offsets[i], packedPool, position, length);
+                packedOffsets[i] = position;
+                position += length;
+            }
+            return new UsernameIndex(packedPool, packedOffsets);
+        }
+
+        // For merges, whose names are already sorted and distinct
+        private UsernameIndex packed() {
+            return new UsernameIndex(Arrays.copyOf(pool, poolSize), Arrays.copyOf(offsets, size));
+        }
+
+        private int compareAt(int a, int b) {
+            return compare(pool, a + 1, pool[a] & 0xFF, pool, b + 1, pool[b] & 0xFF);
+        }
+
+        /**
+         * Sorts the offsets by merge sort, which needs no boxing.
+         */
+        private void sort() {
+            int[] buffer = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size - width; low += width * 2) {
+                    merge(buffer, low, low + width, Math.min(low + width * 2, size));
+                }
+            }
+        }
+
+        private void merge(int[] buffer, int low, int mid, int high) {
+            if (compareAt(offsets[mid - 1], offsets[mid]) <= 0) return;
+            System.arraycopy(offsets, low, buffer, low, high - low);
+            int left = low;
+            int right = mid;
+            for (int i = low; i < high; i++) {
+                if (left < mid && (right >= high || compareAt(buffer[left], buffer[right]) <= 0)) offsets[i] = buffer[left++];
+                else offsets[i] = buffer[right++];
+            }
+        }
+    }
+}
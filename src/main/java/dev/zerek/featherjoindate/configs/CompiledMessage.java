@@ -0,0 +1,125 @@
+package dev.zerek.featherjoindate.configs;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.minimessage.Context;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.ArgumentQueue;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message template parsed once into a component tree.
+ * Placeholder tags become marked slots in the tree's text, which are filled with plain text
+ * on each use without parsing the MiniMessage markup again.
+ */
+final class CompiledMessage {
+
+    // Private use characters that can't appear in messages.yml text or placeholder values
+    private static final char SLOT_START = '\uE000';
+    private static final char SLOT_END = '\uE001';
+
+    private final Component template;
+    private final boolean hasSlots;
+
+    private CompiledMessage(Component template, boolean hasSlots) {
+        this.template = template;
+        this.hasSlots = hasSlots;
+    }
+
+    /**
+     * Parses a raw MiniMessage template. Any tag the standard tags don't handle is treated as a placeholder slot.
+     *
+     * @param miniMessage  The MiniMessage instance holding the standard tags
+     * @param standardTags The standard tags the instance resolves
+     * @param raw          The raw template from messages.yml
+     * @return The compiled template
+     */
+    static CompiledMessage compile(MiniMessage miniMessage, TagResolver standardTags, String raw) {
+        TagResolver slots = new TagResolver() {
+            @Override
+            public Tag resolve(String name, ArgumentQueue arguments, Context ctx) {
+                return Tag.selfClosingInserting(Component.text(SLOT_START + name + SLOT_END));
+            }
+
+            @Override
+            public boolean has(String name) {
+                return !standardTags.has(name);
+            }
+        };
+        Component template = miniMessage.deserialize(raw, slots);
+        return new CompiledMessage(template, containsSlot(template));
+    }
+
+    /**
+     * @return The template as-is, for messages used without placeholders
+     */
+    TextComponent get() {
+        return (TextComponent) template;
+    }
+
+    /**
+     * Fills the template's slots. Slots with no value are left as their original tag text.
+     *
+     * @param values The placeholder values, inserted as plain text
+     * @return The filled message
+     */
+    TextComponent fill(Map<String, String> values) {
+        if (!hasSlots) return (TextComponent) template;
+        return (TextComponent) fill(template, values);
+    }
+
+    private static Component fill(Component component, Map<String, String> values) {
+        Component filled = component;
+        if (component instanceof TextComponent) {
+            String content = ((TextComponent) component).content();
+            if (content.indexOf(SLOT_START) >= 0) {
+                filled = ((TextComponent) component).content(fillText(content, values));
+            }
+        }
+
+        // Rebuild only the branches that contain slots; the rest of the tree is shared
+        List<Component> children = component.children();
+        List<Component> filledChildren = null;
+        for (int i = 0; i < children.size(); i++) {
+            Component child = children.get(i);
+            Component filledChild = fill(child, values);
+            if (filledChild != child && filledChildren == null) {
+                filledChildren = new ArrayList<>(children.subList(0, i));
+            }
+            if (filledChildren != null) filledChildren.add(filledChild);
+        }
+        return filledChildren == null ? filled : filled.children(filledChildren);
+    }
+
+    private static String fillText(String content, Map<String, String> values) {
+        StringBuilder text = new StringBuilder(content.length() + 32);
+        int position = 0;
+        int start;
+        while ((start = content.indexOf(SLOT_START, position)) >= 0) {
+            int end = content.indexOf(SLOT_END, start);
+            if (end < 0) break;
+            String name = content.substring(start + 1, end);
+            String value = values.get(name);
+            text.append(content, position, start);
+            text.append(value != null ? value : "<" + name + ">");
+            position = end + 1;
+        }
+        text.append(content, position, content.length());
+        return text.toString();
+    }
+
+    private static boolean containsSlot(Component component) {
+        if (component instanceof TextComponent && ((TextComponent) component).content().indexOf(SLOT_START) >= 0) {
+            return true;
+        }
+        for (Component child : component.children()) {
+            if (containsSlot(child)) return true;
+        }
+        return false;
+    }
+}
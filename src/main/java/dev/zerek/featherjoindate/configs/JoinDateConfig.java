@@ -1,6 +1,7 @@
 package dev.zerek.featherjoindate.configs;
 
 import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.storage.StorageType;
 import org.bukkit.configuration.file.FileConfiguration;
 
 public class JoinDateConfig {
@@ -15,6 +16,55 @@ public class JoinDateConfig {
     private String mysqlDatabase;
     private boolean mysqlEnabled;
 
+    private StorageType storageType;
+    private String sqliteFile;
+    private int storageInitRetrySeconds;
+
+    private int poolMinimumIdle;
+    private int poolMaximumSize;
+    private long poolIdleTimeoutMillis;
+    private long poolMaxLifetimeMillis;
+    private long poolConnectionTimeoutMillis;
+    private long poolValidationTimeoutMillis;
+    private long poolLeakDetectionThresholdMillis;
+
+    private long cacheMaximumSize;
+    private long cacheExpireAfterMinutes;
+
+    private int executorThreads;
+    private int executorQueueCapacity;
+    private boolean executorVirtualThreads;
+    private long mineToolsCacheSize;
+    private long mineToolsCacheMinutes;
+    private long mineToolsNegativeCacheMinutes;
+
+    private long seenResolveTimeoutMillis;
+    private int seenRateLimitBurst;
+    private double seenRateLimitPerSecond;
+    private int seenMaxConcurrentLookups;
+
+    private int joinQueueFlushIntervalTicks;
+    private int joinQueueMaxBatchSize;
+    private int joinQueueCapacity;
+    private boolean joinQueueJournalEnabled;
+
+    private int playtimeCheckpointMinutes;
+
+    private boolean syncEnabled;
+    private int syncPollIntervalTicks;
+    private int syncBatchSize;
+    private int syncRetentionMinutes;
+
+    private boolean tabCompleteEnabled;
+    private int tabCompleteMaxNames;
+
+    private boolean searchEnabled;
+    private int searchMaxNames;
+
+    private boolean metricsHttpEnabled;
+    private String metricsHttpHost;
+    private int metricsHttpPort;
+
     public JoinDateConfig(FeatherJoinDate plugin) {
         this.plugin = plugin;
         this.plugin.saveDefaultConfig();
@@ -29,6 +79,65 @@ public class JoinDateConfig {
         this.mysqlPort = config.getInt("settings.mysql.port");
         this.mysqlPassword = config.getString("settings.mysql.password");
         this.mysqlDatabase = config.getString("settings.mysql.database");
+
+        String storage = config.getString("settings.storage.type", "mysql");
+        this.storageType = StorageType.fromName(storage);
+        if (this.storageType == null) {
+            this.plugin.getLogger().warning(String.format("Unknown storage type '%s', using mysql", storage));
+            this.storageType = StorageType.MYSQL;
+        }
+        this.sqliteFile = config.getString("settings.storage.sqlite-file", "joindates.db");
+        this.storageInitRetrySeconds = config.getInt("settings.storage.init-retry-seconds", 30);
+
+        this.poolMinimumIdle = config.getInt("settings.mysql.pool.minimum-idle", 2);
+        this.poolMaximumSize = config.getInt("settings.mysql.pool.maximum-size", 8);
+        this.poolIdleTimeoutMillis = config.getLong("settings.mysql.pool.idle-timeout-ms", 600000L);
+        this.poolMaxLifetimeMillis = config.getLong("settings.mysql.pool.max-lifetime-ms", 1800000L);
+        this.poolConnectionTimeoutMillis = config.getLong("settings.mysql.pool.connection-timeout-ms", 5000L);
+        this.poolValidationTimeoutMillis = config.getLong("settings.mysql.pool.validation-timeout-ms", 3000L);
+        this.poolLeakDetectionThresholdMillis = config.getLong("settings.mysql.pool.leak-detection-threshold-ms", 0L);
+
+        this.cacheMaximumSize = config.getLong("settings.cache.maximum-size", 1000L);
+        this.cacheExpireAfterMinutes = config.getLong("settings.cache.expire-after-minutes", 10L);
+
+        this.executorThreads = config.getInt("settings.executor.threads", 8);
+        if (this.executorThreads < 2) {
+            // A bulk job holds a thread until it is done
+            this.plugin.getLogger().warning(String.format("settings.executor.threads is %d, using 2", this.executorThreads));
+            this.executorThreads = 2;
+        }
+        this.executorQueueCapacity = config.getInt("settings.executor.queue-capacity", 256);
+        this.executorVirtualThreads = config.getBoolean("settings.executor.virtual-threads", false);
+        this.mineToolsCacheSize = config.getLong("settings.minetools.cache-size", 1000L);
+        this.mineToolsCacheMinutes = config.getLong("settings.minetools.cache-minutes", 10L);
+        this.mineToolsNegativeCacheMinutes = config.getLong("settings.minetools.negative-cache-minutes", 1L);
+
+        this.seenResolveTimeoutMillis = config.getLong("settings.seen.resolve-timeout-ms", 6000L);
+        this.seenRateLimitBurst = config.getInt("settings.seen.rate-limit.burst", 5);
+        this.seenRateLimitPerSecond = config.getDouble("settings.seen.rate-limit.per-second", 0.5);
+        this.seenMaxConcurrentLookups = config.getInt("settings.seen.max-concurrent-lookups", 4);
+
+        this.joinQueueFlushIntervalTicks = config.getInt("settings.join-queue.flush-interval-ticks", 40);
+        this.joinQueueMaxBatchSize = config.getInt("settings.join-queue.max-batch-size", 200);
+        this.joinQueueCapacity = config.getInt("settings.join-queue.capacity", 5000);
+        this.joinQueueJournalEnabled = config.getBoolean("settings.join-queue.journal", true);
+
+        this.playtimeCheckpointMinutes = config.getInt("settings.playtime.checkpoint-minutes", 5);
+
+        this.syncEnabled = config.getBoolean("settings.sync.enabled", false);
+        this.syncPollIntervalTicks = config.getInt("settings.sync.poll-interval-ticks", 20);
+        this.syncBatchSize = config.getInt("settings.sync.batch-size", 500);
+        this.syncRetentionMinutes = config.getInt("settings.sync.retention-minutes", 60);
+
+        this.tabCompleteEnabled = config.getBoolean("settings.tab-complete.enabled", true);
+        this.tabCompleteMaxNames = config.getInt("settings.tab-complete.max-names", 2000000);
+
+        this.searchEnabled = config.getBoolean("settings.search.enabled", true);
+        this.searchMaxNames = config.getInt("settings.search.max-names", 5000000);
+
+        this.metricsHttpEnabled = config.getBoolean("settings.metrics.http.enabled", false);
+        this.metricsHttpHost = config.getString("settings.metrics.http.host", "127.0.0.1");
+        this.metricsHttpPort = config.getInt("settings.metrics.http.port", 9464);
     }
 
     public String getMysqlUsername() {
@@ -54,4 +163,156 @@ public class JoinDateConfig {
     public boolean isMysqlEnabled() {
         return mysqlEnabled;
     }
+
+    public int getPoolMinimumIdle() {
+        return poolMinimumIdle;
+    }
+
+    public int getPoolMaximumSize() {
+        return poolMaximumSize;
+    }
+
+    public long getPoolIdleTimeoutMillis() {
+        return poolIdleTimeoutMillis;
+    }
+
+    public long getPoolMaxLifetimeMillis() {
+        return poolMaxLifetimeMillis;
+    }
+
+    public long getPoolConnectionTimeoutMillis() {
+        return poolConnectionTimeoutMillis;
+    }
+
+    public long getPoolValidationTimeoutMillis() {
+        return poolValidationTimeoutMillis;
+    }
+
+    public long getPoolLeakDetectionThresholdMillis() {
+        return poolLeakDetectionThresholdMillis;
+    }
+
+    public long getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+
+    public long getCacheExpireAfterMinutes() {
+        return cacheExpireAfterMinutes;
+    }
+
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    public int getExecutorQueueCapacity() {
+        return executorQueueCapacity;
+    }
+
+    public boolean isExecutorVirtualThreads() {
+        return executorVirtualThreads;
+    }
+
+    public long getMineToolsCacheSize() {
+        return mineToolsCacheSize;
+    }
+
+    public long getMineToolsCacheMinutes() {
+        return mineToolsCacheMinutes;
+    }
+
+    public long getMineToolsNegativeCacheMinutes() {
+        return mineToolsNegativeCacheMinutes;
+    }
+
+    public long getSeenResolveTimeoutMillis() {
+        return seenResolveTimeoutMillis;
+    }
+
+    public int getSeenRateLimitBurst() {
+        return seenRateLimitBurst;
+    }
+
+    public double getSeenRateLimitPerSecond() {
+        return seenRateLimitPerSecond;
+    }
+
+    public int getSeenMaxConcurrentLookups() {
+        return seenMaxConcurrentLookups;
+    }
+
+    public int getJoinQueueFlushIntervalTicks() {
+        return joinQueueFlushIntervalTicks;
+    }
+
+    public int getJoinQueueMaxBatchSize() {
+        return joinQueueMaxBatchSize;
+    }
+
+    public int getJoinQueueCapacity() {
+        return joinQueueCapacity;
+    }
+
+    public boolean isJoinQueueJournalEnabled() {
+        return joinQueueJournalEnabled;
+    }
+
+    public int getPlaytimeCheckpointMinutes() {
+        return playtimeCheckpointMinutes;
+    }
+
+    public boolean isSyncEnabled() {
+        return syncEnabled;
+    }
+
+    public int getSyncPollIntervalTicks() {
+        return syncPollIntervalTicks;
+    }
+
+    public int getSyncBatchSize() {
+        return syncBatchSize;
+    }
+
+    public int getSyncRetentionMinutes() {
+        return syncRetentionMinutes;
+    }
+
+    public boolean isTabCompleteEnabled() {
+        return tabCompleteEnabled;
+    }
+
+    public int getTabCompleteMaxNames() {
+        return tabCompleteMaxNames;
+    }
+
+    public boolean isSearchEnabled() {
+        return searchEnabled;
+    }
+
+    public int getSearchMaxNames() {
+        return searchMaxNames;
+    }
+
+    public StorageType getStorageType() {
+        return storageType;
+    }
+
+    public String getSqliteFile() {
+        return sqliteFile;
+    }
+
+    public int getStorageInitRetrySeconds() {
+        return storageInitRetrySeconds;
+    }
+
+    public boolean isMetricsHttpEnabled() {
+        return metricsHttpEnabled;
+    }
+
+    public String getMetricsHttpHost() {
+        return metricsHttpHost;
+    }
+
+    public int getMetricsHttpPort() {
+        return metricsHttpPort;
+    }
 }
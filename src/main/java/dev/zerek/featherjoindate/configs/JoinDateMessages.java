@@ -4,69 +4,110 @@ import dev.zerek.featherjoindate.FeatherJoinDate;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import net.kyori.adventure.text.minimessage.tag.standard.StandardTags;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class JoinDateMessages {
 
     private final FeatherJoinDate plugin;
-    private final Map<String,String> messages;
-    private final MiniMessage mm = MiniMessage.builder().tags(
-            TagResolver.builder()
-                    .resolver(StandardTags.color())
-                    .resolver(StandardTags.reset())
-                    .resolver(StandardTags.newline())
-                    .build()
-    ).build();
+    private final TagResolver standardTags = TagResolver.builder()
+            .resolver(StandardTags.color())
+            .resolver(StandardTags.reset())
+            .resolver(StandardTags.newline())
+            .build();
+    private final MiniMessage mm = MiniMessage.builder().tags(standardTags).build();
+
+    // Swapped as a whole on reload so readers always see one consistent set
+    private volatile Map<String, CompiledMessage> messages;
 
     public JoinDateMessages(FeatherJoinDate plugin) {
         this.plugin = plugin;
-        this.messages = new HashMap<>();
-        this.init();
+        this.messages = this.compile(this.load());
+    }
+
+    /**
+     * Creates messages from templates that are already loaded, without reading messages.yml.
+     */
+    public JoinDateMessages(Map<String, String> messages) {
+        this.plugin = null;
+        this.messages = this.compile(messages);
     }
 
     /**
-     * Initializes the messages from the config file.
-     * Creates the file if it doesn't exist.
-     * Loads all message keys into memory.
+     * Loads all message keys from messages.yml.
+     * Creates the file if it doesn't exist, and falls back to the bundled defaults for keys it doesn't have.
      */
-    private void init() {
+    private Map<String, String> load() {
+        Map<String, String> rawMessages = new HashMap<>();
+
+        try (InputStream defaults = this.plugin.getResource("messages.yml")) {
+            if (defaults != null) {
+                try (Reader reader = new InputStreamReader(defaults, StandardCharsets.UTF_8)) {
+                    YamlConfiguration defaultMessages = YamlConfiguration.loadConfiguration(reader);
+                    defaultMessages.getKeys(false).forEach(key -> rawMessages.put(key, defaultMessages.getString(key)));
+                }
+            }
+        } catch (Exception e) {
+            this.plugin.getLogger().warning("Unable to read default messages: " + e.getMessage());
+        }
+
         File file = new File(this.plugin.getDataFolder(), "messages.yml");
         if (!file.exists()) this.plugin.saveResource("messages.yml", false);
         FileConfiguration messagesConfig = YamlConfiguration.loadConfiguration(file);
-        messagesConfig.getKeys(false).forEach(key -> messages.put(key,messagesConfig.getString(key)));
+        messagesConfig.getKeys(false).forEach(key -> rawMessages.put(key, messagesConfig.getString(key)));
+        return rawMessages;
+    }
+
+    /**
+     * Parses every template once so lookups only have to fill placeholder slots.
+     */
+    private Map<String, CompiledMessage> compile(Map<String, String> rawMessages) {
+        Map<String, CompiledMessage> compiled = new HashMap<>();
+        rawMessages.forEach((key, raw) -> {
+            if (raw == null) return;
+            try {
+                compiled.put(key, CompiledMessage.compile(mm, standardTags, raw));
+            } catch (Exception e) {
+                if (plugin != null) plugin.getLogger().warning(String.format("Unable to parse message '%s': %s", key, e.getMessage()));
+            }
+        });
+        return Collections.unmodifiableMap(compiled);
+    }
+
+    /**
+     * Re-reads messages.yml and swaps in the newly compiled templates.
+     * Lookups running during the reload keep using the previous set.
+     */
+    public void reload() {
+        this.messages = this.compile(this.load());
     }
 
     /**
      * Gets a message with no placeholders.
      */
     public TextComponent get(String key){
-        if (messages.containsKey(key)) {
-            return (TextComponent) mm.deserialize(messages.get(key));
-        }
+        CompiledMessage message = messages.get(key);
+        if (message != null) return message.get();
         return Component.text("Missing message: " + key);
     }
 
+    /**
+     * Gets a message with its placeholders filled in. Placeholder values are inserted as plain text.
+     */
     public TextComponent get(String key, Map<String, String> placeholders) {
-        if (messages.containsKey(key)) {
-
-            List<TagResolver> rs = placeholders
-                    .entrySet()
-                    .stream()
-                    .map(entry -> (TagResolver) Placeholder.parsed(entry.getKey(), entry.getValue()))
-                    .collect(Collectors.toList());
-
-            return (TextComponent) mm.deserialize(messages.get(key), TagResolver.resolver(rs));
-
-        } else return Component.text("Missing message: " + key);
+        CompiledMessage message = messages.get(key);
+        if (message != null) return message.fill(placeholders);
+        return Component.text("Missing message: " + key);
     }
 }
@@ -0,0 +1,62 @@
+package dev.zerek.featherjoindate.data;
+
+import java.util.UUID;
+
+/**
+ * What another source, such as world playerdata or Essentials userdata, knows about a player from before they were recorded.
+ */
+public final class HistoricalJoin {
+
+    private final UUID uuid;
+    private final String username;
+    private final long firstSeen;
+    private final long lastSeen;
+
+    /**
+     * Constructs a new HistoricalJoin.
+     *
+     * @param uuid      The player's UUID
+     * @param username  The player's last known username, or null if the source doesn't have one
+     * @param firstSeen The earliest time the source saw the player in milliseconds since epoch, or 0 if unknown
+     * @param lastSeen  The latest time the source saw the player in milliseconds since epoch, or 0 if unknown
+     */
+    public HistoricalJoin(UUID uuid, String username, long firstSeen, long lastSeen) {
+        this.uuid = uuid;
+        this.username = username;
+        this.firstSeen = firstSeen;
+        this.lastSeen = Math.max(firstSeen, lastSeen);
+    }
+
+    /**
+     * Combines what two sources know about the same player: the earliest first sighting, the latest last sighting,
+     * and the username from whichever source saw the player more recently.
+     */
+    public HistoricalJoin merge(HistoricalJoin other) {
+        long first = firstSeen == 0 ? other.firstSeen : other.firstSeen == 0 ? firstSeen : Math.min(firstSeen, other.firstSeen);
+        String name = username == null || (other.username != null && other.lastSeen > lastSeen) ? other.username : username;
+        return new HistoricalJoin(uuid, name, first, Math.max(lastSeen, other.lastSeen));
+    }
+
+    /**
+     * @return true if the source knows when the player was seen, so a join can be stored for them
+     */
+    public boolean hasTimestamp() {
+        return firstSeen > 0;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+}
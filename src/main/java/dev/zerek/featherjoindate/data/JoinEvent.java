@@ -0,0 +1,97 @@
+package dev.zerek.featherjoindate.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A player's joins waiting to be written to the database: a single join, or several merged while they waited.
+ * Merging keeps the earliest and latest join times and every username used, so nothing the database would
+ * have kept from the separate joins is lost.
+ */
+public final class JoinEvent {
+
+    private final UUID uuid;
+    private final List<String> usernames;
+    private final long firstJoinedAt;
+    private final long lastJoinedAt;
+
+    /**
+     * Constructs a new JoinEvent for a single join.
+     *
+     * @param uuid     The player's UUID
+     * @param username The username the player joined with
+     * @param joinedAt The time of the join in milliseconds since epoch
+     */
+    public JoinEvent(UUID uuid, String username, long joinedAt) {
+        this(uuid, Collections.singletonList(username), joinedAt, joinedAt);
+    }
+
+    private JoinEvent(UUID uuid, List<String> usernames, long firstJoinedAt, long lastJoinedAt) {
+        this.uuid = uuid;
+        this.usernames = usernames;
+        this.firstJoinedAt = firstJoinedAt;
+        this.lastJoinedAt = lastJoinedAt;
+    }
+
+    /**
+     * Combines two sets of joins by the same player: the earlier first join, the later last join,
+     * and the usernames of both in the order they were last used.
+     *
+     * @param other Joins by the same player
+     * @return The merged joins
+     */
+    public JoinEvent merge(JoinEvent other) {
+        JoinEvent older = other.lastJoinedAt < lastJoinedAt ? other : this;
+        JoinEvent newer = older == this ? other : this;
+        List<String> merged = new ArrayList<>(older.usernames.size() + newer.usernames.size());
+        for (String username : older.usernames) {
+            if (!newer.usernames.contains(username)) merged.add(username);
+        }
+        merged.addAll(newer.usernames);
+        return new JoinEvent(uuid, Collections.unmodifiableList(merged),
+                Math.min(firstJoinedAt, other.firstJoinedAt), Math.max(lastJoinedAt, other.lastJoinedAt));
+    }
+
+    /**
+     * Splits these joins into single joins that merge back into them: the first username at the first join time,
+     * then every later username, and the last username again if needed, at the last join time.
+     *
+     * @return The single joins, oldest first
+     */
+    public List<JoinEvent> split() {
+        if (usernames.size() == 1 && firstJoinedAt == lastJoinedAt) return Collections.singletonList(this);
+        List<JoinEvent> joins = new ArrayList<>(usernames.size() + 1);
+        joins.add(new JoinEvent(uuid, usernames.get(0), firstJoinedAt));
+        for (int i = 1; i < usernames.size(); i++) joins.add(new JoinEvent(uuid, usernames.get(i), lastJoinedAt));
+        if (usernames.size() == 1) joins.add(new JoinEvent(uuid, usernames.get(0), lastJoinedAt));
+        return joins;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return The username of the latest join
+     */
+    public String getUsername() {
+        return usernames.get(usernames.size() - 1);
+    }
+
+    /**
+     * @return Every username joined with, in the order they were last used, so the latest is last
+     */
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public long getFirstJoinedAt() {
+        return firstJoinedAt;
+    }
+
+    public long getLastJoinedAt() {
+        return lastJoinedAt;
+    }
+}
@@ -0,0 +1,97 @@
+package dev.zerek.featherjoindate.data;
+
+/**
+ * A player's stored join information: first join, last login, total playtime and every username they have joined with.
+ * Records are immutable; updates return a new record.
+ */
+public final class PlayerJoinRecord {
+
+    /**
+     * Returned in place of a record for players that have never joined.
+     */
+    public static final PlayerJoinRecord ABSENT = new PlayerJoinRecord(0L, 0L, UsernameHistory.EMPTY);
+
+    private final long joinDate;
+    private final long lastLogin;
+    private final UsernameHistory usernames;
+    private final long playtime;
+    private final int sessions;
+
+    /**
+     * Constructs a new PlayerJoinRecord with no recorded playtime.
+     *
+     * @param joinDate  The first join time in milliseconds since epoch, or 0 if unknown
+     * @param lastLogin The last login time in milliseconds since epoch, or 0 if unknown
+     * @param usernames Every username the player has joined with, oldest first
+     */
+    public PlayerJoinRecord(long joinDate, long lastLogin, UsernameHistory usernames) {
+        this(joinDate, lastLogin, usernames, 0L, 0);
+    }
+
+    /**
+     * Constructs a new PlayerJoinRecord.
+     *
+     * @param joinDate  The first join time in milliseconds since epoch, or 0 if unknown
+     * @param lastLogin The last login time in milliseconds since epoch, or 0 if unknown
+     * @param usernames Every username the player has joined with, oldest first
+     * @param playtime  The total time played in milliseconds
+     * @param sessions  The number of completed sessions
+     */
+    public PlayerJoinRecord(long joinDate, long lastLogin, UsernameHistory usernames, long playtime, int sessions) {
+        this.joinDate = joinDate;
+        this.lastLogin = lastLogin;
+        this.usernames = usernames;
+        this.playtime = playtime;
+        this.sessions = sessions;
+    }
+
+    /**
+     * @return false if this is the {@link #ABSENT} record
+     */
+    public boolean exists() {
+        return this != ABSENT;
+    }
+
+    public long getJoinDate() {
+        return joinDate;
+    }
+
+    public long getLastLogin() {
+        return lastLogin;
+    }
+
+    public UsernameHistory getUsernames() {
+        return usernames;
+    }
+
+    public long getPlaytime() {
+        return playtime;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Returns a copy of this record updated with newer joins.
+     *
+     * @param join The joins, whose usernames are added in the order they were used
+     * @return The updated record
+     */
+    public PlayerJoinRecord withJoin(JoinEvent join) {
+        UsernameHistory updated = usernames;
+        for (String username : join.getUsernames()) updated = updated.with(username);
+        return new PlayerJoinRecord(joinDate, Math.max(lastLogin, join.getLastJoinedAt()), updated, playtime, sessions);
+    }
+
+    /**
+     * Returns a copy of this record with more playtime added.
+     *
+     * @param millis   The playtime to add in milliseconds
+     * @param sessions The number of completed sessions to add
+     * @return The updated record
+     */
+    public PlayerJoinRecord withPlaytime(long millis, int sessions) {
+        return new PlayerJoinRecord(joinDate, lastLogin, usernames, playtime + millis, this.sessions + sessions);
+    }
+}
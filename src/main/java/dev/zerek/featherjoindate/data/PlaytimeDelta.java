@@ -0,0 +1,36 @@
+package dev.zerek.featherjoindate.data;
+
+/**
+ * Playtime measured for a player that hasn't been added to their stored total yet.
+ */
+public final class PlaytimeDelta {
+
+    private final long millis;
+    private final int sessions;
+
+    /**
+     * Constructs a new PlaytimeDelta.
+     *
+     * @param millis   The time played in milliseconds
+     * @param sessions The number of sessions that ended in that time
+     */
+    public PlaytimeDelta(long millis, int sessions) {
+        this.millis = millis;
+        this.sessions = sessions;
+    }
+
+    /**
+     * @return The sum of this and another delta for the same player
+     */
+    public PlaytimeDelta plus(PlaytimeDelta other) {
+        return new PlaytimeDelta(millis + other.millis, sessions + other.sessions);
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+}
@@ -0,0 +1,97 @@
+package dev.zerek.featherjoindate.data;
+
+import java.util.Arrays;
+
+/**
+ * The usernames a player has joined with, oldest first, stored as a single array.
+ * Names are unique ignoring case, matching the usernames table's unique index.
+ */
+public final class UsernameHistory {
+
+    public static final UsernameHistory EMPTY = new UsernameHistory(new String[0]);
+
+    private final String[] usernames;
+
+    private UsernameHistory(String[] usernames) {
+        this.usernames = usernames;
+    }
+
+    /**
+     * Creates a history from a comma separated list, such as a GROUP_CONCAT result.
+     *
+     * @param concatenated The usernames separated by commas, oldest first, may be null
+     * @return The username history
+     */
+    public static UsernameHistory fromConcatenated(String concatenated) {
+        if (concatenated == null || concatenated.isEmpty()) return EMPTY;
+        return new UsernameHistory(concatenated.split(","));
+    }
+
+    /**
+     * Creates a history from usernames that are already unique, oldest first.
+     */
+    public static UsernameHistory of(String... usernames) {
+        return usernames.length == 0 ? EMPTY : new UsernameHistory(usernames.clone());
+    }
+
+    public int size() {
+        return usernames.length;
+    }
+
+    public String get(int index) {
+        return usernames[index];
+    }
+
+    /**
+     * @return The most recently added username, or null if the history is empty
+     */
+    public String getLatest() {
+        return usernames.length == 0 ? null : usernames[usernames.length - 1];
+    }
+
+    public boolean contains(String username) {
+        for (String existing : usernames) {
+            if (existing.equalsIgnoreCase(username)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a history with the username appended, or this history if it already contains the name.
+     */
+    public UsernameHistory with(String username) {
+        if (contains(username)) return this;
+        String[] updated = Arrays.copyOf(usernames, usernames.length + 1);
+        updated[usernames.length] = username;
+        return new UsernameHistory(updated);
+    }
+
+    /**
+     * Checks whether the player has used any username other than the given one.
+     *
+     * @param currentUsername The player's current username, may be null
+     */
+    public boolean hasOtherThan(String currentUsername) {
+        for (String username : usernames) {
+            if (!username.equalsIgnoreCase(currentUsername)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Joins every username other than the current one, oldest first.
+     *
+     * @param currentUsername The player's current username, may be null
+     * @param delimiter       The delimiter to place between usernames
+     * @return The joined previous usernames, or an empty string if there are none
+     */
+    public String joinExcluding(String currentUsername, String delimiter) {
+        StringBuilder joined = new StringBuilder();
+        for (String username : usernames) {
+            if (username.equalsIgnoreCase(currentUsername)) continue;
+            if (joined.length() > 0) joined.append(delimiter);
+            joined.append(username);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package dev.zerek.featherjoindate.importer;
+
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Reads the login and logout times and the last account name from an Essentials userdata/&lt;uuid&gt;.yml file.
+ * The few keys needed are picked out line by line, which is far cheaper than a full YAML parse per file.
+ */
+final class EssentialsUserDataReader {
+
+    private EssentialsUserDataReader() {
+    }
+
+    /**
+     * @param uuid         The player the file belongs to, from its name
+     * @param data         The file's contents
+     * @param lastModified The file's modification time, used when the file has no timestamps
+     * @return What the file knows about the player
+     */
+    static HistoricalJoin read(UUID uuid, ByteBuffer data, long lastModified) {
+        String text = StandardCharsets.UTF_8.decode(data).toString();
+        String name = null;
+        long first = 0;
+        long last = 0;
+        boolean inTimestamps = false;
+
+        for (String line : text.split("\n")) {
+            if (line.isEmpty()) continue;
+            boolean indented = Character.isWhitespace(line.charAt(0));
+            String trimmed = line.trim();
+            if (!indented) inTimestamps = trimmed.equals("timestamps:");
+
+            int colon = trimmed.indexOf(':');
+            if (colon < 0) continue;
+            String key = trimmed.substring(0, colon);
+            String value = unquote(trimmed.substring(colon + 1).trim());
+
+            if (!indented && (key.equals("last-account-name") || key.equals("lastAccountName"))) {
+                if (!value.isEmpty()) name = value;
+            } else if (indented && inTimestamps && (key.equals("login") || key.equals("logout"))) {
+                long time = parseMillis(value);
+                if (time <= 0) continue;
+                first = first == 0 ? time : Math.min(first, time);
+                last = Math.max(last, time);
+            }
+        }
+
+        if (first == 0) first = last = lastModified;
+        return new HistoricalJoin(uuid, name, first, last);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && (value.charAt(0) == '\'' || value.charAt(0) == '"') && value.charAt(value.length() - 1) == value.charAt(0)) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static long parseMillis(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
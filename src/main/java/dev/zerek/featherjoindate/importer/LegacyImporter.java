@@ -0,0 +1,294 @@
+package dev.zerek.featherjoindate.importer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+import dev.zerek.featherjoindate.managers.JoinManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Imports the first-join history servers had before the plugin was installed, from world playerdata,
+ * Essentials userdata and usercache.json, keeping the earliest time each player is known to have played.
+ *
+ * Files are scanned in parallel, then the merged history is bulk loaded with multi-row inserts.
+ * The thread calling {@link #run()} scans alongside helpers on the plugin's I/O executor, taking chunks from a
+ * shared queue, so the import never waits for a helper that hasn't started and the executor's shutdown stops them.
+ * Progress can be polled from another thread while {@link #run()} works.
+ */
+public class LegacyImporter {
+
+    // Files taken by a scanning thread at a time
+    private static final int SCAN_CHUNK_SIZE = 256;
+    // Players written per transaction, and so per progress update
+    private static final int WRITE_CHUNK_SIZE = 5000;
+    // Files at least this large are mapped; smaller ones are read into a reused buffer,
+    // since mapping hundreds of thousands of small files runs out of mappings before the GC unmaps them
+    private static final int MAP_THRESHOLD_BYTES = 64 * 1024;
+
+    private final Logger logger;
+    private final JoinManager joinManager;
+    private final Executor executor;
+    private final int parallelism;
+    private final File playerDataFolder;
+    private final File userDataFolder;
+    private final File userCacheFile;
+
+    private final Map<UUID, HistoricalJoin> history = new ConcurrentHashMap<>();
+    private final AtomicInteger filesTotal = new AtomicInteger();
+    private final AtomicInteger filesScanned = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final AtomicLong playersWritten = new AtomicLong();
+    private volatile boolean writing;
+    private volatile long startedAt;
+
+    /**
+     * Constructs a new LegacyImporter. Any source may be missing.
+     *
+     * @param logger           The logger to report unreadable files to
+     * @param joinManager      Where to write the imported history
+     * @param executor         Where to run the helpers that scan alongside {@link #run()}
+     * @param parallelism      The number of threads to scan with, counting the one calling {@link #run()}
+     * @param playerDataFolder A world's playerdata folder
+     * @param userDataFolder   An Essentials userdata folder, or null to skip it
+     * @param userCacheFile    The server's usercache.json, used to fill in names
+     */
+    public LegacyImporter(Logger logger, JoinManager joinManager, Executor executor, int parallelism,
+                          File playerDataFolder, File userDataFolder, File userCacheFile) {
+        this.logger = logger;
+        this.joinManager = joinManager;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.playerDataFolder = playerDataFolder;
+        this.userDataFolder = userDataFolder;
+        this.userCacheFile = userCacheFile;
+    }
+
+    /**
+     * Scans every source and writes what they know. Blocks until done, so run it off the main thread.
+     *
+     * @return The number of players written
+     * @throws IOException If a source folder can't be listed or the history can't be written
+     */
+    public long run() throws IOException {
+        startedAt = System.nanoTime();
+        List<Path> playerData = list(playerDataFolder, "*.dat");
+        List<Path> userData = userDataFolder != null ? list(userDataFolder, "*.yml") : new ArrayList<>();
+        filesTotal.set(playerData.size() + userData.size());
+
+        ConcurrentLinkedQueue<ScanChunk> chunks = new ConcurrentLinkedQueue<>();
+        addChunks(chunks, playerData, false);
+        addChunks(chunks, userData, true);
+        CountDownLatch scanned = new CountDownLatch(chunks.size());
+        for (int i = 1; i < parallelism && i < chunks.size(); i++) {
+            try {
+                executor.execute(() -> scanAll(chunks, scanned));
+            } catch (RejectedExecutionException e) {
+                // No room for more helpers; this thread scans what they would have
+                break;
+            }
+        }
+        scanAll(chunks, scanned);
+        try {
+            // Only chunks a running helper has taken are left
+            scanned.await();
+        } catch (InterruptedException e) {
+            chunks.clear();
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted");
+        }
+        if (Thread.currentThread().isInterrupted()) throw new IOException("Import interrupted");
+
+        if (userCacheFile != null && userCacheFile.isFile()) readUserCache();
+        if (filesFailed.get() > 0) logger.warning(String.format("Skipped %d unreadable files during import.", filesFailed.get()));
+
+        writing = true;
+        List<HistoricalJoin> batch = new ArrayList<>(WRITE_CHUNK_SIZE);
+        for (HistoricalJoin join : history.values()) {
+            if (!join.hasTimestamp()) continue;
+            batch.add(join);
+            if (batch.size() == WRITE_CHUNK_SIZE) write(batch);
+        }
+        write(batch);
+        return playersWritten.get();
+    }
+
+    private void write(List<HistoricalJoin> batch) throws IOException {
+        if (batch.isEmpty()) return;
+        if (!joinManager.importHistory(batch)) throw new IOException("Unable to write imported history, see the log");
+        playersWritten.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    // === Scanning ===
+
+    private static List<Path> list(File folder, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (folder == null || !folder.isDirectory()) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath(), glob)) {
+            for (Path file : stream) files.add(file);
+        }
+        return files;
+    }
+
+    private static void addChunks(ConcurrentLinkedQueue<ScanChunk> chunks, List<Path> files, boolean essentials) {
+        for (int start = 0; start < files.size(); start += SCAN_CHUNK_SIZE) {
+            chunks.add(new ScanChunk(files.subList(start, Math.min(files.size(), start + SCAN_CHUNK_SIZE)), essentials));
+        }
+    }
+
+    /**
+     * Scans chunks until none are left or the thread is interrupted, which leaves the rest to the others.
+     */
+    private void scanAll(ConcurrentLinkedQueue<ScanChunk> chunks, CountDownLatch scanned) {
+        ScanChunk chunk;
+        while (!Thread.currentThread().isInterrupted() && (chunk = chunks.poll()) != null) {
+            try {
+                scan(chunk.files, chunk.essentials);
+            } finally {
+                scanned.countDown();
+            }
+        }
+    }
+
+    private void scan(List<Path> files, boolean essentials) {
+        Map<UUID, HistoricalJoin> found = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocate(MAP_THRESHOLD_BYTES);
+
+        for (Path file : files) {
+            UUID uuid = uuidOf(file);
+            if (uuid != null) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer data = read(channel, buffer);
+                    long lastModified = Files.getLastModifiedTime(file).toMillis();
+                    HistoricalJoin join = essentials
+                            ? EssentialsUserDataReader.read(uuid, data, lastModified)
+                            : PlayerDataReader.read(uuid, data, lastModified);
+                    found.merge(uuid, join, HistoricalJoin::merge);
+                } catch (IOException | RuntimeException e) {
+                    filesFailed.incrementAndGet();
+                }
+            }
+            filesScanned.incrementAndGet();
+        }
+
+        found.values().forEach(join -> history.merge(join.getUuid(), join, HistoricalJoin::merge));
+    }
+
+    private static ByteBuffer read(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long size = channel.size();
+        if (size >= MAP_THRESHOLD_BYTES) return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+        buffer.clear();
+        while (buffer.position() < size && channel.read(buffer) > 0) {
+            // Small files usually arrive in one read
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static UUID uuidOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        try {
+            return UUID.fromString(dot < 0 ? name : name.substring(0, dot));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fills in names for players the other sources found without one.
+     */
+    private void readUserCache() throws IOException {
+        JsonArray entries;
+        try (Reader reader = Files.newBufferedReader(userCacheFile.toPath(), StandardCharsets.UTF_8)) {
+            entries = JsonParser.parseReader(reader).getAsJsonArray();
+        } catch (RuntimeException e) {
+            logger.warning("Unable to read usercache.json: " + e.getMessage());
+            return;
+        }
+
+        for (JsonElement element : entries) {
+            if (!element.isJsonObject()) continue;
+            JsonObject entry = element.getAsJsonObject();
+            if (!entry.has("uuid") || !entry.has("name")) continue;
+            try {
+                UUID uuid = UUID.fromString(entry.get("uuid").getAsString());
+                history.computeIfPresent(uuid, (key, join) -> join.merge(new HistoricalJoin(uuid, entry.get("name").getAsString(), 0, 0)));
+            } catch (IllegalArgumentException e) {
+                // Not a UUID; skip the entry
+            }
+        }
+    }
+
+    // === Progress ===
+
+    /**
+     * @return true once scanning has finished and the history is being written
+     */
+    public boolean isWriting() {
+        return writing;
+    }
+
+    public int getFilesScanned() {
+        return filesScanned.get();
+    }
+
+    public int getFilesTotal() {
+        return filesTotal.get();
+    }
+
+    public long getPlayersWritten() {
+        return playersWritten.get();
+    }
+
+    /**
+     * @return The number of distinct players found so far
+     */
+    public int getPlayersFound() {
+        return history.size();
+    }
+
+    public long getElapsedMillis() {
+        return startedAt == 0 ? 0 : (System.nanoTime() - startedAt) / 1_000_000L;
+    }
+
+    /**
+     * Files of one kind, scanned by one thread.
+     */
+    private static final class ScanChunk {
+
+        final List<Path> files;
+        final boolean essentials;
+
+        ScanChunk(List<Path> files, boolean essentials) {
+            this.files = files;
+            this.essentials = essentials;
+        }
+    }
+}
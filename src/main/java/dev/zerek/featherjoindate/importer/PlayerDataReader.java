@@ -0,0 +1,143 @@
+package dev.zerek.featherjoindate.importer;
+
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the first and last played times and the last known name that CraftBukkit keeps in the "bukkit"
+ * compound of a world/playerdata/&lt;uuid&gt;.dat file.
+ * The rest of the gzipped NBT is skipped over without being materialized.
+ */
+final class PlayerDataReader {
+
+    private static final byte TAG_END = 0;
+    private static final byte TAG_BYTE = 1;
+    private static final byte TAG_SHORT = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_FLOAT = 5;
+    private static final byte TAG_DOUBLE = 6;
+    private static final byte TAG_BYTE_ARRAY = 7;
+    private static final byte TAG_STRING = 8;
+    private static final byte TAG_LIST = 9;
+    private static final byte TAG_COMPOUND = 10;
+    private static final byte TAG_INT_ARRAY = 11;
+    private static final byte TAG_LONG_ARRAY = 12;
+
+    private PlayerDataReader() {
+    }
+
+    /**
+     * @param uuid         The player the file belongs to, from its name
+     * @param data         The file's contents
+     * @param lastModified The file's modification time, used when the file has no "bukkit" compound
+     * @return What the file knows about the player
+     * @throws IOException If the file is not gzipped NBT
+     */
+    static HistoricalJoin read(UUID uuid, ByteBuffer data, long lastModified) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteBufferInputStream(data))))) {
+            if (in.readByte() != TAG_COMPOUND) throw new IOException("Root tag is not a compound");
+            in.readUTF();
+
+            byte type;
+            while ((type = in.readByte()) != TAG_END) {
+                String name = in.readUTF();
+                if (type == TAG_COMPOUND && name.equals("bukkit")) return readBukkit(uuid, in, lastModified);
+                skip(in, type);
+            }
+        }
+        return new HistoricalJoin(uuid, null, lastModified, lastModified);
+    }
+
+    private static HistoricalJoin readBukkit(UUID uuid, DataInputStream in, long lastModified) throws IOException {
+        long firstPlayed = 0;
+        long lastPlayed = 0;
+        String lastKnownName = null;
+
+        byte type;
+        while ((type = in.readByte()) != TAG_END) {
+            String name = in.readUTF();
+            if (type == TAG_LONG && name.equals("firstPlayed")) firstPlayed = in.readLong();
+            else if (type == TAG_LONG && name.equals("lastPlayed")) lastPlayed = in.readLong();
+            else if (type == TAG_STRING && name.equals("lastKnownName")) lastKnownName = in.readUTF();
+            else skip(in, type);
+        }
+
+        if (firstPlayed <= 0) firstPlayed = lastPlayed > 0 ? lastPlayed : lastModified;
+        return new HistoricalJoin(uuid, lastKnownName, firstPlayed, lastPlayed > 0 ? lastPlayed : lastModified);
+    }
+
+    private static void skip(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+            case TAG_BYTE: skipFully(in, 1); break;
+            case TAG_SHORT: skipFully(in, 2); break;
+            case TAG_INT:
+            case TAG_FLOAT: skipFully(in, 4); break;
+            case TAG_LONG:
+            case TAG_DOUBLE: skipFully(in, 8); break;
+            case TAG_BYTE_ARRAY: skipFully(in, in.readInt()); break;
+            case TAG_STRING: skipFully(in, in.readUnsignedShort()); break;
+            case TAG_INT_ARRAY: skipFully(in, in.readInt() * 4L); break;
+            case TAG_LONG_ARRAY: skipFully(in, in.readInt() * 8L); break;
+            case TAG_LIST: {
+                byte elementType = in.readByte();
+                int length = in.readInt();
+                for (int i = 0; i < length; i++) skip(in, elementType);
+                break;
+            }
+            case TAG_COMPOUND: {
+                byte child;
+                while ((child = in.readByte()) != TAG_END) {
+                    skipFully(in, in.readUnsignedShort());
+                    skip(in, child);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static void skipFully(DataInputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                in.readByte();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    /**
+     * Streams a buffer, such as a mapped file, without copying it onto the heap first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.zerek.featherjoindate.leaderboard;
+
+/**
+ * The leaderboards /seen top can show.
+ */
+public enum LeaderboardType {
+
+    /**
+     * Earliest first join first.
+     */
+    OLDEST,
+
+    /**
+     * Latest first join first.
+     */
+    RECENT,
+
+    /**
+     * Most total playtime first.
+     */
+    PLAYTIME;
+
+    /**
+     * @return The leaderboard with the given name ignoring case, or null if there is none
+     */
+    public static LeaderboardType fromName(String name) {
+        for (LeaderboardType type : values()) {
+            if (type.name().equalsIgnoreCase(name)) return type;
+        }
+        return null;
+    }
+}
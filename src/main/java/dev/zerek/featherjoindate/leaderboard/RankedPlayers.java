@@ -0,0 +1,361 @@
+package dev.zerek.featherjoindate.leaderboard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Every stored player ranked by join date and by playtime, kept in primitive arrays so hundreds of thousands of
+ * players cost about 64 bytes each: players live in parallel arrays indexed by the order they were added,
+ * found by UUID through an open-addressed table of those indexes, and each ranking is an int array of indexes
+ * kept sorted. An update moves the player only across the entries between their old and new rank.
+ *
+ * Access is synchronized; pages copy out the few entries they show.
+ */
+public final class RankedPlayers {
+
+    // Usernames are at most 16 bytes of UTF-8; longer ones aren't stored
+    private static final int NAME_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private long[] mostSigBits = new long[INITIAL_CAPACITY];
+    private long[] leastSigBits = new long[INITIAL_CAPACITY];
+    private long[] joinDates = new long[INITIAL_CAPACITY];
+    private long[] playtimes = new long[INITIAL_CAPACITY];
+    // NAME_BYTES per player, zero padded
+    private byte[] names = new byte[INITIAL_CAPACITY * NAME_BYTES];
+    // Player index + 1 per slot, 0 for an empty slot; at most half full
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    // Earliest join first
+    private final Ranking byJoinDate = new Ranking() {
+        @Override
+        int compare(int a, int b) {
+            int result = Long.compare(joinDates[a], joinDates[b]);
+            return result != 0 ? result : Integer.compare(a, b);
+        }
+    };
+    // Most playtime first
+    private final Ranking byPlaytime = new Ranking() {
+        @Override
+        int compare(int a, int b) {
+            int result = Long.compare(playtimes[b], playtimes[a]);
+            return result != 0 ? result : Integer.compare(a, b);
+        }
+    };
+
+    // === Loading ===
+
+    /**
+     * Adds a player without ranking them, for loading many players at once. Call {@link #rank()} once all are added.
+     *
+     * @param uuid     The player
+     * @param joinDate Their first join in milliseconds since epoch
+     * @param playtime Their total playtime in milliseconds
+     * @param name     Their latest username, or null if unknown
+     */
+    public synchronized void load(UUID uuid, long joinDate, long playtime, String name) {
+        if (find(uuid) >= 0) return;
+        add(uuid, joinDate, playtime, name);
+    }
+
+    /**
+     * Sorts both rankings after a load. O(n log n), where adding ranked players one at a time would be quadratic.
+     */
+    public synchronized void rank() {
+        byJoinDate.sort(size);
+        byPlaytime.sort(size);
+    }
+
+    // === Updates ===
+
+    /**
+     * Records a join written to the database: a new player is ranked with the join as their first,
+     * and an existing player's name is updated.
+     *
+     * @param uuid     The player who joined
+     * @param joinedAt When they joined in milliseconds since epoch
+     * @param name     The username they joined with
+     */
+    public synchronized void recordJoin(UUID uuid, long joinedAt, String name) {
+        int index = find(uuid);
+        if (index < 0) {
+            index = add(uuid, joinedAt, 0, name);
+            byJoinDate.insert(index, size);
+            byPlaytime.insert(index, size);
+            return;
+        }
+        setName(index, name);
+        // The database keeps the earlier join date, as must the ranking
+        if (joinedAt < joinDates[index]) {
+            int position = byJoinDate.positionOf(index, size);
+            joinDates[index] = joinedAt;
+            byJoinDate.move(position, size);
+        }
+    }
+
+    /**
+     * Sets a player's total to the playtime stored after a write. Players not yet ranked are skipped,
+     * as the database skips players without a stored join. Stored totals only grow, so a total older than
+     * the ranked one, such as one already read by a load, changes nothing and setting one twice is harmless.
+     *
+     * @param uuid   The player
+     * @param millis The stored playtime in milliseconds
+     */
+    public synchronized void setPlaytime(UUID uuid, long millis) {
+        int index = find(uuid);
+        if (index < 0 || millis <= playtimes[index]) return;
+        int position = byPlaytime.positionOf(index, size);
+        playtimes[index] = millis;
+        byPlaytime.move(position, size);
+    }
+
+    // === Queries ===
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Copies out part of a leaderboard.
+     *
+     * @param type   The leaderboard to read
+     * @param offset The 0-based rank of the first entry
+     * @param limit  The most entries to return
+     * @return The entries, best ranked first; empty past the end
+     */
+    public synchronized List<Entry> page(LeaderboardType type, int offset, int limit) {
+        int end = Math.min(size, offset + limit);
+        List<Entry> entries = new ArrayList<>(Math.max(0, end - offset));
+        for (int rank = Math.max(0, offset); rank < end; rank++) {
+            int index;
+            switch (type) {
+                case OLDEST:
+                    index = byJoinDate.order[rank];
+                    break;
+                case RECENT:
+                    index = byJoinDate.order[size - 1 - rank];
+                    break;
+                default:
+                    index = byPlaytime.order[rank];
+                    break;
+            }
+            entries.add(new Entry(rank + 1, new UUID(mostSigBits[index], leastSigBits[index]),
+                    getName(index), joinDates[index], playtimes[index]));
+        }
+        return entries;
+    }
+
+    // === Players ===
+
+    private int add(UUID uuid, long joinDate, long playtime, String name) {
+        if (size == mostSigBits.length) grow();
+        if ((size + 1) * 2 > table.length) rehash(table.length * 2);
+        int index = size++;
+        mostSigBits[index] = uuid.getMostSignificantBits();
+        leastSigBits[index] = uuid.getLeastSignificantBits();
+        joinDates[index] = joinDate;
+        playtimes[index] = playtime;
+        setName(index, name);
+        insertSlot(index);
+        return index;
+    }
+
+    private void grow() {
+        int capacity = mostSigBits.length + (mostSigBits.length >> 1);
+        mostSigBits = Arrays.copyOf(mostSigBits, capacity);
+        leastSigBits = Arrays.copyOf(leastSigBits, capacity);
+        joinDates = Arrays.copyOf(joinDates, capacity);
+        playtimes = Arrays.copyOf(playtimes, capacity);
+        names = Arrays.copyOf(names, capacity * NAME_BYTES);
+        byJoinDate.order = Arrays.copyOf(byJoinDate.order, capacity);
+        byPlaytime.order = Arrays.copyOf(byPlaytime.order, capacity);
+    }
+
+    private void setName(int index, String name) {
+        if (name == null) return;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > NAME_BYTES) return;
+        int offset = index * NAME_BYTES;
+        System.arraycopy(bytes, 0, names, offset, bytes.length);
+        Arrays.fill(names, offset + bytes.length, offset + NAME_BYTES, (byte) 0);
+    }
+
+    private String getName(int index) {
+        int offset = index * NAME_BYTES;
+        int length = 0;
+        while (length < NAME_BYTES && names[offset + length] != 0) length++;
+        return length == 0 ? null : new String(names, offset, length, StandardCharsets.UTF_8);
+    }
+
+    // === Table ===
+
+    private int find(UUID uuid) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        int mask = table.length - 1;
+        for (int slot = hash(most, least) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (mostSigBits[index] == most && leastSigBits[index] == least) return index;
+        }
+        return -1;
+    }
+
+    private void insertSlot(int index) {
+        int mask = table.length - 1;
+        int slot = hash(mostSigBits[index], leastSigBits[index]) & mask;
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = index + 1;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int index = 0; index < size; index++) insertSlot(index);
+    }
+
+    private static int hash(long most, long least) {
+        long h = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Player indexes kept sorted by {@link #compare}, which breaks ties by index so every player has one exact position.
+     */
+    private abstract static class Ranking {
+
+        int[] order = new int[INITIAL_CAPACITY];
+
+        /**
+         * @return Negative if player a ranks before player b
+         */
+        abstract int compare(int a, int b);
+
+        /**
+         * @return The position of a player, found by the score they were ranked with
+         */
+        int positionOf(int index, int count) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int result = compare(order[mid], index);
+                if (result < 0) low = mid + 1;
+                else if (result > 0) high = mid - 1;
+                else return mid;
+            }
+            throw new IllegalStateException("Player " + index + " is not ranked");
+        }
+
+        /**
+         * Ranks a player not yet in the order, which holds count - 1 players.
+         */
+        void insert(int index, int count) {
+            int position = lowerBound(index, 0, count - 1);
+            System.arraycopy(order, position, order, position + 1, count - 1 - position);
+            order[position] = index;
+        }
+
+        /**
+         * Moves the player at a position whose score has just changed to where it now ranks.
+         */
+        void move(int position, int count) {
+            int index = order[position];
+            if (position > 0 && compare(index, order[position - 1]) < 0) {
+                int target = lowerBound(index, 0, position);
+                System.arraycopy(order, target, order, target + 1, position - target);
+                order[target] = index;
+            } else if (position < count - 1 && compare(index, order[position + 1]) > 0) {
+                int target = lowerBound(index, position + 1, count) - 1;
+                System.arraycopy(order, position + 1, order, position, target - position);
+                order[target] = index;
+            }
+        }
+
+        /**
+         * @return The first position in [from, to) whose player ranks after the given one
+         */
+        private int lowerBound(int index, int from, int to) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(order[mid], index) < 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * Sorts every player by merge sort, which needs no boxing.
+         */
+        void sort(int count) {
+            for (int i = 0; i < count; i++) order[i] = i;
+            int[] buffer = new int[count];
+            for (int width = 1; width < count; width *= 2) {
+                for (int low = 0; low < count - width; low += width * 2) {
+                    merge(buffer, low, low + width, Math.min(low + width * 2, count));
+                }
+            }
+        }
+
+        private void merge(int[] buffer, int low, int mid, int high) {
+            if (compare(order[mid - 1], order[mid]) <= 0) return;
+            System.arraycopy(order, low, buffer, low, high - low);
+            int left = low;
+            int right = mid;
+            for (int i = low; i < high; i++) {
+                if (left < mid && (right >= high || compare(buffer[left], buffer[right]) <= 0)) order[i] = buffer[left++];
+                else order[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * One player's place on a leaderboard.
+     */
+    public static final class Entry {
+
+        private final int rank;
+        private final UUID uuid;
+        private final String name;
+        private final long joinDate;
+        private final long playtime;
+
+        Entry(int rank, UUID uuid, String name, long joinDate, long playtime) {
+            this.rank = rank;
+            this.uuid = uuid;
+            this.name = name;
+            this.joinDate = joinDate;
+            this.playtime = playtime;
+        }
+
+        /**
+         * @return The 1-based rank
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        /**
+         * @return The latest username, or null if it isn't known
+         */
+        public String getName() {
+            return name;
+        }
+
+        public long getJoinDate() {
+            return joinDate;
+        }
+
+        public long getPlaytime() {
+            return playtime;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dev.zerek.featherjoindate.listeners;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.commands.SeenTabCompleter;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import java.util.List;
+import java.util.Locale;
+
+public class AsyncTabCompleteListener implements Listener {
+
+    private final FeatherJoinDate plugin;
+    private final SeenTabCompleter completer;
+
+    public AsyncTabCompleteListener(FeatherJoinDate plugin, SeenTabCompleter completer) {
+        this.plugin = plugin;
+        this.completer = completer;
+    }
+
+    /**
+     * Answers /seen completions on Paper's async tab-complete thread, so the main thread never builds them.
+     */
+    @EventHandler
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (!event.isCommand() || event.isHandled()) return;
+        String buffer = event.getBuffer();
+        int space = buffer.indexOf(' ');
+        if (space < 0) return;
+
+        String label = buffer.substring(buffer.startsWith("/") ? 1 : 0, space).toLowerCase(Locale.ROOT);
+        if (!label.equals("seen") && !label.equals(plugin.getName().toLowerCase(Locale.ROOT) + ":seen")) return;
+
+        // Keep the trailing empty argument, which is the one being completed after a space
+        String[] args = buffer.substring(space + 1).split(" ", -1);
+        List<String> suggestions = completer.complete(event.getSender(), args);
+        event.setCompletions(suggestions);
+        event.setHandled(true);
+    }
+}
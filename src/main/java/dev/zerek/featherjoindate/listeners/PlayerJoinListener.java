@@ -24,8 +24,18 @@ public class PlayerJoinListener implements Listener {
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        if (!isVanished(event.getPlayer())) {
-            plugin.getJoinManager().storeJoin(event.getPlayer());
+        long start = System.nanoTime();
+        Player player = event.getPlayer();
+        plugin.getPlayerCacheManager().markOnline(player.getUniqueId());
+        plugin.getPlaytimeManager().startSession(player.getUniqueId());
+
+        if (!isVanished(player)) {
+            // The record is loaded into the cache once the queued join has been written
+            plugin.getJoinQueueManager().enqueue(player);
+        } else if (plugin.getDatabaseManager().isReady()) {
+            // Vanished joins are not recorded, so warm the cache directly; while warming up, online players are loaded once ready
+            plugin.getIoExecutor().tryExecute(() -> plugin.getJoinManager().getPlayerFullData(player.getUniqueId()));
         }
+        plugin.getMetrics().getJoinListenerLatency().recordSince(start);
     }
 }
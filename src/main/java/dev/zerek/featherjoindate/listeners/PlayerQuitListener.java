@@ -0,0 +1,24 @@
+package dev.zerek.featherjoindate.listeners;
+
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerQuitListener implements Listener {
+
+    private final FeatherJoinDate plugin;
+
+    public PlayerQuitListener(FeatherJoinDate plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        long start = System.nanoTime();
+        plugin.getPlayerCacheManager().markOffline(event.getPlayer().getUniqueId());
+        plugin.getPlaytimeManager().endSession(event.getPlayer().getUniqueId());
+        plugin.getMetrics().getQuitListenerLatency().recordSince(start);
+    }
+}
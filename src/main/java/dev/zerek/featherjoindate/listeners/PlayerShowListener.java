@@ -15,7 +15,9 @@ public class PlayerShowListener implements Listener {
 
     @EventHandler
     public void onPlayerShow(PlayerShowEvent event) {
-        plugin.getJoinManager().storeJoin(event.getPlayer());
+        long start = System.nanoTime();
+        plugin.getJoinQueueManager().enqueue(event.getPlayer());
+        plugin.getMetrics().getShowListenerLatency().recordSince(start);
     }
 
 }
@@ -1,156 +1,202 @@
 package dev.zerek.featherjoindate.managers;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import dev.zerek.featherjoindate.FeatherJoinDate;
 import dev.zerek.featherjoindate.configs.JoinDateConfig;
-
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import dev.zerek.featherjoindate.storage.BinaryUuidMigration;
+import dev.zerek.featherjoindate.storage.StorageType;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.logging.Logger;
 
 public class DatabaseManager {
 
-    private final FeatherJoinDate plugin;
-    private final String jdbcUrl;
-    private final String username;
-    private final String password;
+    private final Logger logger;
+    private final DataSource dataSource;
+    private final StorageType storageType;
+    private final PluginMetrics metrics;
+    // Written by the initializing thread and read by every store call
+    private volatile boolean binaryUuids;
+    private volatile boolean ready;
 
     public DatabaseManager(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
-        this.plugin = plugin;
-        this.jdbcUrl = String.format("jdbc:mysql://%s:%d/%s",
-            joinDateConfig.getMysqlHost(),
-            joinDateConfig.getMysqlPort(),
-            joinDateConfig.getMysqlDatabase());
-        this.username = joinDateConfig.getMysqlUsername();
-        this.password = joinDateConfig.getMysqlPassword();
-        this.initMySQLTables();
+        this(plugin.getLogger(), new HikariDataSource(createPoolConfig(plugin, joinDateConfig)),
+                joinDateConfig.getStorageType(), plugin.getMetrics());
     }
 
-    public Connection getConnection() throws SQLException {
-        try {
-            return DriverManager.getConnection(jdbcUrl, username, password);
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to establish database connection: " + e.getMessage());
-            throw e;
-        }
+    /**
+     * Constructs a DatabaseManager over an existing data source, such as an embedded database stand-in,
+     * and prepares the tables before returning.
+     * The data source is closed by {@link #close()} if it is closeable.
+     *
+     * @param logger     The logger to report database errors to
+     * @param dataSource The data source to borrow connections from
+     */
+    public DatabaseManager(Logger logger, DataSource dataSource) {
+        this(logger, dataSource, StorageType.MYSQL, new PluginMetrics());
+        this.initialize();
     }
 
-    private boolean existsTable(String table) {
-        try (Connection connection = this.getConnection()) {
-            ResultSet set = connection.getMetaData().getTables(null, null, table, null);
-            return set.next();
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Unable to query table metadata.");
-            return false;
-        }
+    /**
+     * Constructs a DatabaseManager over an existing data source, recording connection metrics.
+     * No connection is made here; the database can't be used until {@link #initialize()} succeeds.
+     *
+     * @param logger      The logger to report database errors to
+     * @param dataSource  The data source to borrow connections from
+     * @param storageType The kind of database the data source connects to, which decides the table definitions
+     * @param metrics     The metrics to record connection acquisition to
+     */
+    public DatabaseManager(Logger logger, DataSource dataSource, StorageType storageType, PluginMetrics metrics) {
+        this.logger = logger;
+        this.dataSource = dataSource;
+        this.storageType = storageType;
+        this.metrics = metrics;
+        this.registerPoolGauges();
     }
 
-    private boolean columnExists(String table, String column) {
-        try (Connection connection = this.getConnection()) {
-            DatabaseMetaData md = connection.getMetaData();
-            ResultSet rs = md.getColumns(null, null, table, column);
-            return rs.next();
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Unable to check if column exists: " + column);
-            return false;
+    private static HikariConfig createPoolConfig(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
+        HikariConfig poolConfig = new HikariConfig();
+        poolConfig.setPoolName("FeatherJoinDate");
+
+        if (joinDateConfig.getStorageType() == StorageType.SQLITE) {
+            File file = new File(plugin.getDataFolder(), joinDateConfig.getSqliteFile());
+            poolConfig.setDriverClassName("org.sqlite.JDBC");
+            poolConfig.setJdbcUrl("jdbc:sqlite:" + file.getAbsolutePath());
+
+            // WAL lets lookups read while a batch commits; NORMAL sync is durable across crashes in WAL mode
+            poolConfig.addDataSourceProperty("journal_mode", "WAL");
+            poolConfig.addDataSourceProperty("synchronous", "NORMAL");
+            poolConfig.addDataSourceProperty("busy_timeout", "5000");
+            poolConfig.addDataSourceProperty("foreign_keys", "true");
+        } else {
+            poolConfig.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s?rewriteBatchedStatements=true",
+                joinDateConfig.getMysqlHost(),
+                joinDateConfig.getMysqlPort(),
+                joinDateConfig.getMysqlDatabase()));
+            poolConfig.setUsername(joinDateConfig.getMysqlUsername());
+            poolConfig.setPassword(joinDateConfig.getMysqlPassword());
+
+            // Reuse server-side prepared statements across borrows of the same connection
+            poolConfig.addDataSourceProperty("cachePrepStmts", "true");
+            poolConfig.addDataSourceProperty("prepStmtCacheSize", "64");
+            poolConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            poolConfig.addDataSourceProperty("useServerPrepStmts", "true");
         }
+
+        poolConfig.setMinimumIdle(joinDateConfig.getPoolMinimumIdle());
+        poolConfig.setMaximumPoolSize(Math.max(1, joinDateConfig.getPoolMaximumSize()));
+        poolConfig.setIdleTimeout(joinDateConfig.getPoolIdleTimeoutMillis());
+        poolConfig.setMaxLifetime(joinDateConfig.getPoolMaxLifetimeMillis());
+        poolConfig.setConnectionTimeout(joinDateConfig.getPoolConnectionTimeoutMillis());
+        poolConfig.setValidationTimeout(joinDateConfig.getPoolValidationTimeoutMillis());
+        poolConfig.setLeakDetectionThreshold(joinDateConfig.getPoolLeakDetectionThresholdMillis());
+
+        // Don't connect while the pool is built; the database is first reached by initialize() off the main thread
+        poolConfig.setInitializationFailTimeout(-1);
+        return poolConfig;
     }
 
-    private boolean uniqueConstraintExists(String table, String constraintName) {
-        try (Connection connection = this.getConnection()) {
-            DatabaseMetaData md = connection.getMetaData();
-            ResultSet rs = md.getIndexInfo(null, null, table, true, false);
-            while (rs.next()) {
-                if (constraintName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
-                    return true;
-                }
-            }
-            return false;
+    /**
+     * Borrows a connection from the pool. Closing the connection returns it to the pool.
+     * Connections idle for longer than a moment are validated before being handed out.
+     *
+     * @return A pooled database connection
+     * @throws SQLException If no valid connection could be obtained within the connection timeout
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return dataSource.getConnection();
         } catch (SQLException e) {
-            plugin.getLogger().severe("Unable to check if unique constraint exists: " + constraintName);
-            return false;
+            metrics.getConnectionFailures().increment();
+            logger.severe("Failed to establish database connection: " + e.getMessage());
+            throw e;
+        } finally {
+            metrics.getConnectionAcquireLatency().recordSince(start);
         }
     }
 
-    private boolean foreignKeyExists(String table, String constraintName) {
+    private void registerPoolGauges() {
+        metrics.registerGauge("database_ready", "1 once the tables have been prepared, 0 while warming up", false, () -> ready ? 1 : 0);
+        if (!(dataSource instanceof HikariDataSource)) return;
+        HikariDataSource pool = (HikariDataSource) dataSource;
+        metrics.registerGauge("pool_active_connections", "Connections currently borrowed from the pool", false, () -> {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            return bean != null ? bean.getActiveConnections() : 0;
+        });
+        metrics.registerGauge("pool_idle_connections", "Connections idle in the pool", false, () -> {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            return bean != null ? bean.getIdleConnections() : 0;
+        });
+        metrics.registerGauge("pool_pending_threads", "Threads waiting for a connection from the pool", false, () -> {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            return bean != null ? bean.getThreadsAwaitingConnection() : 0;
+        });
+    }
+
+    /**
+     * Creates or updates the tables on a single connection, then checks which UUID layout they use.
+     * This blocks until the database answers, so the plugin calls it off the main thread.
+     * Tables left in different layouts by an interrupted UUID migration can't be used either way,
+     * so the database stays unready until a retry finishes the migration.
+     *
+     * @return true if the database is ready, false if it couldn't be reached and this should be retried
+     */
+    public synchronized boolean initialize() {
+        if (ready) return true;
         try (Connection connection = this.getConnection()) {
-            DatabaseMetaData md = connection.getMetaData();
-            ResultSet rs = md.getImportedKeys(null, null, table);
-            while (rs.next()) {
-                String fkName = rs.getString("FK_NAME");
-                if (fkName != null && fkName.equalsIgnoreCase(constraintName)) {
-                    return true;
-                }
+            new SchemaManager(logger, storageType).migrate(connection);
+            boolean binaryJoins = BinaryUuidMigration.isBinaryColumn(connection, "joins", "mojang_uuid");
+            boolean binaryUsernames = BinaryUuidMigration.isBinaryColumn(connection, "usernames", "mojang_uuid");
+            if (binaryJoins != binaryUsernames) {
+                logger.severe("The UUID migration converted only one of the joins and usernames tables; " +
+                        "it will be retried before any joins are read or written.");
+                return false;
             }
-            return false;
+            binaryUuids = binaryJoins;
+            ready = true;
         } catch (SQLException e) {
-            plugin.getLogger().severe("Unable to check if foreign key exists: " + constraintName);
-            return false;
+            logger.severe("Failed to prepare database tables: " + e.getMessage());
         }
+        return ready;
     }
 
-    private void createTableIfNotExists(String table, String primaryColumn, String primaryColumnDefinition) {
-        if (!existsTable(table)) {
-            String query = String.format("CREATE TABLE IF NOT EXISTS `%s` (`%s` %s)", table, primaryColumn, primaryColumnDefinition);
-            try (Connection connection = this.getConnection()) {
-                connection.createStatement().execute(query);
-                plugin.getLogger().info(String.format("Created table '%s' with primary key '%s'", table, primaryColumn));
-            } catch (SQLException e) {
-                plugin.getLogger().severe(String.format("Failed to create base `%s` table.", table));
-            }
-        }
+    /**
+     * @return true once {@link #initialize()} has succeeded and joins can be read and written
+     */
+    public boolean isReady() {
+        return ready;
     }
 
-    private void addColumnIfNotExists(String table, String column, String columnDefinition) {
-        if (!columnExists(table, column)) {
-            try (Connection connection = this.getConnection()) {
-                String query = String.format("ALTER TABLE `%s` ADD COLUMN `%s` %s", table, column, columnDefinition);
-                connection.createStatement().execute(query);
-                plugin.getLogger().info(String.format("Added column '%s' to table '%s'", column, table));
-            } catch (SQLException e) {
-                plugin.getLogger().severe(String.format("Failed to add column '%s' to table '%s'", column, table));
-            }
-        }
+    public StorageType getStorageType() {
+        return storageType;
     }
 
-    private void addUniqueConstraintIfNotExists(String table, String constraintName, String... columns) {
-        if (!uniqueConstraintExists(table, constraintName)) {
-            try (Connection connection = this.getConnection()) {
-                String columnList = String.join("`, `", columns);
-                String query = String.format("ALTER TABLE `%s` ADD UNIQUE INDEX `%s` (`%s`)", table, constraintName, columnList);
-                connection.createStatement().execute(query);
-                plugin.getLogger().info(String.format("Added unique constraint '%s' to table '%s'", constraintName, table));
-            } catch (SQLException e) {
-                plugin.getLogger().severe(String.format("Failed to add unique constraint '%s' to table '%s': %s", constraintName, table, e.getMessage()));
-            }
-        }
+    /**
+     * @return true if mojang_uuid columns hold 16 raw bytes, false if they still hold UUID text
+     */
+    public boolean hasBinaryUuids() {
+        return binaryUuids;
     }
 
-    private void addForeignKeyIfNotExists(String table, String constraintName, String column, String refTable, String refColumn) {
-        if (!foreignKeyExists(table, constraintName)) {
-            try (Connection connection = this.getConnection()) {
-                String query = String.format("ALTER TABLE `%s` ADD CONSTRAINT `%s` FOREIGN KEY (`%s`) REFERENCES `%s`(`%s`)", 
-                    table, constraintName, column, refTable, refColumn);
-                connection.createStatement().execute(query);
-                plugin.getLogger().info(String.format("Added foreign key '%s' to table '%s'", constraintName, table));
-            } catch (SQLException e) {
-                plugin.getLogger().severe(String.format("Failed to add foreign key '%s' to table '%s': %s", constraintName, table, e.getMessage()));
+    /**
+     * Closes the pool and every connection in it.
+     */
+    public void close() {
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                logger.warning("Failed to close database connection pool: " + e.getMessage());
             }
         }
     }
-
-    private void initMySQLTables() {
-        // Create joins Table
-        createTableIfNotExists("joins", "mojang_uuid", "VARCHAR(64) PRIMARY KEY");
-        addColumnIfNotExists("joins", "last_login", "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP");
-        addColumnIfNotExists("joins", "joindate", "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP");
-
-        // Create usernames Table
-        createTableIfNotExists("usernames", "id", "INT AUTO_INCREMENT PRIMARY KEY");
-        addColumnIfNotExists("usernames", "mojang_uuid", "VARCHAR(64)");
-        addColumnIfNotExists("usernames", "username", "VARCHAR(32)");
-        addForeignKeyIfNotExists("usernames", "fk_usernames_mojang_uuid", "mojang_uuid", "joins", "mojang_uuid");
-        addUniqueConstraintIfNotExists("usernames", "unique_uuid_username", "mojang_uuid", "username");
-    }
 }
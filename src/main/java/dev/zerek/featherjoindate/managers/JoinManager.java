@@ -1,19 +1,37 @@
 package dev.zerek.featherjoindate.managers;
 
 import dev.zerek.featherjoindate.FeatherJoinDate;
-import org.bukkit.OfflinePlayer;
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.PlaytimeDelta;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import dev.zerek.featherjoindate.storage.JoinStore;
+import dev.zerek.featherjoindate.storage.MySQLJoinStore;
+import dev.zerek.featherjoindate.storage.SQLiteJoinStore;
+import dev.zerek.featherjoindate.storage.StorageType;
 
-import java.sql.*;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Level;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
 
 public class JoinManager {
 
-    private final FeatherJoinDate plugin;
+    private final Logger logger;
+    private final JoinStore joinStore;
+    private final PlayerCacheManager playerCacheManager;
+    private final PluginMetrics metrics;
+    // In-memory views kept current with every write
+    private final List<JoinWriteListener> listeners;
 
     /**
      * Constructs a new JoinManager.
@@ -21,109 +39,317 @@ public class JoinManager {
      * @param plugin The main plugin instance
      */
     public JoinManager(FeatherJoinDate plugin) {
-        this.plugin = plugin;
+        this(plugin.getLogger(), createJoinStore(plugin.getDatabaseManager()), plugin.getPlayerCacheManager(), plugin.getMetrics(),
+                Arrays.asList(plugin.getLeaderboardManager(), plugin.getUsernameIndexManager(), plugin.getNameSearchManager()));
+    }
+
+    /**
+     * Constructs a new JoinManager from its collaborators.
+     *
+     * @param logger             The logger to report database errors to
+     * @param databaseManager    The database to read and write joins
+     * @param playerCacheManager The cache to read through and keep current
+     */
+    public JoinManager(Logger logger, DatabaseManager databaseManager, PlayerCacheManager playerCacheManager) {
+        this(logger, createJoinStore(databaseManager), playerCacheManager, new PluginMetrics());
+    }
+
+    /**
+     * Constructs a new JoinManager from its collaborators, recording lookup and write metrics.
+     *
+     * @param logger             The logger to report database errors to
+     * @param joinStore          The backend to read and write joins
+     * @param playerCacheManager The cache to read through and keep current
+     * @param metrics            The metrics to record to
+     */
+    public JoinManager(Logger logger, JoinStore joinStore, PlayerCacheManager playerCacheManager, PluginMetrics metrics) {
+        this(logger, joinStore, playerCacheManager, metrics, Collections.emptyList());
+    }
+
+    /**
+     * Constructs a new JoinManager from its collaborators, keeping in-memory views current with every write.
+     *
+     * @param logger             The logger to report database errors to
+     * @param joinStore          The backend to read and write joins
+     * @param playerCacheManager The cache to read through and keep current
+     * @param metrics            The metrics to record to
+     * @param listeners          The views to keep current, such as leaderboards
+     */
+    public JoinManager(Logger logger, JoinStore joinStore, PlayerCacheManager playerCacheManager, PluginMetrics metrics,
+                       List<? extends JoinWriteListener> listeners) {
+        this.logger = logger;
+        this.joinStore = joinStore;
+        this.playerCacheManager = playerCacheManager;
+        this.metrics = metrics;
+        this.listeners = new ArrayList<>(listeners);
+    }
+
+    /**
+     * Creates the backend matching the database's storage type.
+     */
+    public static JoinStore createJoinStore(DatabaseManager databaseManager) {
+        if (databaseManager.getStorageType() == StorageType.SQLITE) return new SQLiteJoinStore(databaseManager);
+        return new MySQLJoinStore(databaseManager);
     }
 
     // === Data Storage ===
 
     /**
-     * Stores or updates a player's join information in the database using a transaction.
-     * - Updates last_login if player exists, creates new entry if they don't
-     * - Stores username if it's not already stored
+     * Stores or updates a batch of player joins in the database using a single transaction.
+     * - Creates new entries with the join time as joindate, updates last_login for existing players
+     * - Stores usernames that are not already stored
      *
-     * @param offlinePlayer The player whose join information to store
+     * @param joins The joins to store, at most one per UUID
+     * @return true if the batch was committed, false if it was rolled back
      */
-    public void storeJoin(OfflinePlayer offlinePlayer) {
-        String uuid = offlinePlayer.getUniqueId().toString();
-        String username = offlinePlayer.getName();
-        
-        if (username == null) {
-            plugin.getLogger().warning("Cannot store join for player with null username");
-            return;
+    public boolean storeJoins(Collection<JoinEvent> joins) {
+        if (joins.isEmpty()) return true;
+
+        long start = System.nanoTime();
+        List<UUID> uuids = new ArrayList<>(joins.size());
+        joins.forEach(join -> uuids.add(join.getUuid()));
+        List<UUID> uncached;
+        playerCacheManager.beginWrite(uuids);
+        try {
+            joinStore.storeJoins(joins);
+            metrics.getStoredJoins().add(joins.size());
+            listeners.forEach(listener -> listener.joinsWritten(joins));
+
+            // Keep cached records current
+            uncached = playerCacheManager.applyJoins(joins);
+        } catch (SQLException e) {
+            metrics.getStoreJoinsFailures().increment();
+            logger.severe(String.format("Error storing join data for %d players: %s", joins.size(), e.getMessage()));
+            return false;
+        } finally {
+            playerCacheManager.finishWrite(uuids);
+            metrics.getStoreJoinsLatency().recordSince(start);
         }
 
-        try (Connection conn = plugin.getDatabaseManager().getConnection()) {
-           conn.setAutoCommit(false);
-           
+        // Pre-warm online players that aren't cached yet, now that the write can't race the load
+        if (!uncached.isEmpty()) loadRecords(uncached);
+        return true;
+    }
+
+    /**
+     * Bulk loads the history of players from before they were recorded, then drops them from the cache
+     * so their next lookup sees the imported dates.
+     *
+     * @param history What other sources know about the players, at most one entry per UUID
+     * @return true if the history was committed, false if it was rolled back
+     */
+    public boolean importHistory(Collection<HistoricalJoin> history) {
+        try {
+            joinStore.importHistory(history);
+        } catch (SQLException e) {
+            logger.severe(String.format("Error importing join history for %d players: %s", history.size(), e.getMessage()));
+            return false;
+        }
+        history.forEach(join -> playerCacheManager.invalidate(join.getUuid()));
+        return true;
+    }
+
+    /**
+     * Adds measured playtime to players' stored totals, and to their cached records once written.
+     * Players without a stored join yet are left out, and nothing is applied for them.
+     *
+     * @param deltas The playtime to add per player
+     * @return The stored playtime in milliseconds after the write of the players whose playtime was added,
+     *         leaving out those with no stored join yet, or null if the batch was rolled back and nothing was added
+     */
+    public Map<UUID, Long> addPlaytime(Map<UUID, PlaytimeDelta> deltas) {
+        if (deltas.isEmpty()) return new HashMap<>();
+        Map<UUID, Long> totals;
+        playerCacheManager.beginWrite(deltas.keySet());
+        try {
             try {
-                // Update last_login for existing player or insert new player
-                try (PreparedStatement stmt = conn.prepareStatement(
-                        "INSERT INTO joins (mojang_uuid, last_login) VALUES (?, CURRENT_TIMESTAMP) " +
-                        "ON DUPLICATE KEY UPDATE last_login = CURRENT_TIMESTAMP")) {
-                stmt.setString(1, uuid);
-                stmt.executeUpdate();
-                }
-                
-                // Insert username, unique constraint will prevent duplicates
-                try (PreparedStatement stmt = conn.prepareStatement(
-                        "INSERT IGNORE INTO usernames (mojang_uuid, username) VALUES (?, ?)")) {
-                    stmt.setString(1, uuid);
-                    stmt.setString(2, username);
-                    stmt.executeUpdate();
-                }
-
-                conn.commit();
+                totals = joinStore.addPlaytime(deltas);
             } catch (SQLException e) {
-                conn.rollback();
-                throw e;
+                logger.severe(String.format("Error storing playtime for %d players: %s", deltas.size(), e.getMessage()));
+                return null;
             }
+            if (!totals.isEmpty()) {
+                Map<UUID, PlaytimeDelta> written = new HashMap<>(deltas);
+                written.keySet().retainAll(totals.keySet());
+                playerCacheManager.applyPlaytime(written);
+                listeners.forEach(listener -> listener.playtimeWritten(totals));
+            }
+            return totals;
+        } finally {
+            playerCacheManager.finishWrite(deltas.keySet());
+        }
+    }
+
+    // === Changes From Elsewhere ===
+
+    /**
+     * Applies joins another server has written to cached records and in-memory views. Nothing is written.
+     *
+     * @param joins The joins the other server wrote
+     */
+    public void applyRemoteJoins(Collection<JoinEvent> joins) {
+        if (joins.isEmpty()) return;
+        List<UUID> uuids = new ArrayList<>(joins.size());
+        joins.forEach(join -> uuids.add(join.getUuid()));
+        // Before applying, so a load that read the record before the other server's write doesn't cache it after
+        playerCacheManager.markWritten(uuids);
+        playerCacheManager.applyJoins(joins);
+        listeners.forEach(listener -> listener.joinsWritten(joins));
+    }
+
+    /**
+     * Applies playtime another server has written. Cached records are dropped and reloaded when next looked up,
+     * since a record loaded after the write already includes it. Nothing is written.
+     *
+     * @param totals The stored playtime in milliseconds after the other server's write, per player
+     */
+    public void applyRemotePlaytime(Map<UUID, Long> totals) {
+        if (totals.isEmpty()) return;
+        totals.keySet().forEach(playerCacheManager::invalidate);
+        listeners.forEach(listener -> listener.playtimeWritten(totals));
+    }
+
+    /**
+     * Reloads every in-memory view from the database. Called once the database is ready, and after bulk imports
+     * and restores. Blocks, so run it off the main thread.
+     *
+     * @return true if every view was loaded
+     */
+    public boolean reloadViews() {
+        boolean loaded = true;
+        for (JoinWriteListener listener : listeners) {
+            loaded &= listener.reload(this);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops every cached record and reloads every view, after another server's bulk import or restore.
+     */
+    public void invalidateAll() {
+        playerCacheManager.invalidateAll();
+        reloadViews();
+    }
+
+    /**
+     * Writes complete records, such as from an export, then drops those players from the cache.
+     *
+     * @param records The records to write
+     * @return true if the records were committed, false if they were rolled back
+     */
+    public boolean restoreRecords(Map<UUID, PlayerJoinRecord> records) {
+        try {
+            joinStore.restoreRecords(records);
         } catch (SQLException e) {
-            plugin.getLogger().severe("Error storing join data: " + e.getMessage());
+            logger.severe(String.format("Error restoring records for %d players: %s", records.size(), e.getMessage()));
+            return false;
         }
+        records.keySet().forEach(playerCacheManager::invalidate);
+        return true;
     }
 
     // === Data Retrieval ===
 
     /**
-     * Retrieves all player data in a single database query.
-     *
-     * @param offlinePlayer The player whose data to retrieve
-     * @return A Map containing join date, last login, and previous usernames
-     */
-    public Map<String, Object> getPlayerFullData(OfflinePlayer offlinePlayer) {
-        Map<String, Object> playerData = new HashMap<>();
-        
-        String query = "SELECT j.joindate, j.last_login, " +
-                      "(SELECT GROUP_CONCAT(u.username) FROM usernames u " +
-                      "WHERE u.mojang_uuid = j.mojang_uuid AND u.username != ?) AS previous_usernames " +
-                      "FROM joins j WHERE j.mojang_uuid = ?";
-                      
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            String currentUsername = offlinePlayer.getName();
-            String uuid = offlinePlayer.getUniqueId().toString();
-            
-            stmt.setString(1, currentUsername);
-            stmt.setString(2, uuid);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Timestamp joinDate = rs.getTimestamp("joindate");
-                    Timestamp lastLogin = rs.getTimestamp("last_login");
-                    
-                    playerData.put("exists", true);
-                    playerData.put("joinDate", joinDate != null ? joinDate.getTime() : 0L);
-                    playerData.put("lastLogin", lastLogin != null ? lastLogin.getTime() : 0L);
-                    
-                    String previousUsernamesStr = rs.getString("previous_usernames");
-                    List<String> previousUsernames = new ArrayList<>();
-                    if (previousUsernamesStr != null && !previousUsernamesStr.isEmpty()) {
-                        previousUsernames = Arrays.asList(previousUsernamesStr.split(","));
-                    }
-                    playerData.put("previousUsernames", previousUsernames);
-                }
-            }
+     * Streams every stored record to a sink, bypassing the cache. Blocks until the whole table has been read.
+     *
+     * @param sink Receives each record
+     * @return The number of records streamed, or -1 if the database could not be read
+     * @throws IOException If the sink failed
+     */
+    public long exportRecords(JoinStore.RecordSink sink) throws IOException {
+        try {
+            return joinStore.exportRecords(sink);
+        } catch (SQLException e) {
+            logger.severe("Error exporting player records: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Streams every stored username to a sink, bypassing the cache. Blocks until the whole table has been read.
+     *
+     * @param sink Receives each username
+     * @return The number of usernames streamed, or -1 if the database could not be read
+     */
+    public long exportUsernames(Consumer<String> sink) {
+        try {
+            return joinStore.exportUsernames(sink);
+        } catch (SQLException e) {
+            logger.severe("Error exporting usernames: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * @return The number of players with a stored join, or 0 if the database could not be read
+     */
+    public long countPlayers() {
+        try {
+            return joinStore.countPlayers();
+        } catch (SQLException e) {
+            logger.severe("Error counting players: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Retrieves all of a player's join data, from the cache if possible.
+     * On a cache miss the record is loaded in a single query and cached.
+     *
+     * @param uuid The player's UUID
+     * @return The player's record, or {@link PlayerJoinRecord#ABSENT} if they have never joined or the lookup failed
+     */
+    public PlayerJoinRecord getPlayerFullData(UUID uuid) {
+        return getPlayerFullData(Collections.singletonList(uuid)).getOrDefault(uuid, PlayerJoinRecord.ABSENT);
+    }
+
+    /**
+     * Retrieves the join data of many players. Cached players are served from the cache,
+     * and the rest are loaded in chunked queries over one connection and cached.
+     *
+     * @param uuids The players' UUIDs
+     * @return A Map of UUID to record; players that have never joined are absent
+     */
+    public Map<UUID, PlayerJoinRecord> getPlayerFullData(Collection<UUID> uuids) {
+        long start = System.nanoTime();
+        try {
+            return loadPlayerFullData(uuids);
+        } finally {
+            metrics.getPlayerFullDataLatency().recordSince(start);
+        }
+    }
+
+    private Map<UUID, PlayerJoinRecord> loadPlayerFullData(Collection<UUID> uuids) {
+        Map<UUID, PlayerJoinRecord> records = new HashMap<>();
+        List<UUID> uncached = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            PlayerJoinRecord record = playerCacheManager.get(uuid);
+            if (record != null) records.put(uuid, record);
+            else uncached.add(uuid);
+        }
+        if (uncached.isEmpty()) return records;
+
+        records.putAll(loadRecords(uncached));
+        return records;
+    }
+
+    /**
+     * Loads records from the database and caches them, except those of players written while they were read.
+     *
+     * @return The records loaded, or an empty Map if the lookup failed
+     */
+    private Map<UUID, PlayerJoinRecord> loadRecords(List<UUID> uuids) {
+        Map<UUID, PlayerJoinRecord> loaded = Collections.emptyMap();
+        long generation = playerCacheManager.beginLoad();
+        try {
+            loaded = joinStore.loadPlayerRecords(uuids);
         } catch (SQLException e) {
-            plugin.getLogger().severe("Error getting player full data: " + e.getMessage());
+            logger.severe("Error getting player full data: " + e.getMessage());
         } finally {
-            // Set default values if they weren't set in the try block
-            playerData.putIfAbsent("exists", false);
-            playerData.putIfAbsent("joinDate", 0L);
-            playerData.putIfAbsent("lastLogin", 0L);
-            playerData.putIfAbsent("previousUsernames", new ArrayList<String>());
+            playerCacheManager.finishLoad(loaded, generation);
         }
-        return playerData;
+        return loaded;
     }
 
     /**
@@ -133,20 +359,34 @@ public class JoinManager {
      * @return A List of String containing all UUIDs that have used this username
      */
     public List<String> getUsernameUUIDs(String username) {
-        List<String> uuids = new ArrayList<>();
-        String query = "SELECT mojang_uuid FROM usernames WHERE username = ?";
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, username);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    uuids.add(rs.getString("mojang_uuid"));
-                }
-            }
+        long start = System.nanoTime();
+        try {
+            return joinStore.findUUIDs(username);
+        } catch (SQLException e) {
+            logger.severe("Error getting username UUIDs: " + e.getMessage());
+            return new ArrayList<>();
+        } finally {
+            metrics.getUsernameLookupLatency().recordSince(start);
+        }
+    }
+
+    /**
+     * Retrieves the UUIDs associated with each of several usernames, one query per chunk of usernames.
+     * Usernames are matched ignoring case.
+     *
+     * @param usernames The usernames to look up
+     * @return A Map of each requested username to the UUIDs that have used it; unused usernames are absent
+     */
+    public Map<String, List<String>> getUsernameUUIDs(Collection<String> usernames) {
+        long start = System.nanoTime();
+        try {
+            return joinStore.findUUIDs(usernames);
         } catch (SQLException e) {
-            plugin.getLogger().severe("Error getting username UUIDs: " + e.getMessage());
+            logger.severe("Error getting username UUIDs: " + e.getMessage());
+            return new HashMap<>();
+        } finally {
+            metrics.getUsernameLookupLatency().recordSince(start);
         }
-        return uuids;
     }
 
     /**
@@ -156,23 +396,26 @@ public class JoinManager {
      * @return The most recent username, or null if not found
      */
     public String getMostRecentUsernameForUUID(String uuid) {
-        String username = null;
-        String query = "SELECT username FROM usernames WHERE mojang_uuid = ? " +
-                      "ORDER BY id DESC LIMIT 1";
-                      
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setString(1, uuid);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    username = rs.getString("username");
-                }
-            }
+        try {
+            return joinStore.findLatestUsername(uuid);
+        } catch (SQLException e) {
+            logger.severe("Error getting username for UUID: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the most recent username for each of several UUIDs, one query per chunk of UUIDs.
+     *
+     * @param uuids The UUIDs to look up
+     * @return A Map of UUID to most recent username; UUIDs with no stored username are absent
+     */
+    public Map<String, String> getMostRecentUsernamesForUUIDs(Collection<String> uuids) {
+        try {
+            return joinStore.findLatestUsernames(uuids);
         } catch (SQLException e) {
-            plugin.getLogger().severe("Error getting username for UUID: " + e.getMessage());
+            logger.severe("Error getting usernames for UUIDs: " + e.getMessage());
+            return new HashMap<>();
         }
-        return username;
     }
 }
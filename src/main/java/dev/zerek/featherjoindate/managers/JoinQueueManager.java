@@ -0,0 +1,304 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.configs.JoinDateConfig;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.storage.JoinJournal;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class JoinQueueManager {
+
+    // The journal is rewritten down to the pending joins once it grows past this
+    private static final long JOURNAL_COMPACT_BYTES = 1024 * 1024;
+
+    private final FeatherJoinDate plugin;
+    private final int maxBatchSize;
+    private final int capacity;
+    private final JoinJournal journal;
+
+    // Pending joins keyed by UUID so repeat joins inside one flush window merge into a single write,
+    // keeping the first join time and every name used
+    private final Map<UUID, JoinEvent> pending = new LinkedHashMap<>();
+    // Joins written by their own task because the queue was full; kept in the journal until written
+    private final Set<JoinEvent> overflowing = ConcurrentHashMap.newKeySet();
+    // Guarded by pending; how many joins per player have left the queue but aren't committed yet,
+    // whether drained into a batch or written on their own
+    private final Map<UUID, Integer> writing = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final BukkitTask flushTask;
+
+    /**
+     * Constructs a new JoinQueueManager and starts the periodic asynchronous flush.
+     * Joins left in the journal by a crash or an outage are queued again, to be written once the database is ready.
+     *
+     * @param plugin         The main plugin instance
+     * @param joinDateConfig The plugin configuration
+     */
+    public JoinQueueManager(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
+        this.plugin = plugin;
+        this.maxBatchSize = Math.max(1, joinDateConfig.getJoinQueueMaxBatchSize());
+        this.capacity = Math.max(this.maxBatchSize, joinDateConfig.getJoinQueueCapacity());
+        this.journal = joinDateConfig.isJoinQueueJournalEnabled() ? openJournal() : null;
+        long interval = Math.max(1, joinDateConfig.getJoinQueueFlushIntervalTicks());
+        this.flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
+    }
+
+    private JoinJournal openJournal() {
+        try {
+            JoinJournal opened = new JoinJournal(plugin.getLogger(), new File(plugin.getDataFolder(), "journal"));
+            List<JoinEvent> recovered = opened.replay();
+            for (JoinEvent join : recovered) {
+                pending.merge(join.getUuid(), join, JoinEvent::merge);
+            }
+            if (!recovered.isEmpty()) {
+                plugin.getLogger().info(String.format("Recovered %d joins from the journal.", recovered.size()));
+            }
+            return opened;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Unable to open the join journal, queued joins will not survive a crash: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // === Queueing ===
+
+    /**
+     * Queues a player's join to be written by the next flush.
+     * Safe to call from the main thread; no database work is done here.
+     * If the queue is at capacity the join is written by its own async task instead,
+     * unless the database is still warming up, in which case every join is held until it is ready.
+     * The join is then appended to the journal, so it survives a crash before it is written. The append is one
+     * write into the OS page cache, never forced to disk here, and is made outside the queue's lock, so the main
+     * thread never waits on a flush; JoinJournalBenchmark measures it while a flush syncs and compacts.
+     *
+     * @param offlinePlayer The player whose join to record
+     */
+    public void enqueue(OfflinePlayer offlinePlayer) {
+        String username = offlinePlayer.getName();
+
+        if (username == null) {
+            plugin.getLogger().warning("Cannot store join for player with null username");
+            return;
+        }
+
+        JoinEvent join = new JoinEvent(offlinePlayer.getUniqueId(), username, System.currentTimeMillis());
+        boolean ready = plugin.getDatabaseManager().isReady();
+        boolean accepted;
+        boolean batchFull;
+
+        synchronized (pending) {
+            accepted = !ready || pending.size() < capacity || pending.containsKey(join.getUuid());
+            if (accepted) {
+                pending.merge(join.getUuid(), join, JoinEvent::merge);
+            } else {
+                overflowing.add(join);
+                startWriting(Collections.singletonList(join));
+            }
+            batchFull = pending.size() >= maxBatchSize;
+        }
+        // Journaled after it is queued, so a compaction that misses it in the queue leaves it in a newer segment
+        journal(join);
+
+        if (!accepted) {
+            boolean started = plugin.getIoExecutor().tryExecute(() -> {
+                if (plugin.getJoinManager().storeJoins(Collections.singletonList(join))) {
+                    plugin.getSyncManager().publishJoins(Collections.singletonList(join));
+                } else {
+                    requeue(Collections.singletonList(join));
+                }
+                overflowing.remove(join);
+                finishWriting(Collections.singletonList(join));
+            });
+            // With no I/O thread free, the join waits for the next flush instead
+            if (!started) {
+                requeue(Collections.singletonList(join));
+                overflowing.remove(join);
+                finishWriting(Collections.singletonList(join));
+            }
+        }
+        if (batchFull && ready) requestFlush();
+    }
+
+    private void journal(JoinEvent join) {
+        if (journal == null) return;
+        try {
+            journal.append(join);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Unable to journal join: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if a join for the player is waiting to be written or being written
+     */
+    public boolean isPending(UUID uuid) {
+        synchronized (pending) {
+            return pending.containsKey(uuid) || writing.containsKey(uuid);
+        }
+    }
+
+    // Called with the pending lock held
+    private void startWriting(List<JoinEvent> joins) {
+        for (JoinEvent join : joins) writing.merge(join.getUuid(), 1, Integer::sum);
+    }
+
+    private void finishWriting(List<JoinEvent> joins) {
+        synchronized (pending) {
+            for (JoinEvent join : joins) writing.computeIfPresent(join.getUuid(), (uuid, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * @return The number of joins waiting to be written
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    // === Flushing ===
+
+    /**
+     * Writes all pending joins to the database in batches of at most max-batch-size.
+     * Batches that fail to write are put back in the queue for the next flush.
+     * Nothing is written until the database is ready, but the journal is still synced and compacted.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            syncJournal();
+            if (plugin.getDatabaseManager().isReady()) writePending();
+            compactJournal();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writePending() {
+        List<JoinEvent> batch;
+        while (!(batch = drain()).isEmpty()) {
+            boolean stored = plugin.getJoinManager().storeJoins(batch);
+            // Requeued before it stops counting as being written, so the player never looks joinless in between
+            if (!stored) requeue(batch);
+            finishWriting(batch);
+            if (!stored) return;
+            plugin.getSyncManager().publishJoins(batch);
+        }
+    }
+
+    /**
+     * @return The bytes held in the journal, or 0 if it is disabled
+     */
+    public long getJournalSize() {
+        return journal != null ? journal.getSize() : 0;
+    }
+
+    private void syncJournal() {
+        if (journal == null) return;
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Unable to sync join journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops written joins from the journal: all of it once the queue is empty,
+     * or everything but the pending joins once it has grown large.
+     */
+    private void compactJournal() {
+        if (journal == null || journal.getSize() == 0) return;
+        try {
+            synchronized (pending) {
+                if (!pending.isEmpty() && journal.getSize() < JOURNAL_COMPACT_BYTES) return;
+            }
+            // Rotate before reading the queue: joins are queued before they are journaled, so every join in the
+            // rotated segments is then either read here or already written
+            long compactedSequence = journal.rotate();
+            Collection<JoinEvent> live;
+            synchronized (pending) {
+                live = new ArrayList<>(pending.values());
+                live.addAll(overflowing);
+            }
+            journal.compact(compactedSequence, live);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Unable to compact join journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes everything still queued.
+     * Called from onDisable so no joins are lost at shutdown.
+     */
+    public void shutdown() {
+        flushTask.cancel();
+        flush();
+
+        int remaining = getPendingCount();
+        if (remaining > 0 && journal != null) {
+            plugin.getLogger().warning(String.format("Unable to write %d queued joins before shutdown, they are kept in the journal.", remaining));
+        } else if (remaining > 0) {
+            plugin.getLogger().severe(String.format("Unable to write %d queued joins before shutdown.", remaining));
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Unable to close join journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            boolean started = plugin.getIoExecutor().tryExecute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+            // The timer flushes the batch instead
+            if (!started) flushRequested.set(false);
+        }
+    }
+
+    private List<JoinEvent> drain() {
+        synchronized (pending) {
+            List<JoinEvent> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+            Iterator<JoinEvent> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < maxBatchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            startWriting(batch);
+            return batch;
+        }
+    }
+
+    private void requeue(List<JoinEvent> batch) {
+        synchronized (pending) {
+            // Merged with any join queued while this batch was in flight, which is newer but not the first
+            for (JoinEvent join : batch) {
+                pending.merge(join.getUuid(), join, JoinEvent::merge);
+            }
+        }
+    }
+}
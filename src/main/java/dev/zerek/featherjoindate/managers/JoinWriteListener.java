@@ -0,0 +1,33 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An in-memory view of the stored players that {@link JoinManager} keeps current: it is told about every join
+ * and playtime write, whether made by this server or read from another, and reloaded after bulk changes.
+ */
+public interface JoinWriteListener {
+
+    /**
+     * Called once the database has been read, and after imports and restores, which change too many players
+     * to follow one at a time. Blocks, so it is only called off the main thread.
+     *
+     * @param joinManager The database to read players from
+     * @return true if the view was loaded, false if the database could not be read
+     */
+    boolean reload(JoinManager joinManager);
+
+    /**
+     * @param joins Joins that have just been written
+     */
+    void joinsWritten(Collection<JoinEvent> joins);
+
+    /**
+     * @param totals The stored playtime in milliseconds of players whose playtime has just been written
+     */
+    void playtimeWritten(Map<UUID, Long> totals);
+}
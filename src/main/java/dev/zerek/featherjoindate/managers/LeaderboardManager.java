@@ -0,0 +1,132 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.leaderboard.LeaderboardType;
+import dev.zerek.featherjoindate.leaderboard.RankedPlayers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+public class LeaderboardManager implements JoinWriteListener {
+
+    private final Logger logger;
+    private final Object loadLock = new Object();
+
+    // Guarded by this; replaced whole by each load
+    private RankedPlayers players = new RankedPlayers();
+    private boolean loaded;
+    // Writes made while a load is reading the table, replayed onto the new ranking; null when not loading
+    private List<Consumer<RankedPlayers>> replay;
+
+    /**
+     * Constructs a new LeaderboardManager. Nothing is ranked until {@link #load(JoinManager)} is called.
+     *
+     * @param logger The logger to report loads to
+     */
+    public LeaderboardManager(Logger logger) {
+        this.logger = logger;
+    }
+
+    // === Loading ===
+
+    /**
+     * Ranks every stored player, replacing the current ranking once done.
+     * The current ranking keeps serving pages while the table is read.
+     */
+    @Override
+    public boolean reload(JoinManager joinManager) {
+        synchronized (loadLock) {
+            long start = System.nanoTime();
+            RankedPlayers loading = new RankedPlayers();
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+
+            long count;
+            try {
+                count = joinManager.exportRecords((uuid, record) ->
+                        loading.load(uuid, record.getJoinDate(), record.getPlaytime(), record.getUsernames().getLatest()));
+            } catch (IOException e) {
+                count = -1;
+            }
+            if (count < 0) {
+                synchronized (this) {
+                    replay = null;
+                }
+                logger.severe("Unable to load leaderboards, see the error above.");
+                return false;
+            }
+
+            loading.rank();
+            synchronized (this) {
+                // The table is read from a snapshot taken as the query starts, so writes made since are missing from it
+                replay.forEach(update -> update.accept(loading));
+                replay = null;
+                players = loading;
+                loaded = true;
+            }
+            logger.info(String.format("Ranked %d players for leaderboards in %d ms.",
+                    loading.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+            return true;
+        }
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    // === Updates ===
+
+    /**
+     * Ranks new players and updates names from joins that have just been written.
+     */
+    @Override
+    public void joinsWritten(Collection<JoinEvent> joins) {
+        apply(ranked -> joins.forEach(join -> ranked.recordJoin(join.getUuid(), join.getFirstJoinedAt(), join.getUsername())));
+    }
+
+    /**
+     * Moves players to the playtime totals stored by a write. Totals are absolute, so one replayed onto a load
+     * that already read it changes nothing.
+     */
+    @Override
+    public void playtimeWritten(Map<UUID, Long> totals) {
+        apply(ranked -> totals.forEach(ranked::setPlaytime));
+    }
+
+    // Writes before the first load are skipped, as the load reads them from the table
+    private synchronized void apply(Consumer<RankedPlayers> update) {
+        if (loaded) update.accept(players);
+        if (replay != null) replay.add(update);
+    }
+
+    // === Queries ===
+
+    /**
+     * @param type     The leaderboard to read
+     * @param page     The 1-based page number
+     * @param pageSize The entries per page
+     * @return The entries on the page, best ranked first; empty past the last page
+     */
+    public List<RankedPlayers.Entry> getPage(LeaderboardType type, int page, int pageSize) {
+        return currentPlayers().page(type, (page - 1) * pageSize, pageSize);
+    }
+
+    /**
+     * @return The number of ranked players
+     */
+    public int getPlayerCount() {
+        return currentPlayers().size();
+    }
+
+    private synchronized RankedPlayers currentPlayers() {
+        return players;
+    }
+}
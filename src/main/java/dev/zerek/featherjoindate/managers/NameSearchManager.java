@@ -0,0 +1,273 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import dev.zerek.featherjoindate.search.NameMatch;
+import dev.zerek.featherjoindate.search.NameSearchIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+public class NameSearchManager implements JoinWriteListener {
+
+    // Names held apart from the index before it is rebuilt with them; each rebuild re-indexes every name
+    private static final int REBUILD_THRESHOLD = 4096;
+    // Rough cost of a name held apart: the entry, its strings and the set and map nodes
+    private static final int ADDED_NAME_BYTES = 160;
+
+    private final Logger logger;
+    private final Executor executor;
+    private final boolean enabled;
+    private final int maxNames;
+    private final Object loadLock = new Object();
+
+    // Replaced whole by each load and rebuild, so searches read it without locking
+    private volatile NameSearchIndex index = NameSearchIndex.EMPTY;
+    // Guarded by this; names written since the index was built, kept until rebuilt in or found in a newer index
+    private final List<AddedName> added = new ArrayList<>();
+    private final Set<String> addedKeys = new HashSet<>();
+    // Guarded by this; the latest name written per account since the index was built, which replaces its current name
+    private final Map<UUID, String> renamed = new HashMap<>();
+    private boolean loading;
+    private boolean rebuilding;
+    private boolean warnedFull;
+
+    /**
+     * Constructs a new NameSearchManager. Nothing is indexed until {@link #reload(JoinManager)} is called.
+     *
+     * @param logger   The logger to report loads to
+     * @param executor Where to rebuild the index with names written since it was built
+     * @param enabled  false to index nothing and find no names
+     * @param maxNames The most names to index, bounding memory
+     */
+    public NameSearchManager(Logger logger, Executor executor, boolean enabled, int maxNames) {
+        this.logger = logger;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.maxNames = Math.max(0, maxNames);
+    }
+
+    // === Loading ===
+
+    /**
+     * Indexes every stored player's username history, replacing the current index once done.
+     * The current index keeps serving searches while the table is read.
+     */
+    @Override
+    public boolean reload(JoinManager joinManager) {
+        if (!enabled) return true;
+        synchronized (loadLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                loading = true;
+            }
+
+            NameSearchIndex.Builder builder = new NameSearchIndex.Builder(maxNames);
+            long count;
+            try {
+                count = joinManager.exportRecords((uuid, record) -> {
+                    UsernameHistory usernames = record.getUsernames();
+                    builder.addAccount(uuid);
+                    for (int i = 0; i < usernames.size(); i++) builder.addName(usernames.get(i), i == usernames.size() - 1);
+                });
+            } catch (IOException e) {
+                count = -1;
+            }
+            if (count < 0) {
+                synchronized (this) {
+                    loading = false;
+                }
+                logger.severe("Unable to load usernames for /seen search, see the error above.");
+                return false;
+            }
+
+            NameSearchIndex loaded = builder.build();
+            synchronized (this) {
+                // Names written while the table was read stay held apart, so none are lost to the swap
+                index = loaded;
+                added.removeIf(name -> loaded.contains(name.uuid, name.name));
+                addedKeys.clear();
+                added.forEach(name -> addedKeys.add(key(name.uuid, name.name)));
+                renamed.keySet().retainAll(heldAccounts());
+                loading = false;
+            }
+            if (builder.isFull()) warnFull();
+            logger.info(String.format("Indexed %d usernames for /seen search in %d ms, using %d KB.",
+                    loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), getMemoryBytes() / 1024));
+            return true;
+        }
+    }
+
+    // === Updates ===
+
+    /**
+     * Adds names from joins that have just been written that the account hasn't used before.
+     * Such a name is stored as the account's newest, so it becomes their current name.
+     */
+    @Override
+    public void joinsWritten(Collection<JoinEvent> joins) {
+        if (!enabled) return;
+        synchronized (this) {
+            NameSearchIndex current = index;
+            for (JoinEvent join : joins) {
+                for (String name : join.getUsernames()) {
+                    if (name == null || name.length() < NameSearchIndex.MIN_FRAGMENT_LENGTH) continue;
+                    if (current.contains(join.getUuid(), name) || !addedKeys.add(key(join.getUuid(), name))) continue;
+                    added.add(new AddedName(join.getUuid(), name));
+                    renamed.put(join.getUuid(), name);
+                }
+            }
+            // A rebuild during a load would be lost when the load's index replaces it
+            if (added.size() >= REBUILD_THRESHOLD && !loading && !rebuilding) startRebuild();
+        }
+    }
+
+    @Override
+    public void playtimeWritten(Map<UUID, Long> totals) {
+    }
+
+    /**
+     * Rebuilds the index with the names held apart on the executor, from a snapshot, so the write that filled
+     * them and the searches meanwhile aren't held up; names written during the rebuild stay held apart.
+     */
+    // Guarded by this
+    private void startRebuild() {
+        NameSearchIndex base = index;
+        List<AddedName> names = new ArrayList<>(added);
+        Map<UUID, String> renames = new HashMap<>(renamed);
+        rebuilding = true;
+        try {
+            executor.execute(() -> rebuild(base, names, renames));
+        } catch (RejectedExecutionException e) {
+            // Tried again after the next write
+            rebuilding = false;
+        }
+    }
+
+    private void rebuild(NameSearchIndex base, List<AddedName> names, Map<UUID, String> renames) {
+        NameSearchIndex rebuilt = null;
+        try {
+            Map<UUID, List<String>> written = new LinkedHashMap<>();
+            for (AddedName name : names) written.computeIfAbsent(name.uuid, uuid -> new ArrayList<>()).add(name.name);
+            NameSearchIndex.Builder builder = new NameSearchIndex.Builder(maxNames);
+            base.copyTo(builder, renames, written);
+            for (Map.Entry<UUID, List<String>> account : written.entrySet()) {
+                builder.addAccount(account.getKey());
+                for (String name : account.getValue()) builder.addName(name, name.equals(renames.get(account.getKey())));
+            }
+            if (builder.isFull()) warnFull();
+            rebuilt = builder.build();
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                // A load that started meanwhile replaces the index with what it reads, which may miss these names
+                if (rebuilt != null && !loading && index == base) {
+                    index = rebuilt;
+                    // Only appended to since the snapshot, as no load has run
+                    added.subList(0, names.size()).clear();
+                    addedKeys.clear();
+                    added.forEach(name -> addedKeys.add(key(name.uuid, name.name)));
+                    renamed.entrySet().removeIf(rename -> rename.getValue().equals(renames.get(rename.getKey())));
+                }
+            }
+        }
+    }
+
+    private synchronized void warnFull() {
+        if (warnedFull) return;
+        warnedFull = true;
+        logger.warning(String.format("The /seen search index is full at %d names; names past it aren't found. " +
+                "Raise settings.search.max-names to index them.", maxNames));
+    }
+
+    private Set<UUID> heldAccounts() {
+        Set<UUID> accounts = new HashSet<>();
+        added.forEach(name -> accounts.add(name.uuid));
+        return accounts;
+    }
+
+    private static String key(UUID uuid, String name) {
+        return uuid + "/" + name.toLowerCase(Locale.ROOT);
+    }
+
+    // === Queries ===
+
+    /**
+     * Finds the accounts that have used a name containing a fragment, ignoring case. Reads only memory.
+     *
+     * @param fragment Part of a name, at least {@link NameSearchIndex#MIN_FRAGMENT_LENGTH} characters long
+     * @param limit    The most accounts to return
+     * @return Each matching account's best matching name, best first
+     */
+    public List<NameMatch> search(String fragment, int limit) {
+        if (!enabled || limit <= 0) return new ArrayList<>();
+        List<NameMatch> indexed = index.search(fragment, limit);
+        synchronized (this) {
+            if (added.isEmpty()) return indexed;
+
+            List<NameMatch> candidates = new ArrayList<>(indexed.size() + 16);
+            for (NameMatch match : indexed) {
+                // An account renamed since the index was built has a new current name, held apart
+                candidates.add(renamed.containsKey(match.getUuid()) ? match.asPast() : match);
+            }
+            for (AddedName name : added) {
+                NameMatch match = NameMatch.of(name.uuid, name.name, name.name.equals(renamed.get(name.uuid)), fragment);
+                if (match != null) candidates.add(match);
+            }
+            Collections.sort(candidates);
+
+            Set<UUID> seen = new HashSet<>();
+            List<NameMatch> matches = new ArrayList<>(Math.min(limit, candidates.size()));
+            for (NameMatch match : candidates) {
+                if (matches.size() == limit) break;
+                if (seen.add(match.getUuid())) matches.add(match);
+            }
+            return matches;
+        }
+    }
+
+    // === Metrics ===
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The number of names that can be searched
+     */
+    public synchronized int getNameCount() {
+        return index.size() + added.size();
+    }
+
+    /**
+     * @return The bytes held by the index and the names waiting to be indexed
+     */
+    public synchronized long getMemoryBytes() {
+        return index.memoryBytes() + (long) added.size() * ADDED_NAME_BYTES;
+    }
+
+    private static final class AddedName {
+
+        private final UUID uuid;
+        private final String name;
+
+        private AddedName(UUID uuid, String name) {
+            this.uuid = uuid;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package dev.zerek.featherjoindate.managers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dev.zerek.featherjoindate.configs.JoinDateConfig;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.PlaytimeDelta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PlayerCacheManager {
+
+    // Records of online players are pinned here and never expire while they are online
+    private final Map<UUID, PlayerJoinRecord> onlineRecords = new ConcurrentHashMap<>();
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    // Everyone else lives in a size and time bounded cache
+    private final Cache<UUID, PlayerJoinRecord> offlineRecords;
+
+    // Orders loads against writes, so a record read before a write can't replace the record the write updated.
+    // Loads note the write generation when they start; a load's record isn't cached if its player was written since,
+    // or is being written, since the record may or may not include the write. Guarded by loadLock.
+    private final Object loadLock = new Object();
+    private long writeGeneration;
+    private long invalidatedAllAt;
+    private int loadsInProgress;
+    // Kept only while loads are in progress, as only they compare against it
+    private final Map<UUID, Long> writtenAt = new HashMap<>();
+    private final Map<UUID, Integer> writing = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a new PlayerCacheManager.
+     *
+     * @param joinDateConfig The plugin configuration
+     */
+    public PlayerCacheManager(JoinDateConfig joinDateConfig) {
+        this(joinDateConfig.getCacheMaximumSize(), joinDateConfig.getCacheExpireAfterMinutes());
+    }
+
+    /**
+     * Constructs a new PlayerCacheManager.
+     *
+     * @param maximumSize        The maximum number of offline players to cache
+     * @param expireAfterMinutes How long an offline player stays cached after being loaded
+     */
+    public PlayerCacheManager(long maximumSize, long expireAfterMinutes) {
+        this.offlineRecords = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterMinutes, TimeUnit.MINUTES)
+                .removalListener(notification -> {
+                    if (notification.wasEvicted()) evictions.increment();
+                })
+                .build();
+    }
+
+    // === Lookup ===
+
+    /**
+     * Gets a cached record.
+     *
+     * @param uuid The player's UUID
+     * @return The cached record, or null if the player is not cached
+     */
+    public PlayerJoinRecord get(UUID uuid) {
+        PlayerJoinRecord record = onlineRecords.get(uuid);
+        if (record == null) record = offlineRecords.getIfPresent(uuid);
+
+        if (record != null) hits.increment();
+        else misses.increment();
+        return record;
+    }
+
+    /**
+     * Starts loading records from the database. Call before reading them, and pass the result to
+     * {@link #finishLoad(Map, long)} once read, even if the read failed.
+     *
+     * @return The write generation the load started at
+     */
+    public long beginLoad() {
+        synchronized (loadLock) {
+            loadsInProgress++;
+            return writeGeneration;
+        }
+    }
+
+    /**
+     * Caches records loaded from the database, except those of players written since the load started,
+     * whose records may be missing the write, or already include a write about to be applied to the cache.
+     *
+     * @param loaded     The records that were read
+     * @param generation The generation returned by {@link #beginLoad()}
+     */
+    public void finishLoad(Map<UUID, PlayerJoinRecord> loaded, long generation) {
+        synchronized (loadLock) {
+            if (generation >= invalidatedAllAt) {
+                loaded.forEach((uuid, record) -> {
+                    Long written = writtenAt.get(uuid);
+                    if ((written == null || written <= generation) && !writing.containsKey(uuid)) put(uuid, record);
+                });
+            }
+            if (--loadsInProgress == 0) writtenAt.clear();
+        }
+    }
+
+    private void put(UUID uuid, PlayerJoinRecord record) {
+        if (onlinePlayers.contains(uuid)) onlineRecords.put(uuid, record);
+        else offlineRecords.put(uuid, record);
+    }
+
+    public void invalidate(UUID uuid) {
+        markWritten(Collections.singletonList(uuid));
+        onlineRecords.remove(uuid);
+        offlineRecords.invalidate(uuid);
+    }
+
+    /**
+     * Drops every cached record, online players' included; each is loaded again on its next lookup.
+     */
+    public void invalidateAll() {
+        synchronized (loadLock) {
+            invalidatedAllAt = ++writeGeneration;
+        }
+        onlineRecords.clear();
+        offlineRecords.invalidateAll();
+    }
+
+    // === Write Path ===
+
+    /**
+     * Marks players as being written, so records loaded meanwhile aren't cached. Call before the write starts,
+     * and call {@link #finishWrite(Collection)} once it has been committed or rolled back and applied to the cache.
+     *
+     * @param uuids The players being written
+     */
+    public void beginWrite(Collection<UUID> uuids) {
+        synchronized (loadLock) {
+            for (UUID uuid : uuids) writing.merge(uuid, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Ends a write started with {@link #beginWrite(Collection)}. Loads that started before this don't cache
+     * these players' records.
+     *
+     * @param uuids The players that were written
+     */
+    public void finishWrite(Collection<UUID> uuids) {
+        synchronized (loadLock) {
+            for (UUID uuid : uuids) writing.computeIfPresent(uuid, (key, count) -> count > 1 ? count - 1 : null);
+            markWritten(uuids);
+        }
+    }
+
+    /**
+     * Marks players as written by something outside this server's writes, such as another server,
+     * so loads already in progress don't cache records read before it.
+     */
+    public void markWritten(Collection<UUID> uuids) {
+        synchronized (loadLock) {
+            long generation = ++writeGeneration;
+            if (loadsInProgress > 0) for (UUID uuid : uuids) writtenAt.put(uuid, generation);
+        }
+    }
+
+    /**
+     * Applies a batch of joins that has just been written to the database to any cached records.
+     *
+     * @param joins The joins that were written
+     * @return The UUIDs of online players in the batch that are not cached yet and should be loaded
+     */
+    public List<UUID> applyJoins(Collection<JoinEvent> joins) {
+        List<UUID> uncached = new ArrayList<>();
+        for (JoinEvent join : joins) {
+            UUID uuid = join.getUuid();
+            boolean updated = onlineRecords.computeIfPresent(uuid, (key, record) -> record.withJoin(join)) != null;
+            if (!updated) {
+                updated = offlineRecords.asMap().computeIfPresent(uuid, (key, record) -> record.withJoin(join)) != null;
+            }
+            if (!updated && onlinePlayers.contains(uuid)) uncached.add(uuid);
+        }
+        return uncached;
+    }
+
+    /**
+     * Adds playtime that has just been written to the database to any cached records.
+     *
+     * @param deltas The playtime that was written per player
+     */
+    public void applyPlaytime(Map<UUID, PlaytimeDelta> deltas) {
+        deltas.forEach((uuid, delta) -> {
+            boolean updated = onlineRecords.computeIfPresent(uuid,
+                    (key, record) -> record.withPlaytime(delta.getMillis(), delta.getSessions())) != null;
+            if (!updated) {
+                offlineRecords.asMap().computeIfPresent(uuid,
+                        (key, record) -> record.withPlaytime(delta.getMillis(), delta.getSessions()));
+            }
+        });
+    }
+
+    // === Online Tracking ===
+
+    /**
+     * Pins a player's record for as long as they are online.
+     */
+    public void markOnline(UUID uuid) {
+        onlinePlayers.add(uuid);
+        PlayerJoinRecord record = offlineRecords.getIfPresent(uuid);
+        if (record != null) {
+            onlineRecords.put(uuid, record);
+            offlineRecords.invalidate(uuid);
+        }
+    }
+
+    /**
+     * Moves a player's record back into the bounded cache when they leave.
+     */
+    public void markOffline(UUID uuid) {
+        onlinePlayers.remove(uuid);
+        PlayerJoinRecord record = onlineRecords.remove(uuid);
+        if (record != null) offlineRecords.put(uuid, record);
+    }
+
+    /**
+     * @return true if the player is online, as marked by the join and quit listeners
+     */
+    public boolean isOnline(UUID uuid) {
+        return onlinePlayers.contains(uuid);
+    }
+
+    // === Statistics ===
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getSize() {
+        return onlineRecords.size() + offlineRecords.size();
+    }
+}
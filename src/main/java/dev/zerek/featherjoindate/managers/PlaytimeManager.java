@@ -0,0 +1,189 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.configs.JoinDateConfig;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.PlaytimeDelta;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class PlaytimeManager {
+
+    private final FeatherJoinDate plugin;
+
+    // When each online player's current session, or the part of it not yet counted, began
+    private final Map<UUID, Long> sessionStarts = new ConcurrentHashMap<>();
+    // Playtime measured but not yet written, merged per player so each flush is one update per player
+    private final Map<UUID, PlaytimeDelta> pending = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final BukkitTask flushTask;
+    private final BukkitTask checkpointTask;
+
+    /**
+     * Constructs a new PlaytimeManager, starting the periodic asynchronous flush and checkpoint.
+     * Playtime is flushed as often as the join queue.
+     *
+     * @param plugin         The main plugin instance
+     * @param joinDateConfig The plugin configuration
+     */
+    public PlaytimeManager(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
+        this.plugin = plugin;
+        long flushInterval = Math.max(1, joinDateConfig.getJoinQueueFlushIntervalTicks());
+        long checkpointInterval = Math.max(1, joinDateConfig.getPlaytimeCheckpointMinutes()) * 60L * 20L;
+        this.flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, flushInterval, flushInterval);
+        this.checkpointTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::checkpoint, checkpointInterval, checkpointInterval);
+    }
+
+    // === Sessions ===
+
+    /**
+     * Starts timing a player's session. Safe to call from the main thread.
+     *
+     * @param uuid The player who joined
+     */
+    public void startSession(UUID uuid) {
+        sessionStarts.put(uuid, System.currentTimeMillis());
+    }
+
+    /**
+     * Stops timing a player's session and queues its playtime to be written by the next flush.
+     * Safe to call from the main thread; no database work is done here.
+     *
+     * @param uuid The player who quit
+     */
+    public void endSession(UUID uuid) {
+        Long start = sessionStarts.remove(uuid);
+        if (start == null) return;
+        add(uuid, new PlaytimeDelta(Math.max(0, System.currentTimeMillis() - start), 1));
+    }
+
+    /**
+     * Queues the playtime online players have accumulated so far, so a crash loses at most one checkpoint interval.
+     * Their sessions are counted when they quit.
+     */
+    public void checkpoint() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UUID, Long> session : sessionStarts.entrySet()) {
+            long start = session.getValue();
+            // A player who quit or rejoined since the entry was read is left for endSession or the next checkpoint
+            if (sessionStarts.replace(session.getKey(), start, now)) {
+                add(session.getKey(), new PlaytimeDelta(Math.max(0, now - start), 0));
+            }
+        }
+    }
+
+    private void add(UUID uuid, PlaytimeDelta delta) {
+        synchronized (pending) {
+            pending.merge(uuid, delta, PlaytimeDelta::plus);
+        }
+    }
+
+    /**
+     * Adds playtime that hasn't been written yet, including the current session, to a stored record.
+     *
+     * @param uuid   The player the record belongs to
+     * @param record The record as stored
+     * @return The record with the player's unwritten playtime and sessions added
+     */
+    public PlayerJoinRecord withUnrecorded(UUID uuid, PlayerJoinRecord record) {
+        long millis = 0;
+        int sessions = 0;
+        synchronized (pending) {
+            PlaytimeDelta delta = pending.get(uuid);
+            if (delta != null) {
+                millis += delta.getMillis();
+                sessions += delta.getSessions();
+            }
+        }
+        Long start = sessionStarts.get(uuid);
+        if (start != null) {
+            millis += Math.max(0, System.currentTimeMillis() - start);
+            sessions++;
+        }
+        return millis == 0 && sessions == 0 ? record : record.withPlaytime(millis, sessions);
+    }
+
+    // === Flushing ===
+
+    /**
+     * Writes all pending playtime to the database in one batch. Players whose first join is still queued or being
+     * written are held until it has been written, since there is no row to add to yet. A batch that fails is put
+     * back for the next flush.
+     */
+    public void flush() {
+        if (!plugin.getDatabaseManager().isReady()) return;
+        flushLock.lock();
+        try {
+            Map<UUID, PlaytimeDelta> batch = drain();
+            if (batch.isEmpty()) return;
+            Map<UUID, Long> totals = plugin.getJoinManager().addPlaytime(batch);
+            if (totals == null) {
+                requeue(batch);
+                return;
+            }
+
+            Map<UUID, PlaytimeDelta> unwritten = new HashMap<>(batch);
+            unwritten.keySet().removeAll(totals.keySet());
+            if (!totals.isEmpty()) plugin.getSyncManager().publishPlaytime(totals);
+            // A join queued after the batch was drained gets its row soon; a player who stayed vanished has none
+            unwritten.keySet().removeIf(uuid -> !plugin.getJoinQueueManager().isPending(uuid)
+                    && !plugin.getPlayerCacheManager().isOnline(uuid));
+            requeue(unwritten);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<UUID, PlaytimeDelta> drain() {
+        JoinQueueManager joinQueueManager = plugin.getJoinQueueManager();
+        Map<UUID, PlaytimeDelta> batch = new HashMap<>();
+        synchronized (pending) {
+            Iterator<Map.Entry<UUID, PlaytimeDelta>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, PlaytimeDelta> delta = iterator.next();
+                if (joinQueueManager.isPending(delta.getKey())) continue;
+                batch.put(delta.getKey(), delta.getValue());
+                iterator.remove();
+            }
+        }
+        return batch;
+    }
+
+    private void requeue(Map<UUID, PlaytimeDelta> batch) {
+        synchronized (pending) {
+            batch.forEach((uuid, delta) -> pending.merge(uuid, delta, PlaytimeDelta::plus));
+        }
+    }
+
+    /**
+     * @return The number of players with playtime waiting to be written
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Stops the periodic tasks, ends every open session and writes everything pending.
+     * Called from onDisable after the join queue has been written, so every player has a row to add to.
+     */
+    public void shutdown() {
+        flushTask.cancel();
+        checkpointTask.cancel();
+        sessionStarts.keySet().forEach(this::endSession);
+        flush();
+
+        int remaining = getPendingCount();
+        if (remaining > 0) {
+            plugin.getLogger().severe(String.format("Unable to write playtime for %d players before shutdown.", remaining));
+        }
+    }
+}
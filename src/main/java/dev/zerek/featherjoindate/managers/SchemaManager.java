@@ -0,0 +1,362 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.storage.BinaryUuidMigration;
+import dev.zerek.featherjoindate.storage.StorageType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Brings the database tables up to date on one connection.
+ *
+ * Applied migrations are recorded in the schema_version table, so an up to date database costs one metadata
+ * call and one query. Otherwise the current tables, columns, indexes and foreign keys are read in one pass
+ * and only the missing migrations are applied. Databases from before schema_version existed have nothing
+ * recorded, and every migration checks what is already there, so they pick up from whatever state they are in.
+ */
+public class SchemaManager {
+
+    public static final int LATEST_VERSION = 5;
+
+    // Rows of usernames filled per committed UPDATE when adding username_lower
+    private static final int USERNAME_BACKFILL_CHUNK_SIZE = 10_000;
+
+    private final Logger logger;
+    private final StorageType storageType;
+
+    public SchemaManager(Logger logger, StorageType storageType) {
+        this.logger = logger;
+        this.storageType = storageType;
+    }
+
+    /**
+     * Applies every migration that hasn't been recorded yet.
+     * A migration that can't complete yet, such as the UUID conversion finding invalid rows,
+     * stays unrecorded and is tried again on the next start; the others still apply.
+     *
+     * @param conn A connection with autocommit on
+     * @return true if every migration has been applied
+     */
+    public boolean migrate(Connection conn) throws SQLException {
+        Set<Integer> applied;
+        if (hasVersionTable(conn)) {
+            applied = readAppliedVersions(conn);
+            if (applied.size() >= LATEST_VERSION) return true;
+        } else {
+            createVersionTable(conn);
+            applied = new HashSet<>();
+        }
+
+        long start = System.currentTimeMillis();
+        Snapshot snapshot = Snapshot.read(conn);
+        int appliedNow = 0;
+        for (int version = 1; version <= LATEST_VERSION; version++) {
+            if (applied.contains(version)) continue;
+            try {
+                if (!apply(conn, snapshot, version)) continue;
+            } catch (SQLException e) {
+                logger.severe(String.format("Database migration %d failed, it will be retried on next start: %s", version, e.getMessage()));
+                snapshot.reload(conn);
+                continue;
+            }
+            recordVersion(conn, version);
+            applied.add(version);
+            appliedNow++;
+        }
+
+        if (appliedNow > 0) {
+            logger.info(String.format("Applied %d database migrations in %d ms", appliedNow, System.currentTimeMillis() - start));
+        }
+        return applied.size() >= LATEST_VERSION;
+    }
+
+    private boolean apply(Connection conn, Snapshot snapshot, int version) throws SQLException {
+        switch (version) {
+            case 1:
+                if (storageType == StorageType.SQLITE) createSQLiteTables(conn, snapshot);
+                else createMySQLTables(conn, snapshot);
+                return true;
+            case 2:
+                return migrateBinaryUuids(conn, snapshot);
+            case 3:
+                addUsernameLower(conn, snapshot);
+                return true;
+            case 4:
+                addPlaytime(conn, snapshot);
+                return true;
+            case 5:
+                createChangeLog(conn, snapshot);
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown schema version " + version);
+        }
+    }
+
+    // === Migrations ===
+
+    /**
+     * Version 1: the joins and usernames tables. Tables created by earlier releases only get the parts they are missing.
+     */
+    private void createMySQLTables(Connection conn, Snapshot snapshot) throws SQLException {
+        if (!snapshot.hasTable("joins")) {
+            execute(conn, "CREATE TABLE joins (" +
+                    "mojang_uuid BINARY(16) PRIMARY KEY, " +
+                    "last_login TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "joindate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            snapshot.addColumns("joins", "mojang_uuid", "last_login", "joindate");
+        }
+        addColumn(conn, snapshot, "joins", "last_login", "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP");
+        addColumn(conn, snapshot, "joins", "joindate", "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP");
+
+        if (!snapshot.hasTable("usernames")) {
+            execute(conn, "CREATE TABLE usernames (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "mojang_uuid BINARY(16) NOT NULL, " +
+                    "username VARCHAR(32))");
+            snapshot.addColumns("usernames", "id", "mojang_uuid", "username");
+        }
+        addColumn(conn, snapshot, "usernames", "mojang_uuid", "BINARY(16) NOT NULL");
+        addColumn(conn, snapshot, "usernames", "username", "VARCHAR(32)");
+        addForeignKey(conn, snapshot);
+        addIndex(conn, snapshot, "usernames", "unique_uuid_username", true, "mojang_uuid", "username");
+    }
+
+    private void createSQLiteTables(Connection conn, Snapshot snapshot) throws SQLException {
+        // SQLite can't add constraints to existing tables, so both tables are created whole
+        if (!snapshot.hasTable("joins")) {
+            execute(conn, "CREATE TABLE joins (" +
+                    "mojang_uuid BLOB PRIMARY KEY, " +
+                    "last_login TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "joindate TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+            snapshot.addColumns("joins", "mojang_uuid", "last_login", "joindate");
+        }
+        if (!snapshot.hasTable("usernames")) {
+            // NOCASE keeps the unique index case-insensitive, as MySQL's default collation does
+            execute(conn, "CREATE TABLE usernames (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "mojang_uuid BLOB NOT NULL REFERENCES joins (mojang_uuid), " +
+                    "username VARCHAR(32) COLLATE NOCASE, " +
+                    "CONSTRAINT unique_uuid_username UNIQUE (mojang_uuid, username))");
+            snapshot.addColumns("usernames", "id", "mojang_uuid", "username");
+        }
+    }
+
+    /**
+     * Version 2: mojang_uuid as 16 bytes. SQLite tables are created that way and are left as they are.
+     */
+    private boolean migrateBinaryUuids(Connection conn, Snapshot snapshot) throws SQLException {
+        if (storageType == StorageType.SQLITE) return true;
+        if (!new BinaryUuidMigration(logger).migrate(conn)) return false;
+
+        // The swap replaces the key columns and drops the foreign key
+        snapshot.reload(conn);
+        addForeignKey(conn, snapshot);
+        return true;
+    }
+
+    /**
+     * Version 3: a lowercase copy of each username, indexed so /seen finds names without a table scan.
+     * Existing rows are filled in committed ranges of ids, so the table stays writable.
+     */
+    private void addUsernameLower(Connection conn, Snapshot snapshot) throws SQLException {
+        addColumn(conn, snapshot, "usernames", "username_lower", "VARCHAR(32)");
+
+        long maxId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM usernames WHERE username_lower IS NULL")) {
+            maxId = rs.next() ? rs.getLong(1) : 0;
+        }
+        if (maxId > 0) {
+            logger.info("Indexing stored usernames for case-insensitive lookup...");
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE usernames SET username_lower = LOWER(username) WHERE id > ? AND id <= ? AND username_lower IS NULL")) {
+                for (long from = 0; from < maxId; from += USERNAME_BACKFILL_CHUNK_SIZE) {
+                    stmt.setLong(1, from);
+                    stmt.setLong(2, from + USERNAME_BACKFILL_CHUNK_SIZE);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+
+        addIndex(conn, snapshot, "usernames", "idx_usernames_username_lower", false, "username_lower", "mojang_uuid");
+    }
+
+    /**
+     * Version 4: total playtime and completed sessions per player, added to by the playtime flush.
+     */
+    private void addPlaytime(Connection conn, Snapshot snapshot) throws SQLException {
+        addColumn(conn, snapshot, "joins", "playtime", "BIGINT NOT NULL DEFAULT 0");
+        addColumn(conn, snapshot, "joins", "sessions", "INT NOT NULL DEFAULT 0");
+    }
+
+    /**
+     * Version 5: the change_log table servers sharing the database read each other's writes from.
+     */
+    private void createChangeLog(Connection conn, Snapshot snapshot) throws SQLException {
+        if (!snapshot.hasTable("change_log")) {
+            String seq = storageType == StorageType.SQLITE ? "seq INTEGER PRIMARY KEY AUTOINCREMENT" : "seq BIGINT AUTO_INCREMENT PRIMARY KEY";
+            execute(conn, "CREATE TABLE change_log (" + seq + ", " +
+                    "server_id VARCHAR(36) NOT NULL, " +
+                    "change_type SMALLINT NOT NULL, " +
+                    "mojang_uuid VARCHAR(36), " +
+                    "username VARCHAR(32), " +
+                    "amount BIGINT NOT NULL DEFAULT 0, " +
+                    "sessions INT NOT NULL DEFAULT 0, " +
+                    "created_at BIGINT NOT NULL)");
+            snapshot.addColumns("change_log", "seq", "server_id", "change_type", "mojang_uuid", "username", "amount", "sessions", "created_at");
+        }
+        addIndex(conn, snapshot, "change_log", "idx_change_log_created_at", false, "created_at");
+    }
+
+    // === Schema Changes ===
+
+    private void addColumn(Connection conn, Snapshot snapshot, String table, String column, String definition) throws SQLException {
+        if (snapshot.hasColumn(table, column)) return;
+        execute(conn, String.format("ALTER TABLE %s ADD COLUMN %s %s", table, column, definition));
+        snapshot.addColumns(table, column);
+        logger.info(String.format("Added column '%s' to table '%s'", column, table));
+    }
+
+    private void addIndex(Connection conn, Snapshot snapshot, String table, String index, boolean unique, String... columns) throws SQLException {
+        if (snapshot.hasIndex(table, index)) return;
+        execute(conn, String.format("CREATE %sINDEX %s ON %s (%s)", unique ? "UNIQUE " : "", index, table, String.join(", ", columns)));
+        snapshot.addIndex(table, index);
+        logger.info(String.format("Added index '%s' to table '%s'", index, table));
+    }
+
+    private void addForeignKey(Connection conn, Snapshot snapshot) throws SQLException {
+        if (snapshot.hasForeignKey("fk_usernames_mojang_uuid")) return;
+        execute(conn, "ALTER TABLE usernames ADD CONSTRAINT fk_usernames_mojang_uuid " +
+                "FOREIGN KEY (mojang_uuid) REFERENCES joins (mojang_uuid)");
+        snapshot.addForeignKey("fk_usernames_mojang_uuid");
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    // === Version Table ===
+
+    private static boolean hasVersionTable(Connection conn) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, "schema_version", null)) {
+            return rs.next();
+        }
+    }
+
+    private static Set<Integer> readAppliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static void createVersionTable(Connection conn) throws SQLException {
+        execute(conn, "CREATE TABLE IF NOT EXISTS schema_version (version INT PRIMARY KEY, applied_at TIMESTAMP NOT NULL)");
+    }
+
+    private static void recordVersion(Connection conn, int version) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO schema_version (version, applied_at) VALUES (?, ?)")) {
+            stmt.setInt(1, version);
+            stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * The plugin's tables, columns, indexes and foreign keys, read in one pass and kept current as migrations change them.
+     */
+    private static final class Snapshot {
+        private final Map<String, Set<String>> columns = new HashMap<>();
+        private final Map<String, Set<String>> indexes = new HashMap<>();
+        private final Set<String> foreignKeys = new HashSet<>();
+
+        static Snapshot read(Connection conn) throws SQLException {
+            Snapshot snapshot = new Snapshot();
+            snapshot.reload(conn);
+            return snapshot;
+        }
+
+        void reload(Connection conn) throws SQLException {
+            columns.clear();
+            indexes.clear();
+            foreignKeys.clear();
+
+            DatabaseMetaData md = conn.getMetaData();
+            String catalog = conn.getCatalog();
+            try (ResultSet rs = md.getColumns(catalog, null, "%", "%")) {
+                while (rs.next()) {
+                    addColumns(rs.getString("TABLE_NAME"), rs.getString("COLUMN_NAME"));
+                }
+            }
+            for (String table : new String[]{"joins", "usernames"}) {
+                if (!hasTable(table)) continue;
+                try (ResultSet rs = md.getIndexInfo(catalog, null, table, false, false)) {
+                    while (rs.next()) {
+                        String index = rs.getString("INDEX_NAME");
+                        if (index != null) addIndex(table, index);
+                    }
+                }
+            }
+            if (hasTable("usernames")) {
+                try (ResultSet rs = md.getImportedKeys(catalog, null, "usernames")) {
+                    while (rs.next()) {
+                        String foreignKey = rs.getString("FK_NAME");
+                        if (foreignKey != null) addForeignKey(foreignKey);
+                    }
+                }
+            }
+        }
+
+        boolean hasTable(String table) {
+            return columns.containsKey(key(table));
+        }
+
+        boolean hasColumn(String table, String column) {
+            Set<String> tableColumns = columns.get(key(table));
+            return tableColumns != null && tableColumns.contains(key(column));
+        }
+
+        boolean hasIndex(String table, String index) {
+            Set<String> tableIndexes = indexes.get(key(table));
+            return tableIndexes != null && tableIndexes.contains(key(index));
+        }
+
+        boolean hasForeignKey(String foreignKey) {
+            return foreignKeys.contains(key(foreignKey));
+        }
+
+        void addColumns(String table, String... names) {
+            Set<String> tableColumns = columns.computeIfAbsent(key(table), k -> new HashSet<>());
+            for (String name : names) tableColumns.add(key(name));
+        }
+
+        void addIndex(String table, String index) {
+            indexes.computeIfAbsent(key(table), k -> new HashSet<>()).add(key(index));
+        }
+
+        void addForeignKey(String foreignKey) {
+            foreignKeys.add(key(foreignKey));
+        }
+
+        private static String key(String name) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+    }
+}
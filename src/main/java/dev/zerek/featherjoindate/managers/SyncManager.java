@@ -0,0 +1,184 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.configs.JoinDateConfig;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.storage.StorageType;
+import dev.zerek.featherjoindate.sync.ChangeLogSyncChannel;
+import dev.zerek.featherjoindate.sync.SyncChange;
+import dev.zerek.featherjoindate.sync.SyncChannel;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+public class SyncManager {
+
+    private final Logger logger;
+    // Null when sync is disabled
+    private final SyncChannel channel;
+    private final JoinManager joinManager;
+    private final BukkitTask pollTask;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    /**
+     * Constructs a new SyncManager and, if sync is enabled, starts the periodic asynchronous poll.
+     *
+     * @param plugin         The main plugin instance
+     * @param joinDateConfig The plugin configuration
+     */
+    public SyncManager(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
+        this.logger = plugin.getLogger();
+        this.channel = createChannel(plugin, joinDateConfig);
+        this.joinManager = plugin.getJoinManager();
+
+        long interval = Math.max(1, joinDateConfig.getSyncPollIntervalTicks());
+        this.pollTask = channel != null
+                ? Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::poll, interval, interval)
+                : null;
+    }
+
+    /**
+     * Constructs a new SyncManager from its collaborators, for running several simulated servers in one JVM.
+     * Nothing is polled until {@link #poll()} is called.
+     *
+     * @param logger      The logger to report sync errors to
+     * @param channel     The channel to publish to and poll, or null to disable sync
+     * @param joinManager The cache and in-memory views to keep current with other servers' writes
+     */
+    public SyncManager(Logger logger, SyncChannel channel, JoinManager joinManager) {
+        this.logger = logger;
+        this.channel = channel;
+        this.joinManager = joinManager;
+        this.pollTask = null;
+    }
+
+    private static SyncChannel createChannel(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
+        if (!joinDateConfig.isSyncEnabled()) return null;
+        if (joinDateConfig.getStorageType() == StorageType.SQLITE) {
+            plugin.getLogger().warning("Sync needs a database shared by every server, so it is disabled with sqlite storage.");
+            return null;
+        }
+        // A new id each start, since changes from before this start are never read back
+        return new ChangeLogSyncChannel(plugin.getDatabaseManager(), UUID.randomUUID().toString(),
+                joinDateConfig.getSyncBatchSize(), TimeUnit.MINUTES.toMillis(joinDateConfig.getSyncRetentionMinutes()));
+    }
+
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    // === Publishing ===
+
+    /**
+     * Tells the other servers about joins this server has just written.
+     *
+     * @param joins The joins that were written
+     */
+    public void publishJoins(Collection<JoinEvent> joins) {
+        if (channel == null || joins.isEmpty()) return;
+        List<SyncChange> changes = new ArrayList<>(joins.size());
+        joins.forEach(join -> join.split().forEach(single -> changes.add(SyncChange.join(single))));
+        publish(changes);
+    }
+
+    /**
+     * Tells the other servers about playtime this server has just written.
+     *
+     * @param totals The stored playtime in milliseconds after the write, per player
+     */
+    public void publishPlaytime(Map<UUID, Long> totals) {
+        if (channel == null || totals.isEmpty()) return;
+        List<SyncChange> changes = new ArrayList<>(totals.size());
+        totals.forEach((uuid, total) -> changes.add(SyncChange.playtime(uuid, total)));
+        publish(changes);
+    }
+
+    /**
+     * Tells the other servers to drop everything they have cached, after a bulk import or restore.
+     */
+    public void publishInvalidateAll() {
+        if (channel == null) return;
+        publish(Collections.singletonList(SyncChange.invalidateAll()));
+    }
+
+    // The writes are already committed, so a failure only leaves other servers' caches stale until they expire
+    private void publish(List<SyncChange> changes) {
+        try {
+            channel.publish(changes);
+            published.add(changes.size());
+        } catch (IOException e) {
+            logger.severe(e.getMessage());
+        }
+    }
+
+    // === Receiving ===
+
+    /**
+     * Reads what other servers have written since the last poll and applies it to the cache and in-memory views.
+     * Joins are applied to cached records; records with playtime changes are dropped and reloaded when next
+     * looked up, since a record loaded after the write already includes it, and views take the stored totals.
+     */
+    public void poll() {
+        if (channel == null) return;
+        List<SyncChange> changes;
+        try {
+            changes = channel.poll();
+        } catch (IOException e) {
+            logger.severe(e.getMessage());
+            return;
+        }
+        if (changes.isEmpty()) return;
+        received.add(changes.size());
+
+        List<JoinEvent> joins = new ArrayList<>();
+        Map<UUID, Long> playtime = new HashMap<>();
+        for (SyncChange change : changes) {
+            switch (change.getType()) {
+                case JOIN:
+                    joins.add(change.toJoinEvent());
+                    break;
+                case PLAYTIME:
+                    // Totals only grow, so the largest is the latest
+                    playtime.merge(change.getUuid(), change.getAmount(), Math::max);
+                    break;
+                case INVALIDATE_ALL:
+                    // Reading everything again also covers the rest of this poll's changes
+                    joinManager.invalidateAll();
+                    return;
+            }
+        }
+
+        joinManager.applyRemoteJoins(joins);
+        joinManager.applyRemotePlaytime(playtime);
+    }
+
+    // === Metrics ===
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /**
+     * Stops the periodic poll. Called from onDisable before the database is closed.
+     */
+    public void shutdown() {
+        if (pollTask != null) pollTask.cancel();
+    }
+}
@@ -0,0 +1,180 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.completion.UsernameIndex;
+import dev.zerek.featherjoindate.data.JoinEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+public class UsernameIndexManager implements JoinWriteListener {
+
+    // New names held apart from the index before being merged into it; each merge copies the whole index
+    private static final int MERGE_THRESHOLD = 4096;
+    // Rough cost of a name held in the TreeSet: the String, its bytes and the tree node
+    private static final int ADDED_NAME_BYTES = 96;
+
+    private final Logger logger;
+    private final boolean enabled;
+    private final int maxNames;
+    private final Object loadLock = new Object();
+
+    // Replaced whole by each load and merge, so completions read it without locking
+    private volatile UsernameIndex index = UsernameIndex.EMPTY;
+    // Guarded by this; names written since the index was built, kept until merged in or found in a newer index
+    private final TreeSet<String> added = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private boolean loading;
+    private boolean warnedFull;
+
+    /**
+     * Constructs a new UsernameIndexManager. Nothing is indexed until {@link #reload(JoinManager)} is called.
+     *
+     * @param logger   The logger to report loads to
+     * @param enabled  false to index nothing and suggest no names
+     * @param maxNames The most names to index, bounding memory
+     */
+    public UsernameIndexManager(Logger logger, boolean enabled, int maxNames) {
+        this.logger = logger;
+        this.enabled = enabled;
+        this.maxNames = Math.max(0, maxNames);
+    }
+
+    // === Loading ===
+
+    /**
+     * Indexes every stored username, replacing the current index once done.
+     * The current index keeps serving completions while the table is read.
+     */
+    @Override
+    public boolean reload(JoinManager joinManager) {
+        if (!enabled) return true;
+        synchronized (loadLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                loading = true;
+            }
+
+            UsernameIndex.Builder builder = new UsernameIndex.Builder(maxNames);
+            long count = joinManager.exportUsernames(name -> {
+                if (name != null) builder.add(name);
+            });
+            if (count < 0) {
+                synchronized (this) {
+                    loading = false;
+                }
+                logger.severe("Unable to load usernames for tab completion, see the error above.");
+                return false;
+            }
+
+            UsernameIndex loaded = builder.build();
+            synchronized (this) {
+                // Names written while the table was read stay in added, so none are lost to the swap
+                index = loaded;
+                added.removeIf(loaded::contains);
+                loading = false;
+            }
+            if (builder.isFull()) warnFull();
+            logger.info(String.format("Indexed %d usernames for tab completion in %d ms, using %d KB.",
+                    loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), getMemoryBytes() / 1024));
+            return true;
+        }
+    }
+
+    // === Updates ===
+
+    /**
+     * Adds the names of joins that have just been written, if they aren't indexed already.
+     */
+    @Override
+    public void joinsWritten(Collection<JoinEvent> joins) {
+        if (!enabled) return;
+        synchronized (this) {
+            UsernameIndex current = index;
+            for (JoinEvent join : joins) {
+                for (String username : join.getUsernames()) {
+                    if (username != null && !current.contains(username)) added.add(username);
+                }
+            }
+            // A merge during a load would be lost when the load's index replaces it
+            if (added.size() >= MERGE_THRESHOLD && !loading) mergeAdded();
+        }
+    }
+
+    @Override
+    public void playtimeWritten(Map<UUID, Long> totals) {
+    }
+
+    // Guarded by this
+    private void mergeAdded() {
+        UsernameIndex.Builder builder = new UsernameIndex.Builder(added.size());
+        added.forEach(builder::add);
+        UsernameIndex merged = index.merge(builder.build(), maxNames);
+        if (merged.size() - index.size() < added.size()) warnFull();
+        index = merged;
+        added.clear();
+    }
+
+    private synchronized void warnFull() {
+        if (warnedFull) return;
+        warnedFull = true;
+        logger.warning(String.format("The username index is full at %d names; names past it aren't suggested. " +
+                "Raise settings.tab-complete.max-names to index them.", maxNames));
+    }
+
+    // === Queries ===
+
+    /**
+     * Finds stored usernames starting with a prefix, ignoring case. Reads only memory, so it is safe to call
+     * from any thread, including the main thread.
+     *
+     * @param prefix The start of the name being typed
+     * @param limit  The most names to return
+     * @return The matching names in order, ignoring case
+     */
+    public List<String> complete(String prefix, int limit) {
+        if (!enabled || limit <= 0) return new ArrayList<>();
+        List<String> indexed = index.complete(prefix, limit);
+        synchronized (this) {
+            if (added.isEmpty()) return indexed;
+            TreeSet<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            names.addAll(indexed);
+            int taken = 0;
+            for (String name : added.tailSet(prefix, true)) {
+                // Later names sort after these, so can't make the first limit
+                if (taken++ == limit || !name.regionMatches(true, 0, prefix, 0, prefix.length())) break;
+                names.add(name);
+            }
+            List<String> merged = new ArrayList<>(Math.min(limit, names.size()));
+            for (String name : names) {
+                if (merged.size() == limit) break;
+                merged.add(name);
+            }
+            return merged;
+        }
+    }
+
+    // === Metrics ===
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The number of distinct usernames that can be suggested
+     */
+    public synchronized int getNameCount() {
+        return index.size() + added.size();
+    }
+
+    /**
+     * @return The bytes held by the index and the names waiting to be merged into it
+     */
+    public synchronized long getMemoryBytes() {
+        return index.memoryBytes() + (long) added.size() * ADDED_NAME_BYTES;
+    }
+}
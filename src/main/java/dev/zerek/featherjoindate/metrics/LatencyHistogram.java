@@ -0,0 +1,112 @@
+package dev.zerek.featherjoindate.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with fixed buckets. Recording only increments pre-allocated adders,
+ * so it can stay on permanently in hot paths.
+ */
+public final class LatencyHistogram {
+
+    // Upper bucket bounds in nanoseconds, from 0.1ms to 10s
+    private static final long[] BOUNDS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final String name;
+    private final String labels;
+    private final String help;
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram(String name, String labels, String help) {
+        this.name = name;
+        this.labels = labels;
+        this.help = help;
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records one observation.
+     *
+     * @param nanos The elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS.length && nanos > BOUNDS[bucket]) bucket++;
+        buckets[bucket].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since a System.nanoTime() start.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long observations = count.sum();
+        return observations == 0 ? 0 : sumNanos.sum() / 1_000_000.0 / observations;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket it falls in.
+     *
+     * @param percentile The percentile, between 0 and 1
+     * @return The estimated latency in milliseconds, or infinity if it falls beyond the largest bucket
+     */
+    public double getPercentileMillis(double percentile) {
+        long observations = count.sum();
+        if (observations == 0) return 0;
+        long target = (long) Math.ceil(observations * percentile);
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            cumulative += buckets[i].sum();
+            if (cumulative >= target) return BOUNDS[i] / 1_000_000.0;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The display name, including labels
+     */
+    public String getDisplayName() {
+        return labels.isEmpty() ? name : name + "{" + labels + "}";
+    }
+
+    void writeHeader(StringBuilder out) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+    }
+
+    void writeTo(StringBuilder out) {
+        String labelPrefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(labelPrefix).append("le=\"")
+                    .append(BOUNDS[i] / 1_000_000_000.0).append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += buckets[BOUNDS.length].sum();
+        out.append(name).append("_bucket{").append(labelPrefix).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ').append(sumNanos.sum() / 1_000_000_000.0).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(count.sum()).append('\n');
+    }
+}
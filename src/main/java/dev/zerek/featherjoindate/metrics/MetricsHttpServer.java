@@ -0,0 +1,77 @@
+package dev.zerek.featherjoindate.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Serves the plugin's metrics at /metrics in the Prometheus text exposition format.
+ * Scrapes are handled on a single daemon thread, never on the server thread.
+ */
+public class MetricsHttpServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Logger logger;
+    private final PluginMetrics metrics;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Binds the endpoint and starts serving.
+     *
+     * @param logger  The logger to report scrape errors to
+     * @param metrics The metrics to serve
+     * @param host    The address to bind to
+     * @param port    The port to bind to
+     * @throws IOException If the address can't be bound
+     */
+    public MetricsHttpServer(Logger logger, PluginMetrics metrics, String host, int port) throws IOException {
+        this.logger = logger;
+        this.metrics = metrics;
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FeatherJoinDate-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.createContext("/metrics", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.toExposition().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Unable to serve metrics: " + e.getMessage());
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Stops serving and releases the port.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,192 @@
+package dev.zerek.featherjoindate.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds every metric the plugin records. All metrics are created up front so the recording
+ * path never allocates, and values that already live elsewhere are read through gauges at scrape time.
+ */
+public class PluginMetrics {
+
+    private static final String PREFIX = "featherjoindate_";
+
+    private final List<Counter> counters = new ArrayList<>();
+    private final List<LatencyHistogram> histograms = new ArrayList<>();
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+
+    // === Database ===
+    private final LatencyHistogram storeJoinsLatency = histogram("store_joins_seconds", "", "Time to write one batch of joins");
+    private final Counter storedJoins = counter("stored_joins_total", "Joins written to the database");
+    private final Counter storeJoinsFailures = counter("store_joins_failures_total", "Join batches that were rolled back");
+    private final LatencyHistogram playerFullDataLatency = histogram("player_full_data_seconds", "", "Time to look up player records, including cache hits");
+    private final LatencyHistogram usernameLookupLatency = histogram("username_lookup_seconds", "", "Time to look up the UUIDs that used a username");
+    private final LatencyHistogram connectionAcquireLatency = histogram("connection_acquire_seconds", "", "Time to borrow a database connection from the pool");
+    private final Counter connectionFailures = counter("connection_failures_total", "Failed attempts to borrow a database connection");
+
+    // === MineTools ===
+    private final LatencyHistogram mineToolsLatency = histogram("minetools_request_seconds", "", "Time taken by MineTools API requests");
+    private final Counter mineToolsFailures = counter("minetools_failures_total", "MineTools API requests that failed");
+    private final Counter mineToolsCacheHits = counter("minetools_cache_hits_total", "MineTools lookups answered from the cache");
+    private final Counter mineToolsRejected = counter("minetools_rejected_total", "MineTools lookups refused because the queue was full");
+
+    // === Executor ===
+    private final LatencyHistogram ioQueueWait = histogram("io_queue_wait_seconds", "", "Time plugin I/O tasks waited for a thread");
+    private final Counter ioRejected = counter("io_rejected_total", "Plugin I/O tasks refused because the queue was full");
+
+    // === /seen ===
+    private final Counter seenRateLimited = counter("seen_rate_limited_total", "/seen requests refused by the per-sender rate limit");
+    private final Counter seenBusy = counter("seen_busy_total", "/seen lookups refused because every lookup worker was busy");
+
+    // === Main Thread ===
+    private final LatencyHistogram joinListenerLatency = histogram("listener_seconds", "listener=\"join\"", "Main thread time spent in event listeners");
+    private final LatencyHistogram showListenerLatency = histogram("listener_seconds", "listener=\"show\"", "Main thread time spent in event listeners");
+    private final LatencyHistogram quitListenerLatency = histogram("listener_seconds", "listener=\"quit\"", "Main thread time spent in event listeners");
+
+    private Counter counter(String name, String help) {
+        Counter counter = new Counter(PREFIX + name, help);
+        counters.add(counter);
+        return counter;
+    }
+
+    private LatencyHistogram histogram(String name, String labels, String help) {
+        LatencyHistogram histogram = new LatencyHistogram(PREFIX + name, labels, help);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Registers a value that is read when metrics are exported.
+     *
+     * @param name    The metric name, without the plugin prefix
+     * @param help    The metric description
+     * @param counter Whether the value only ever increases
+     * @param value   Supplies the current value
+     */
+    public void registerGauge(String name, String help, boolean counter, LongSupplier value) {
+        gauges.add(new Gauge(PREFIX + name, help, counter, value));
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     */
+    public String toExposition() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Counter counter : counters) counter.writeTo(out);
+
+        String lastHeader = null;
+        for (LatencyHistogram histogram : histograms) {
+            if (!histogram.getName().equals(lastHeader)) {
+                histogram.writeHeader(out);
+                lastHeader = histogram.getName();
+            }
+            histogram.writeTo(out);
+        }
+
+        for (Gauge gauge : gauges) gauge.writeTo(out);
+        return out.toString();
+    }
+
+    public List<LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableList(histograms);
+    }
+
+    public List<Counter> getCounters() {
+        return Collections.unmodifiableList(counters);
+    }
+
+    public LatencyHistogram getStoreJoinsLatency() {
+        return storeJoinsLatency;
+    }
+
+    public Counter getStoredJoins() {
+        return storedJoins;
+    }
+
+    public Counter getStoreJoinsFailures() {
+        return storeJoinsFailures;
+    }
+
+    public LatencyHistogram getPlayerFullDataLatency() {
+        return playerFullDataLatency;
+    }
+
+    public LatencyHistogram getUsernameLookupLatency() {
+        return usernameLookupLatency;
+    }
+
+    public LatencyHistogram getConnectionAcquireLatency() {
+        return connectionAcquireLatency;
+    }
+
+    public Counter getConnectionFailures() {
+        return connectionFailures;
+    }
+
+    public LatencyHistogram getMineToolsLatency() {
+        return mineToolsLatency;
+    }
+
+    public Counter getMineToolsFailures() {
+        return mineToolsFailures;
+    }
+
+    public Counter getMineToolsCacheHits() {
+        return mineToolsCacheHits;
+    }
+
+    public Counter getMineToolsRejected() {
+        return mineToolsRejected;
+    }
+
+    public LatencyHistogram getIoQueueWait() {
+        return ioQueueWait;
+    }
+
+    public Counter getIoRejected() {
+        return ioRejected;
+    }
+
+    public Counter getSeenRateLimited() {
+        return seenRateLimited;
+    }
+
+    public Counter getSeenBusy() {
+        return seenBusy;
+    }
+
+    public LatencyHistogram getJoinListenerLatency() {
+        return joinListenerLatency;
+    }
+
+    public LatencyHistogram getShowListenerLatency() {
+        return showListenerLatency;
+    }
+
+    public LatencyHistogram getQuitListenerLatency() {
+        return quitListenerLatency;
+    }
+
+    private static final class Gauge {
+        private final String name;
+        private final String help;
+        private final boolean counter;
+        private final LongSupplier value;
+
+        private Gauge(String name, String help, boolean counter, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.counter = counter;
+            this.value = value;
+        }
+
+        private void writeTo(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(counter ? " counter\n" : " gauge\n");
+            out.append(name).append(' ').append(value.getAsLong()).append('\n');
+        }
+    }
+}
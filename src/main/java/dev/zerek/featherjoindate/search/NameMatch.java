@@ -0,0 +1,72 @@
+package dev.zerek.featherjoindate.search;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * One account's best matching username for a /seen search. Matches order best first: the whole name before the
+ * start of a name before anywhere in it, then current names before past ones, then shorter names, then by name.
+ */
+public final class NameMatch implements Comparable<NameMatch> {
+
+    static final int EXACT = 0;
+    static final int PREFIX = 1;
+    static final int CONTAINS = 2;
+
+    private final UUID uuid;
+    private final String name;
+    private final boolean current;
+    private final int tier;
+
+    NameMatch(UUID uuid, String name, boolean current, int tier) {
+        this.uuid = uuid;
+        this.name = name;
+        this.current = current;
+        this.tier = tier;
+    }
+
+    /**
+     * Matches a name held outside the index, such as one written since the index was built.
+     *
+     * @param fragment The fragment searched for
+     * @return The match, or null if the name doesn't contain the fragment
+     */
+    public static NameMatch of(UUID uuid, String name, boolean current, String fragment) {
+        int at = name.toLowerCase(Locale.ROOT).indexOf(fragment.toLowerCase(Locale.ROOT));
+        if (at < 0) return null;
+        return new NameMatch(uuid, name, current, at > 0 ? CONTAINS : name.length() == fragment.length() ? EXACT : PREFIX);
+    }
+
+    /**
+     * @return This match, marked as a past name
+     */
+    public NameMatch asPast() {
+        return current ? new NameMatch(uuid, name, false, tier) : this;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return The username that matched
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if the matched name is the account's current name
+     */
+    public boolean isCurrent() {
+        return current;
+    }
+
+    @Override
+    public int compareTo(NameMatch other) {
+        if (tier != other.tier) return Integer.compare(tier, other.tier);
+        if (current != other.current) return current ? -1 : 1;
+        if (name.length() != other.name.length()) return Integer.compare(name.length(), other.name.length());
+        return name.compareToIgnoreCase(other.name);
+    }
+}
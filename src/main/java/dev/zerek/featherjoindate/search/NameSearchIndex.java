@@ -0,0 +1,388 @@
+package dev.zerek.featherjoindate.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Every stored username with the account that used it, indexed by trigram so any part of a name can be found
+ * without scanning. Each name's three-character runs, folded to lower case, map to a posting list of the names
+ * containing them; a search reads the rarest list among the fragment's trigrams and checks just those names.
+ *
+ * Kept in primitive arrays so a few million names cost about 35 bytes each: names are packed into one byte array
+ * as a length byte followed by their UTF-8 bytes, accounts are two long arrays referenced by index, and posting
+ * lists are ascending name indexes stored as variable-length deltas, mostly a byte each.
+ *
+ * Immutable, so searches can read it from any thread; names written later are added by rebuilding.
+ */
+public final class NameSearchIndex {
+
+    /**
+     * The shortest fragment that can be searched for, as it must hold a whole trigram.
+     */
+    public static final int MIN_FRAGMENT_LENGTH = 3;
+
+    // Names must fit their length byte
+    private static final int MAX_NAME_BYTES = 255;
+    // Folded characters: a-z, 0-9, _ and one code for anything else, which names are checked against anyway
+    private static final int ALPHABET = 38;
+    private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+
+    public static final NameSearchIndex EMPTY = new Builder(0).build();
+
+    private final long[] mostSigBits;
+    private final long[] leastSigBits;
+    // Per name: the account that used it and where it starts in the pool
+    private final int[] accounts;
+    private final int[] offsets;
+    private final byte[] pool;
+    // Names that are their account's current name
+    private final BitSet current;
+    // Per trigram: where its posting list starts in postings, with one extra end marker, and how many names it holds
+    private final int[] postingStarts;
+    private final int[] postingCounts;
+    private final byte[] postings;
+
+    private NameSearchIndex(long[] mostSigBits, long[] leastSigBits, int[] accounts, int[] offsets, byte[] pool,
+                            BitSet current, int[] postingStarts, int[] postingCounts, byte[] postings) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+        this.accounts = accounts;
+        this.offsets = offsets;
+        this.pool = pool;
+        this.current = current;
+        this.postingStarts = postingStarts;
+        this.postingCounts = postingCounts;
+        this.postings = postings;
+    }
+
+    // === Queries ===
+
+    /**
+     * @return The number of names indexed
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @return The bytes held by the index
+     */
+    public long memoryBytes() {
+        return 16L * mostSigBits.length + 8L * accounts.length + pool.length + current.size() / 8
+                + 8L * TRIGRAMS + postings.length;
+    }
+
+    /**
+     * Finds the accounts that have used a name containing a fragment, ignoring case, each by its best matching name.
+     *
+     * @param fragment Part of a name, at least {@link #MIN_FRAGMENT_LENGTH} bytes long
+     * @param limit    The most accounts to return
+     * @return The matches, best first
+     */
+    public List<NameMatch> search(String fragment, int limit) {
+        List<NameMatch> matches = new ArrayList<>();
+        byte[] query = fragment.getBytes(StandardCharsets.UTF_8);
+        if (query.length < MIN_FRAGMENT_LENGTH || limit <= 0) return matches;
+
+        int rarest = rarestTrigram(query);
+        if (rarest < 0) return matches;
+
+        // Rank by a packed key so hundreds of thousands of matches sort as primitives: tier, then current names
+        // first, then shorter names, then index order
+        int[] candidates = postingList(rarest);
+        long[] keys = new long[candidates.length];
+        int found = 0;
+        for (int name : candidates) {
+            int tier = match(name, query);
+            if (tier < 0) continue;
+            keys[found++] = (long) tier << 60 | (current.get(name) ? 0L : 1L) << 59
+                    | (long) (pool[offsets[name]] & 0xFF) << 51 | name;
+        }
+        Arrays.sort(keys, 0, found);
+
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < found && matches.size() < limit; i++) {
+            int match = (int) (keys[i] & 0x7FFFFFFFL);
+            int account = accounts[match];
+            if (!seen.add(account)) continue;
+            matches.add(new NameMatch(new UUID(mostSigBits[account], leastSigBits[account]), nameAt(match),
+                    current.get(match), (int) (keys[i] >>> 60)));
+        }
+        return matches;
+    }
+
+    /**
+     * @param uuid The account
+     * @param name The name, matched ignoring case
+     * @return true if the account's use of the name is indexed
+     */
+    public boolean contains(UUID uuid, String name) {
+        byte[] query = name.getBytes(StandardCharsets.UTF_8);
+        if (query.length < MIN_FRAGMENT_LENGTH) return false;
+        int rarest = rarestTrigram(query);
+        if (rarest < 0) return false;
+        for (int candidate : postingList(rarest)) {
+            int account = accounts[candidate];
+            if (mostSigBits[account] == uuid.getMostSignificantBits() && leastSigBits[account] == uuid.getLeastSignificantBits()
+                    && match(candidate, query) == NameMatch.EXACT) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The names containing a trigram, in index order
+     */
+    private int[] postingList(int trigram) {
+        int[] names = new int[postingCounts[trigram]];
+        int position = postingStarts[trigram];
+        int name = -1;
+        for (int i = 0; i < names.length; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = postings[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            name += delta;
+            names[i] = name;
+        }
+        return names;
+    }
+
+    /**
+     * @return The trigram of the query with the shortest posting list, or -1 if one has none, so nothing can match
+     */
+    private int rarestTrigram(byte[] query) {
+        int rarest = -1;
+        for (int i = 0; i + 2 < query.length; i++) {
+            int trigram = trigram(query, i);
+            if (postingCounts[trigram] == 0) return -1;
+            if (rarest < 0 || postingCounts[trigram] < postingCounts[rarest]) rarest = trigram;
+        }
+        return rarest;
+    }
+
+    /**
+     * @return How a name matches the query, or -1 if it doesn't contain it
+     */
+    private int match(int name, byte[] query) {
+        int start = offsets[name] + 1;
+        int length = pool[offsets[name]] & 0xFF;
+        for (int at = 0; at + query.length <= length; at++) {
+            int i = 0;
+            while (i < query.length && fold(pool[start + at + i]) == fold(query[i])) i++;
+            if (i < query.length) continue;
+            if (at > 0) return NameMatch.CONTAINS;
+            return length == query.length ? NameMatch.EXACT : NameMatch.PREFIX;
+        }
+        return -1;
+    }
+
+    private String nameAt(int name) {
+        return new String(pool, offsets[name] + 1, pool[offsets[name]] & 0xFF, StandardCharsets.UTF_8);
+    }
+
+    // === Rebuilding ===
+
+    /**
+     * Adds every indexed name to a builder, for rebuilding with names written since.
+     * Names written since by an indexed account are added to that account, so it is still found once;
+     * the names of accounts this index doesn't have are left in the map for the caller to add.
+     *
+     * @param builder  The builder to add to
+     * @param renamed  Accounts whose current name has changed since this index was built, by UUID
+     * @param written  Names written since this index was built, by UUID; indexed accounts are removed
+     */
+    public void copyTo(Builder builder, Map<UUID, String> renamed, Map<UUID, List<String>> written) {
+        int name = 0;
+        while (name < offsets.length) {
+            int account = accounts[name];
+            UUID uuid = new UUID(mostSigBits[account], leastSigBits[account]);
+            String renamedTo = renamed.get(uuid);
+            builder.addAccount(uuid);
+            for (; name < offsets.length && accounts[name] == account; name++) {
+                builder.addName(nameAt(name), current.get(name) && renamedTo == null);
+            }
+            List<String> names = written.remove(uuid);
+            if (names != null) {
+                for (String added : names) builder.addName(added, added.equals(renamedTo));
+            }
+        }
+    }
+
+    // === Trigrams ===
+
+    private static int trigram(byte[] bytes, int at) {
+        return (code(bytes[at]) * ALPHABET + code(bytes[at + 1])) * ALPHABET + code(bytes[at + 2]);
+    }
+
+    private static int code(byte b) {
+        if (b >= 'a' && b <= 'z') return b - 'a';
+        if (b >= 'A' && b <= 'Z') return b - 'A';
+        if (b >= '0' && b <= '9') return 26 + b - '0';
+        return b == '_' ? 36 : 37;
+    }
+
+    private static int fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    /**
+     * Collects accounts and their names in any order, then builds the posting lists in two passes over the names:
+     * one to size every list, one to fill them, so no list is ever grown or copied.
+     */
+    public static final class Builder {
+
+        private final int maxNames;
+        private long[] mostSigBits = new long[1024];
+        private long[] leastSigBits = new long[1024];
+        private int accountCount;
+        private UUID pendingAccount;
+        private int[] accounts = new int[1024];
+        private int[] offsets = new int[1024];
+        private int size;
+        private byte[] pool = new byte[1024 * 16];
+        private int poolSize;
+        private final BitSet current = new BitSet();
+
+        /**
+         * @param maxNames The most names the index may hold; names past it are refused
+         */
+        public Builder(int maxNames) {
+            this.maxNames = maxNames;
+        }
+
+        /**
+         * Starts an account; the names added after belong to it.
+         *
+         * @param uuid The account
+         */
+        public void addAccount(UUID uuid) {
+            pendingAccount = uuid;
+        }
+
+        /**
+         * Adds a name the current account has used. Names too short to hold a trigram can never match, so are skipped.
+         *
+         * @param name    The name
+         * @param current true if it is the account's current name
+         * @return false if the name was skipped, or refused because the index is full
+         */
+        public boolean addName(String name, boolean current) {
+            if (size >= maxNames || (pendingAccount == null && accountCount == 0)) return false;
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < MIN_FRAGMENT_LENGTH || bytes.length > MAX_NAME_BYTES) return false;
+
+            if (pendingAccount != null) {
+                if (accountCount == mostSigBits.length) {
+                    mostSigBits = Arrays.copyOf(mostSigBits, accountCount + (accountCount >> 1));
+                    leastSigBits = Arrays.copyOf(leastSigBits, accountCount + (accountCount >> 1));
+                }
+                mostSigBits[accountCount] = pendingAccount.getMostSignificantBits();
+                leastSigBits[accountCount] = pendingAccount.getLeastSignificantBits();
+                accountCount++;
+                pendingAccount = null;
+            }
+            if (size == offsets.length) {
+                accounts = Arrays.copyOf(accounts, size + (size >> 1));
+                offsets = Arrays.copyOf(offsets, size + (size >> 1));
+            }
+            if (poolSize + bytes.length + 1 > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(poolSize + bytes.length + 1, pool.length + (pool.length >> 1)));
+            }
+            accounts[size] = accountCount - 1;
+            offsets[size] = poolSize;
+            if (current) this.current.set(size);
+            size++;
+            pool[poolSize++] = (byte) bytes.length;
+            System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+            poolSize += bytes.length;
+            return true;
+        }
+
+        /**
+         * @return true once no more names will be accepted
+         */
+        public boolean isFull() {
+            return size >= maxNames;
+        }
+
+        public NameSearchIndex build() {
+            int[] counts = new int[TRIGRAMS];
+            int[] starts = new int[TRIGRAMS + 1];
+            int[] last = new int[TRIGRAMS];
+            int[] seen = new int[MAX_NAME_BYTES];
+
+            // Size each list: its entry count and the bytes its deltas take
+            Arrays.fill(last, -1);
+            for (int name = 0; name < size; name++) {
+                int distinct = trigramsOf(name, seen);
+                for (int i = 0; i < distinct; i++) {
+                    int trigram = seen[i];
+                    counts[trigram]++;
+                    starts[trigram + 1] += varintSize(name - last[trigram]);
+                    last[trigram] = name;
+                }
+            }
+            for (int trigram = 0; trigram < TRIGRAMS; trigram++) starts[trigram + 1] += starts[trigram];
+
+            // Fill them
+            byte[] postings = new byte[starts[TRIGRAMS]];
+            int[] positions = Arrays.copyOf(starts, TRIGRAMS);
+            Arrays.fill(last, -1);
+            for (int name = 0; name < size; name++) {
+                int distinct = trigramsOf(name, seen);
+                for (int i = 0; i < distinct; i++) {
+                    int trigram = seen[i];
+                    int delta = name - last[trigram];
+                    while (delta >= 0x80) {
+                        postings[positions[trigram]++] = (byte) (delta | 0x80);
+                        delta >>>= 7;
+                    }
+                    postings[positions[trigram]++] = (byte) delta;
+                    last[trigram] = name;
+                }
+            }
+
+            return new NameSearchIndex(Arrays.copyOf(mostSigBits, accountCount), Arrays.copyOf(leastSigBits, accountCount),
+                    Arrays.copyOf(accounts, size), Arrays.copyOf(offsets, size), Arrays.copyOf(pool, poolSize),
+                    (BitSet) current.clone(), starts, counts, postings);
+        }
+
+        /**
+         * Writes the distinct trigrams of a name into seen.
+         *
+         * @return How many there are
+         */
+        private int trigramsOf(int name, int[] seen) {
+            int start = offsets[name] + 1;
+            int length = pool[offsets[name]] & 0xFF;
+            int distinct = 0;
+            for (int i = 0; i + 2 < length; i++) {
+                int trigram = trigram(pool, start + i);
+                boolean repeated = false;
+                for (int j = 0; j < distinct && !repeated; j++) repeated = seen[j] == trigram;
+                if (!repeated) seen[distinct++] = trigram;
+            }
+            return distinct;
+        }
+
+        private static int varintSize(int value) {
+            int bytes = 1;
+            while (value >= 0x80) {
+                value >>>= 7;
+                bytes++;
+            }
+            return bytes;
+        }
+    }
+}
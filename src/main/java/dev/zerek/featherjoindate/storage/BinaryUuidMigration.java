@@ -0,0 +1,238 @@
+package dev.zerek.featherjoindate.storage;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Converts the MySQL mojang_uuid columns from VARCHAR(64) text to BINARY(16).
+ *
+ * Each table gets a uuid_bin column that is filled in small committed chunks, so the tables stay writable
+ * and a restart picks up where the last run stopped. Once every row has its bytes, each table swaps
+ * uuid_bin in as mojang_uuid in a single ALTER, and DatabaseManager then puts the foreign key back.
+ * Every step checks the current schema first, so running the migration again is always safe.
+ * MySQL can't swap both tables atomically, so everything that could make a swap fail is checked before
+ * the first one; a crash between the two leaves the usernames swap for the next run to finish.
+ * Until it has, the tables disagree and DatabaseManager keeps the database from being used.
+ */
+public class BinaryUuidMigration {
+
+    private static final String FOREIGN_KEY = "fk_usernames_mojang_uuid";
+    // Rows of the key range converted per committed UPDATE
+    private static final int BACKFILL_CHUNK_SIZE = 10_000;
+
+    private final Logger logger;
+
+    public BinaryUuidMigration(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Runs any migration steps that haven't completed yet.
+     *
+     * @param conn A connection with autocommit on
+     * @return true if both tables now store binary UUIDs
+     */
+    public boolean migrate(Connection conn) throws SQLException {
+        boolean joinsPending = isPending(conn, "joins");
+        boolean usernamesPending = isPending(conn, "usernames");
+        if (!joinsPending && !usernamesPending) return true;
+
+        logger.info("Migrating player UUIDs to binary storage. Large tables may take a few minutes.");
+
+        if (joinsPending) backfill(conn, "joins");
+        if (usernamesPending) backfill(conn, "usernames");
+
+        long unconverted = countUnconverted(conn, "joins") + countUnconverted(conn, "usernames");
+        if (unconverted > 0) {
+            logger.severe(String.format("UUID migration stopped: %d rows have a mojang_uuid that isn't a valid UUID. " +
+                    "Fix or remove them and restart to finish the migration.", unconverted));
+            return false;
+        }
+
+        // UUID text differing only in case or dashes converts to the same bytes, which the rebuilt keys would reject
+        long duplicates = (joinsPending ? countDuplicates(conn, "joins", "uuid_bin") : 0)
+                + (usernamesPending ? countDuplicates(conn, "usernames", "uuid_bin, username") : 0);
+        if (duplicates > 0) {
+            logger.severe(String.format("UUID migration stopped: %d players are stored more than once under UUIDs that " +
+                    "differ only in case or dashes. Merge or remove the duplicates and restart to finish the migration.", duplicates));
+            return false;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            if (foreignKeyExists(conn)) {
+                stmt.execute("ALTER TABLE usernames DROP FOREIGN KEY " + FOREIGN_KEY);
+            }
+            if (joinsPending) {
+                stmt.execute("ALTER TABLE joins DROP PRIMARY KEY, DROP COLUMN mojang_uuid, " +
+                        "CHANGE COLUMN uuid_bin mojang_uuid BINARY(16) NOT NULL, ADD PRIMARY KEY (mojang_uuid)");
+            }
+            if (usernamesPending) {
+                String dropIndex = indexExists(conn, "usernames", "unique_uuid_username") ? "DROP INDEX unique_uuid_username, " : "";
+                stmt.execute("ALTER TABLE usernames " + dropIndex + "DROP COLUMN mojang_uuid, " +
+                        "CHANGE COLUMN uuid_bin mojang_uuid BINARY(16) NOT NULL, " +
+                        "ADD UNIQUE INDEX unique_uuid_username (mojang_uuid, username)");
+            }
+        }
+        // The foreign key is added back by DatabaseManager once both tables match
+
+        logger.info("Player UUID migration complete.");
+        return true;
+    }
+
+    /**
+     * A table still needs migrating while its mojang_uuid column is text or its uuid_bin column is left over.
+     */
+    private boolean isPending(Connection conn, String table) throws SQLException {
+        return !isBinaryColumn(conn, table, "mojang_uuid") || columnExists(conn, table, "uuid_bin");
+    }
+
+    /**
+     * Fills in uuid_bin for every row of a table whose mojang_uuid is a valid UUID, one committed key range at a time.
+     * Chunks walk the table's key, joins' mojang_uuid or usernames' id, so each row is read once however many
+     * rows earlier runs converted. Rows whose text isn't a UUID stay NULL and are reported by countUnconverted.
+     *
+     * @param conn  A connection with autocommit on
+     * @param table "joins" or "usernames"
+     * @return The number of rows converted
+     */
+    public long backfill(Connection conn, String table) throws SQLException {
+        if (!columnExists(conn, table, "uuid_bin")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN uuid_bin BINARY(16) NULL");
+            }
+        }
+        return table.equals("joins") ? backfillByUuid(conn) : backfillById(conn, table);
+    }
+
+    private static String convert(String table) {
+        return "UPDATE " + table + " SET uuid_bin = UNHEX(REPLACE(mojang_uuid, '-', '')) " +
+                "WHERE uuid_bin IS NULL AND mojang_uuid REGEXP '^[0-9a-fA-F]{8}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{12}$' AND ";
+    }
+
+    /**
+     * Walks the joins primary key: each chunk looks up the key BACKFILL_CHUNK_SIZE rows past the last one,
+     * then converts the range up to it.
+     */
+    private long backfillByUuid(Connection conn) throws SQLException {
+        long converted = 0;
+        int chunks = 0;
+        String from = "";
+        try (PreparedStatement next = conn.prepareStatement(
+                "SELECT mojang_uuid FROM joins WHERE mojang_uuid > ? ORDER BY mojang_uuid LIMIT 1 OFFSET " + (BACKFILL_CHUNK_SIZE - 1));
+             PreparedStatement range = conn.prepareStatement(convert("joins") + "mojang_uuid > ? AND mojang_uuid <= ?");
+             PreparedStatement rest = conn.prepareStatement(convert("joins") + "mojang_uuid > ?")) {
+            while (true) {
+                String to;
+                next.setString(1, from);
+                try (ResultSet rs = next.executeQuery()) {
+                    to = rs.next() ? rs.getString(1) : null;
+                }
+                if (to == null) {
+                    rest.setString(1, from);
+                    return converted + rest.executeUpdate();
+                }
+                range.setString(1, from);
+                range.setString(2, to);
+                converted += range.executeUpdate();
+                from = to;
+                logProgress("joins", converted, ++chunks);
+            }
+        }
+    }
+
+    /**
+     * Walks the auto-increment id in fixed ranges up to the highest id, as the username_lower backfill does.
+     */
+    private long backfillById(Connection conn, String table) throws SQLException {
+        long maxId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM " + table)) {
+            maxId = rs.next() ? rs.getLong(1) : 0;
+        }
+
+        long converted = 0;
+        int chunks = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(convert(table) + "id > ? AND id <= ?")) {
+            for (long from = 0; from < maxId; from += BACKFILL_CHUNK_SIZE) {
+                stmt.setLong(1, from);
+                stmt.setLong(2, from + BACKFILL_CHUNK_SIZE);
+                converted += stmt.executeUpdate();
+                logProgress(table, converted, ++chunks);
+            }
+        }
+        return converted;
+    }
+
+    private void logProgress(String table, long converted, int chunks) {
+        if (chunks % 50 == 0) logger.info(String.format("Converted %d UUIDs in %s...", converted, table));
+    }
+
+    private long countUnconverted(Connection conn, String table) throws SQLException {
+        if (!columnExists(conn, table, "uuid_bin")) return 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table + " WHERE uuid_bin IS NULL")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * @param key The columns the converted table's unique key will cover
+     * @return The number of converted keys held by more than one row
+     */
+    private long countDuplicates(Connection conn, String table, String key) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM (SELECT 1 FROM " + table +
+                     " GROUP BY " + key + " HAVING COUNT(*) > 1) duplicates")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // === Introspection ===
+
+    /**
+     * Checks whether a column holds raw bytes. MySQL reports BINARY(16) as BINARY and SQLite reports BLOB columns by name.
+     */
+    public static boolean isBinaryColumn(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            if (!rs.next()) return false;
+            int type = rs.getInt("DATA_TYPE");
+            String typeName = rs.getString("TYPE_NAME");
+            if (type == Types.BINARY || type == Types.VARBINARY || type == Types.BLOB || type == Types.LONGVARBINARY) return true;
+            if (typeName == null) return false;
+            String upper = typeName.toUpperCase(Locale.ROOT);
+            return upper.contains("BINARY") || upper.contains("BLOB");
+        }
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            return rs.next();
+        }
+    }
+
+    private static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean foreignKeyExists(Connection conn) throws SQLException {
+        DatabaseMetaData md = conn.getMetaData();
+        try (ResultSet rs = md.getImportedKeys(conn.getCatalog(), null, "usernames")) {
+            while (rs.next()) {
+                if (FOREIGN_KEY.equalsIgnoreCase(rs.getString("FK_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+}
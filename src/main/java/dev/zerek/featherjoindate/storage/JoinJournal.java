@@ -0,0 +1,301 @@
+package dev.zerek.featherjoindate.storage;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of joins kept in the plugin folder, so joins survive a crash or a database outage
+ * until they have been written to the database.
+ *
+ * Joins are appended to the active segment file as they are queued, which survives the server process dying.
+ * {@link #sync()} forces the segment to disk, which also survives the machine going down.
+ * Compaction replaces every older segment with one holding only the joins that still have to be written.
+ *
+ * Each record is [crc32 int][length short][uuid msb long][uuid lsb long][joined at long][username UTF-8],
+ * so a record torn by a crash is detected and skipped on replay. Merged joins are written as the single joins
+ * they {@link JoinEvent#split() split} into, which merge back into them on replay.
+ */
+public class JoinJournal {
+
+    private static final String SEGMENT_PREFIX = "joins-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 4 + 2;
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 8 + 8;
+    // Usernames are at most 16 characters; anything near this is not a username
+    private static final int MAX_USERNAME_BYTES = 256;
+
+    private final Logger logger;
+    private final File directory;
+    private final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + FIXED_PAYLOAD_BYTES + MAX_USERNAME_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    private long nextSequence;
+    private FileChannel active;
+    private long activeSequence = -1;
+    private long size;
+
+    /**
+     * Opens the journal in a directory, creating the directory if it doesn't exist.
+     * Segments left from a previous run are kept until {@link #replay()} and a later compaction have dealt with them.
+     *
+     * @param logger    The logger to report unreadable segments to
+     * @param directory The directory holding the segment files
+     * @throws IOException If the directory can't be created
+     */
+    public JoinJournal(Logger logger, File directory) throws IOException {
+        this.logger = logger;
+        this.directory = directory;
+        Files.createDirectories(directory.toPath());
+
+        // A compaction interrupted before its rename leaves a partial copy; the originals are still in place
+        File[] partial = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX + ".tmp"));
+        if (partial != null) for (File file : partial) file.delete();
+
+        for (File segment : listSegments()) {
+            nextSequence = Math.max(nextSequence, sequenceOf(segment) + 1);
+            size += segment.length();
+        }
+    }
+
+    // === Writing ===
+
+    /**
+     * Appends a join to the active segment. The write reaches the OS before this returns, but not necessarily the disk.
+     *
+     * @param join The join to record
+     * @throws IOException If the segment can't be written
+     */
+    public synchronized void append(JoinEvent join) throws IOException {
+        for (JoinEvent single : join.split()) {
+            byte[] username = single.getUsername().getBytes(StandardCharsets.UTF_8);
+            if (username.length > MAX_USERNAME_BYTES) throw new IOException("Username too long to journal: " + single.getUsername());
+
+            if (active == null) {
+                activeSequence = nextSequence++;
+                active = FileChannel.open(segmentFile(activeSequence).toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+
+            encode(single, username);
+            while (buffer.hasRemaining()) size += active.write(buffer);
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk. Appends can continue while the force runs.
+     *
+     * @throws IOException If the segment can't be forced
+     */
+    public void sync() throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            channel = active;
+        }
+        if (channel == null) return;
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Rotated away concurrently; rotation forces the segment before closing it
+        }
+    }
+
+    // === Compaction ===
+
+    /**
+     * Closes the active segment so later appends start a new one, and reserves the sequence number
+     * for the compacted segment that will replace everything before it.
+     * Take the set of live joins after this returns; as long as joins are recorded as live before they are
+     * appended, every join in the rotated segments is then either live or already in the database.
+     * The closed segment is forced to disk after appends have moved on to the next one, so they don't wait on it.
+     *
+     * @return The sequence number to pass to {@link #compact(long, Collection)}
+     * @throws IOException If the active segment can't be forced
+     */
+    public long rotate() throws IOException {
+        FileChannel rotated;
+        long compactedSequence;
+        synchronized (this) {
+            rotated = active;
+            active = null;
+            activeSequence = -1;
+            compactedSequence = nextSequence++;
+        }
+        if (rotated != null) {
+            try {
+                rotated.force(false);
+            } finally {
+                rotated.close();
+            }
+        }
+        return compactedSequence;
+    }
+
+    /**
+     * Replaces every segment older than a rotation with one holding only the given joins.
+     * Joins appended since the rotation are in newer segments and are kept.
+     * The replacement is complete on disk before the old segments are deleted, so a crash part way through
+     * replays some joins twice, which the idempotent upsert absorbs, rather than losing any.
+     *
+     * @param compactedSequence The sequence number returned by {@link #rotate()}
+     * @param live              The joins from the rotated segments that haven't been written to the database yet
+     * @throws IOException If the replacement segment can't be written
+     */
+    public void compact(long compactedSequence, Collection<JoinEvent> live) throws IOException {
+        long written = 0;
+        if (!live.isEmpty()) {
+            File temp = new File(directory, SEGMENT_PREFIX + compactedSequence + SEGMENT_SUFFIX + ".tmp");
+            ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + FIXED_PAYLOAD_BYTES + MAX_USERNAME_BYTES);
+            CRC32 checksum = new CRC32();
+            try (FileChannel channel = FileChannel.open(temp.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (JoinEvent join : live) {
+                    for (JoinEvent single : join.split()) {
+                        byte[] username = single.getUsername().getBytes(StandardCharsets.UTF_8);
+                        if (username.length > MAX_USERNAME_BYTES) continue;
+                        encode(out, checksum, single, username);
+                        while (out.hasRemaining()) written += channel.write(out);
+                    }
+                }
+                channel.force(false);
+            }
+            Files.move(temp.toPath(), segmentFile(compactedSequence).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // Appends only ever go to segments newer than the rotation, so old ones are deleted without holding them up
+        for (File segment : listSegments()) {
+            long sequence = sequenceOf(segment);
+            if (sequence < compactedSequence && !segment.delete()) {
+                logger.warning("Unable to delete compacted journal segment " + segment.getName());
+            }
+        }
+        synchronized (this) {
+            size = written + (active != null ? active.size() : 0);
+        }
+    }
+
+    /**
+     * @return The bytes held in segment files, compacted or not
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Forces and closes the active segment. The journal can still be appended to afterwards.
+     */
+    public synchronized void close() throws IOException {
+        closeActive();
+    }
+
+    // === Replay ===
+
+    /**
+     * Reads every join in every segment, oldest segment first.
+     * A segment is read up to its first torn or corrupt record; the rest of that segment is skipped.
+     *
+     * @return The journaled joins
+     * @throws IOException If a segment can't be read
+     */
+    public synchronized List<JoinEvent> replay() throws IOException {
+        List<JoinEvent> joins = new ArrayList<>();
+        for (File segment : listSegments()) {
+            if (sequenceOf(segment) == activeSequence) continue;
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment.toPath()));
+            CRC32 checksum = new CRC32();
+
+            while (data.remaining() >= HEADER_BYTES) {
+                int expected = data.getInt();
+                int length = data.getShort() & 0xFFFF;
+                if (length < FIXED_PAYLOAD_BYTES || length > FIXED_PAYLOAD_BYTES + MAX_USERNAME_BYTES || data.remaining() < length) {
+                    logger.warning(String.format("Journal segment %s ends in a torn record, skipping the rest.", segment.getName()));
+                    break;
+                }
+                checksum.reset();
+                checksum.update(data.array(), data.position(), length);
+                if ((int) checksum.getValue() != expected) {
+                    logger.warning(String.format("Journal segment %s has a corrupt record, skipping the rest.", segment.getName()));
+                    break;
+                }
+
+                UUID uuid = new UUID(data.getLong(), data.getLong());
+                long joinedAt = data.getLong();
+                byte[] username = new byte[length - FIXED_PAYLOAD_BYTES];
+                data.get(username);
+                joins.add(new JoinEvent(uuid, new String(username, StandardCharsets.UTF_8), joinedAt));
+            }
+        }
+        return joins;
+    }
+
+    // === Helpers ===
+
+    private void encode(JoinEvent join, byte[] username) {
+        encode(buffer, crc, join, username);
+    }
+
+    private static void encode(ByteBuffer out, CRC32 checksum, JoinEvent join, byte[] username) {
+        int length = FIXED_PAYLOAD_BYTES + username.length;
+        out.clear();
+        out.position(HEADER_BYTES);
+        out.putLong(join.getUuid().getMostSignificantBits());
+        out.putLong(join.getUuid().getLeastSignificantBits());
+        out.putLong(join.getLastJoinedAt());
+        out.put(username);
+
+        checksum.reset();
+        checksum.update(out.array(), HEADER_BYTES, length);
+        out.putInt(0, (int) checksum.getValue());
+        out.putShort(4, (short) length);
+        out.flip();
+    }
+
+    private void closeActive() throws IOException {
+        if (active == null) return;
+        try {
+            active.force(false);
+        } finally {
+            active.close();
+            active = null;
+            activeSequence = -1;
+        }
+    }
+
+    private File segmentFile(long sequence) {
+        return new File(directory, SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+    }
+
+    private List<File> listSegments() {
+        List<File> segments = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) return segments;
+        for (File file : files) {
+            if (sequenceOf(file) >= 0) segments.add(file);
+        }
+        segments.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return segments;
+    }
+
+    private static long sequenceOf(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dev.zerek.featherjoindate.storage;
+
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.PlaytimeDelta;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes joins in one database backend.
+ * Implementations only talk to the database; caching, metrics and error reporting are left to JoinManager.
+ * Usernames are matched ignoring case by every backend.
+ */
+public interface JoinStore {
+
+    /**
+     * Receives records one at a time as {@link #exportRecords(RecordSink)} streams them.
+     */
+    interface RecordSink {
+        void accept(UUID uuid, PlayerJoinRecord record) throws IOException;
+    }
+
+    /**
+     * Stores a batch of joins in a single transaction.
+     * New players get their first join time as their join date, existing players have last_login moved forward
+     * to their last join time, and usernames that are not already stored are added in the order they were used.
+     * Storing a join again, or out of order, leaves the stored dates unchanged.
+     *
+     * @param joins The joins to store, at most one per UUID
+     * @throws SQLException If the batch could not be written; nothing is committed
+     */
+    void storeJoins(Collection<JoinEvent> joins) throws SQLException;
+
+    /**
+     * Bulk loads what other sources know about players from before they were recorded, in a single transaction.
+     * Existing players keep the earlier join date and the later last_login.
+     * Usernames are only stored for players that have none yet, so a name recorded since stays the latest.
+     *
+     * @param history At most one entry per UUID; entries without a timestamp are skipped
+     * @throws SQLException If the history could not be written; nothing is committed
+     */
+    void importHistory(Collection<HistoricalJoin> history) throws SQLException;
+
+    /**
+     * Adds measured playtime to players' stored totals in a single transaction, and reads the totals back in it.
+     * Players without a stored join are skipped, and left out of the result so their playtime can be added once
+     * they have one.
+     *
+     * @param deltas The playtime to add per player
+     * @return The stored playtime in milliseconds after the write, for the players whose playtime was added
+     * @throws SQLException If the playtime could not be written; nothing is committed
+     */
+    Map<UUID, Long> addPlaytime(Map<UUID, PlaytimeDelta> deltas) throws SQLException;
+
+    /**
+     * Writes complete records, such as from an export, in a single transaction.
+     * Existing players keep the earlier join date and the later last_login, and usernames are added in history order.
+     *
+     * @param records The records to write
+     * @throws SQLException If the records could not be written; nothing is committed
+     */
+    void restoreRecords(Map<UUID, PlayerJoinRecord> records) throws SQLException;
+
+    /**
+     * Streams every player's record to a sink, reading through a cursor so memory use doesn't grow with the table.
+     *
+     * @param sink Receives each record
+     * @return The number of records streamed
+     * @throws SQLException If the records could not be read
+     * @throws IOException  If the sink failed
+     */
+    long exportRecords(RecordSink sink) throws SQLException, IOException;
+
+    /**
+     * Streams every stored username, one row at a time so memory stays flat however many are stored.
+     * A name several players have used is streamed once per player.
+     *
+     * @param sink Receives each username
+     * @return The number of usernames streamed
+     * @throws SQLException If the usernames could not be read
+     */
+    long exportUsernames(Consumer<String> sink) throws SQLException;
+
+    /**
+     * @return The number of players with a stored join
+     */
+    long countPlayers() throws SQLException;
+
+    /**
+     * Loads the records of several players.
+     *
+     * @param uuids The players' UUIDs
+     * @return A Map of UUID to record; players that have never joined are absent
+     */
+    Map<UUID, PlayerJoinRecord> loadPlayerRecords(Collection<UUID> uuids) throws SQLException;
+
+    /**
+     * @param username The username to look up
+     * @return The UUIDs that have used the username
+     */
+    List<String> findUUIDs(String username) throws SQLException;
+
+    /**
+     * @param usernames The usernames to look up
+     * @return A Map of each requested username, as given, to the UUIDs that have used it; unused usernames are absent
+     */
+    Map<String, List<String>> findUUIDs(Collection<String> usernames) throws SQLException;
+
+    /**
+     * @param uuid The UUID to look up
+     * @return The UUID's most recently stored username, or null if it has none
+     */
+    String findLatestUsername(String uuid) throws SQLException;
+
+    /**
+     * @param uuids The UUIDs to look up
+     * @return A Map of UUID to most recently stored username; UUIDs with no stored username are absent
+     */
+    Map<String, String> findLatestUsernames(Collection<String> uuids) throws SQLException;
+}
@@ -0,0 +1,63 @@
+package dev.zerek.featherjoindate.storage;
+
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores joins in MySQL or MariaDB.
+ */
+public class MySQLJoinStore extends SqlJoinStore {
+
+    public MySQLJoinStore(DatabaseManager databaseManager) {
+        super(databaseManager);
+    }
+
+    @Override
+    protected String upsertJoinStatement(int rows) {
+        return "INSERT INTO joins (mojang_uuid, joindate, last_login) VALUES " + valueRows(rows, 3) + " " +
+               "ON DUPLICATE KEY UPDATE joindate = LEAST(joindate, VALUES(joindate)), last_login = GREATEST(last_login, VALUES(last_login))";
+    }
+
+    @Override
+    protected String insertUsernameStatement(int rows) {
+        return "INSERT IGNORE INTO usernames (mojang_uuid, username, username_lower) VALUES " + valueRows(rows, 3);
+    }
+
+    @Override
+    protected int streamingFetchSize() {
+        // Connector/J streams row by row only for this fetch size; any other size buffers the whole result
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    protected void loadPlayerRecordChunk(Connection conn, List<UUID> chunk, Map<UUID, PlayerJoinRecord> records) throws SQLException {
+        String query = "SELECT j.mojang_uuid, j.joindate, j.last_login, j.playtime, j.sessions, " +
+                      "(SELECT GROUP_CONCAT(u.username ORDER BY u.id) FROM usernames u " +
+                      "WHERE u.mojang_uuid = j.mojang_uuid) AS usernames " +
+                      "FROM joins j WHERE j.mojang_uuid IN (" + placeholders(chunk.size()) + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            setUuids(stmt, chunk);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    records.put(getUuid(rs, "mojang_uuid"), new PlayerJoinRecord(
+                            getMillis(rs, "joindate"),
+                            getMillis(rs, "last_login"),
+                            UsernameHistory.fromConcatenated(rs.getString("usernames")),
+                            rs.getLong("playtime"),
+                            rs.getInt("sessions")));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.zerek.featherjoindate.storage;
+
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores joins in a SQLite file in the plugin folder.
+ * The connection is opened in WAL mode, so /seen lookups don't wait for the join queue's batched commits.
+ */
+public class SQLiteJoinStore extends SqlJoinStore {
+
+    public SQLiteJoinStore(DatabaseManager databaseManager) {
+        super(databaseManager);
+    }
+
+    @Override
+    protected String upsertJoinStatement(int rows) {
+        return "INSERT INTO joins (mojang_uuid, joindate, last_login) VALUES " + valueRows(rows, 3) + " " +
+               "ON CONFLICT (mojang_uuid) DO UPDATE SET joindate = MIN(joindate, excluded.joindate), last_login = MAX(last_login, excluded.last_login)";
+    }
+
+    @Override
+    protected String insertUsernameStatement(int rows) {
+        return "INSERT OR IGNORE INTO usernames (mojang_uuid, username, username_lower) VALUES " + valueRows(rows, 3);
+    }
+
+    @Override
+    protected int streamingFetchSize() {
+        // SQLite steps through results as they are read; this only sizes the driver's row buffer
+        return 1000;
+    }
+
+    /**
+     * Loads the joins rows and the username rows separately, since GROUP_CONCAT can't be ordered on older SQLite versions.
+     */
+    @Override
+    protected void loadPlayerRecordChunk(Connection conn, List<UUID> chunk, Map<UUID, PlayerJoinRecord> records) throws SQLException {
+        Map<UUID, List<String>> usernames = new HashMap<>();
+        String usernameQuery = "SELECT mojang_uuid, username FROM usernames " +
+                              "WHERE mojang_uuid IN (" + placeholders(chunk.size()) + ") ORDER BY id";
+        try (PreparedStatement stmt = conn.prepareStatement(usernameQuery)) {
+            setUuids(stmt, chunk);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    usernames.computeIfAbsent(getUuid(rs, "mojang_uuid"), key -> new ArrayList<>()).add(rs.getString("username"));
+                }
+            }
+        }
+
+        String joinQuery = "SELECT mojang_uuid, joindate, last_login, playtime, sessions FROM joins " +
+                          "WHERE mojang_uuid IN (" + placeholders(chunk.size()) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(joinQuery)) {
+            setUuids(stmt, chunk);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = getUuid(rs, "mojang_uuid");
+                    List<String> names = usernames.get(uuid);
+                    records.put(uuid, new PlayerJoinRecord(
+                            getMillis(rs, "joindate"),
+                            getMillis(rs, "last_login"),
+                            names != null ? UsernameHistory.of(names.toArray(new String[0])) : UsernameHistory.EMPTY,
+                            rs.getLong("playtime"),
+                            rs.getInt("sessions")));
+                }
+            }
+        }
+    }
+}
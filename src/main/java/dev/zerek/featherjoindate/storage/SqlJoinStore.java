@@ -0,0 +1,520 @@
+package dev.zerek.featherjoindate.storage;
+
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.PlaytimeDelta;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+import dev.zerek.featherjoindate.utils.UUIDUtility;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * The JDBC work shared by every backend. Subclasses supply the statements whose syntax differs between databases.
+ */
+public abstract class SqlJoinStore implements JoinStore {
+
+    // Keys per IN (...) list, so bulk lookups run as a few bounded queries
+    protected static final int BATCH_CHUNK_SIZE = 500;
+    // Rows per multi-row insert; three parameters each keeps SQLite under its oldest 999 parameter limit
+    protected static final int INSERT_ROWS = 250;
+
+    protected final DatabaseManager databaseManager;
+
+    protected SqlJoinStore(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * @param rows The number of rows in the statement, see {@link #valueRows(int, int)}
+     * @return An insert of (mojang_uuid, joindate, last_login) rows that, if a player exists, keeps the earlier joindate
+     *         and the later last_login, so replaying an old join changes nothing
+     */
+    protected abstract String upsertJoinStatement(int rows);
+
+    /**
+     * @param rows The number of rows in the statement, see {@link #valueRows(int, int)}
+     * @return An insert of (mojang_uuid, username, username_lower) rows that skips pairs that are already stored
+     */
+    protected abstract String insertUsernameStatement(int rows);
+
+    /**
+     * Loads the records of at most {@link #BATCH_CHUNK_SIZE} players in as few queries as the database allows.
+     */
+    protected abstract void loadPlayerRecordChunk(Connection conn, List<UUID> chunk, Map<UUID, PlayerJoinRecord> records) throws SQLException;
+
+    // === Writes ===
+
+    @Override
+    public void storeJoins(Collection<JoinEvent> joins) throws SQLException {
+        if (joins.isEmpty()) return;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                // Update last_login for existing players or insert new players
+                try (PreparedStatement stmt = conn.prepareStatement(upsertJoinStatement(1))) {
+                    for (JoinEvent join : joins) {
+                        setUuid(stmt, 1, join.getUuid());
+                        stmt.setTimestamp(2, new Timestamp(join.getFirstJoinedAt()));
+                        stmt.setTimestamp(3, new Timestamp(join.getLastJoinedAt()));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+
+                // Insert usernames in the order they were used, unique constraint will prevent duplicates
+                try (PreparedStatement stmt = conn.prepareStatement(insertUsernameStatement(1))) {
+                    for (JoinEvent join : joins) {
+                        for (String username : join.getUsernames()) {
+                            setUuid(stmt, 1, join.getUuid());
+                            stmt.setString(2, username);
+                            stmt.setString(3, normalize(username));
+                            stmt.addBatch();
+                        }
+                    }
+                    stmt.executeBatch();
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void importHistory(Collection<HistoricalJoin> history) throws SQLException {
+        List<HistoricalJoin> timed = new ArrayList<>(history.size());
+        for (HistoricalJoin join : history) {
+            if (join.hasTimestamp()) timed.add(join);
+        }
+        if (timed.isEmpty()) return;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                for (List<HistoricalJoin> rows : chunk(timed, INSERT_ROWS)) {
+                    try (PreparedStatement stmt = conn.prepareStatement(upsertJoinStatement(rows.size()))) {
+                        int index = 1;
+                        for (HistoricalJoin join : rows) {
+                            setUuid(stmt, index++, join.getUuid());
+                            stmt.setTimestamp(index++, new Timestamp(join.getFirstSeen()));
+                            stmt.setTimestamp(index++, new Timestamp(join.getLastSeen()));
+                        }
+                        stmt.executeUpdate();
+                    }
+
+                    // Only name players with no stored name, so an imported name never becomes their latest
+                    List<UUID> uuids = new ArrayList<>(rows.size());
+                    for (HistoricalJoin join : rows) uuids.add(join.getUuid());
+                    Set<UUID> named = findNamedUuids(conn, uuids);
+
+                    List<HistoricalJoin> unnamed = new ArrayList<>(rows.size());
+                    for (HistoricalJoin join : rows) {
+                        if (join.getUsername() != null && !named.contains(join.getUuid())) unnamed.add(join);
+                    }
+                    if (unnamed.isEmpty()) continue;
+
+                    try (PreparedStatement stmt = conn.prepareStatement(insertUsernameStatement(unnamed.size()))) {
+                        int index = 1;
+                        for (HistoricalJoin join : unnamed) {
+                            setUuid(stmt, index++, join.getUuid());
+                            stmt.setString(index++, join.getUsername());
+                            stmt.setString(index++, normalize(join.getUsername()));
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public Map<UUID, Long> addPlaytime(Map<UUID, PlaytimeDelta> deltas) throws SQLException {
+        Map<UUID, Long> totals = new HashMap<>();
+        if (deltas.isEmpty()) return totals;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE joins SET playtime = playtime + ?, sessions = sessions + ? WHERE mojang_uuid = ?")) {
+                    for (Map.Entry<UUID, PlaytimeDelta> delta : deltas.entrySet()) {
+                        stmt.setLong(1, delta.getValue().getMillis());
+                        stmt.setInt(2, delta.getValue().getSessions());
+                        setUuid(stmt, 3, delta.getKey());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+
+                // Read back in the same transaction, whose updates hold the rows, so each total is exactly this write's;
+                // players with no row yet are missing from the result
+                for (List<UUID> chunk : chunk(deltas.keySet())) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "SELECT mojang_uuid, playtime FROM joins WHERE mojang_uuid IN (" + placeholders(chunk.size()) + ")")) {
+                        setUuids(stmt, chunk);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) totals.put(getUuid(rs, "mojang_uuid"), rs.getLong("playtime"));
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return totals;
+    }
+
+    @Override
+    public void restoreRecords(Map<UUID, PlayerJoinRecord> records) throws SQLException {
+        if (records.isEmpty()) return;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                for (List<Map.Entry<UUID, PlayerJoinRecord>> rows : chunk(records.entrySet(), INSERT_ROWS)) {
+                    try (PreparedStatement stmt = conn.prepareStatement(upsertJoinStatement(rows.size()))) {
+                        int index = 1;
+                        for (Map.Entry<UUID, PlayerJoinRecord> row : rows) {
+                            setUuid(stmt, index++, row.getKey());
+                            stmt.setTimestamp(index++, new Timestamp(row.getValue().getJoinDate()));
+                            stmt.setTimestamp(index++, new Timestamp(Math.max(row.getValue().getJoinDate(), row.getValue().getLastLogin())));
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+
+                // Playtime only ever grows, so the larger of the stored and restored totals is the more complete
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE joins SET playtime = ?, sessions = ? WHERE mojang_uuid = ? AND playtime < ?")) {
+                    for (Map.Entry<UUID, PlayerJoinRecord> record : records.entrySet()) {
+                        if (record.getValue().getPlaytime() <= 0) continue;
+                        stmt.setLong(1, record.getValue().getPlaytime());
+                        stmt.setInt(2, record.getValue().getSessions());
+                        setUuid(stmt, 3, record.getKey());
+                        stmt.setLong(4, record.getValue().getPlaytime());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+
+                // Oldest name first, so ids follow each player's history
+                List<Map.Entry<UUID, String>> usernames = new ArrayList<>();
+                for (Map.Entry<UUID, PlayerJoinRecord> record : records.entrySet()) {
+                    UsernameHistory history = record.getValue().getUsernames();
+                    for (int i = 0; i < history.size(); i++) {
+                        usernames.add(new AbstractMap.SimpleImmutableEntry<>(record.getKey(), history.get(i)));
+                    }
+                }
+                for (List<Map.Entry<UUID, String>> rows : chunk(usernames, INSERT_ROWS)) {
+                    try (PreparedStatement stmt = conn.prepareStatement(insertUsernameStatement(rows.size()))) {
+                        int index = 1;
+                        for (Map.Entry<UUID, String> row : rows) {
+                            setUuid(stmt, index++, row.getKey());
+                            stmt.setString(index++, row.getValue());
+                            stmt.setString(index++, normalize(row.getValue()));
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private Set<UUID> findNamedUuids(Connection conn, List<UUID> uuids) throws SQLException {
+        Set<UUID> named = new HashSet<>();
+        String query = "SELECT DISTINCT mojang_uuid FROM usernames WHERE mojang_uuid IN (" + placeholders(uuids.size()) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            setUuids(stmt, uuids);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) named.add(getUuid(rs, "mojang_uuid"));
+            }
+        }
+        return named;
+    }
+
+    // === Reads ===
+
+    /**
+     * @return The fetch size that makes the driver stream a result set instead of loading it whole
+     */
+    protected abstract int streamingFetchSize();
+
+    private void setStreaming(PreparedStatement stmt) {
+        try {
+            stmt.setFetchSize(streamingFetchSize());
+        } catch (SQLException e) {
+            // A driver that refuses Connector/J's streaming size, such as H2 standing in for MySQL, reads in its own way
+        }
+    }
+
+    @Override
+    public long exportRecords(RecordSink sink) throws SQLException, IOException {
+        // Rows arrive grouped by player, with each player's names in history order
+        String query = "SELECT j.mojang_uuid, j.joindate, j.last_login, j.playtime, j.sessions, u.username FROM joins j " +
+                      "LEFT JOIN usernames u ON u.mojang_uuid = j.mojang_uuid ORDER BY j.mojang_uuid, u.id";
+        long exported = 0;
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            setStreaming(stmt);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                UUID current = null;
+                long joinDate = 0;
+                long lastLogin = 0;
+                long playtime = 0;
+                int sessions = 0;
+                List<String> names = new ArrayList<>();
+
+                while (rs.next()) {
+                    UUID uuid = getUuid(rs, "mojang_uuid");
+                    if (!uuid.equals(current)) {
+                        if (current != null) {
+                            sink.accept(current, new PlayerJoinRecord(joinDate, lastLogin, UsernameHistory.of(names.toArray(new String[0])), playtime, sessions));
+                            exported++;
+                        }
+                        current = uuid;
+                        joinDate = getMillis(rs, "joindate");
+                        lastLogin = getMillis(rs, "last_login");
+                        playtime = rs.getLong("playtime");
+                        sessions = rs.getInt("sessions");
+                        names.clear();
+                    }
+                    String username = rs.getString("username");
+                    if (username != null) names.add(username);
+                }
+                if (current != null) {
+                    sink.accept(current, new PlayerJoinRecord(joinDate, lastLogin, UsernameHistory.of(names.toArray(new String[0])), playtime, sessions));
+                    exported++;
+                }
+            }
+        }
+        return exported;
+    }
+
+    @Override
+    public long exportUsernames(Consumer<String> sink) throws SQLException {
+        long exported = 0;
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT username FROM usernames",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            setStreaming(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(rs.getString(1));
+                    exported++;
+                }
+            }
+        }
+        return exported;
+    }
+
+    @Override
+    public long countPlayers() throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM joins");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    @Override
+    public Map<UUID, PlayerJoinRecord> loadPlayerRecords(Collection<UUID> uuids) throws SQLException {
+        Map<UUID, PlayerJoinRecord> records = new HashMap<>();
+        if (uuids.isEmpty()) return records;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            for (List<UUID> chunk : chunk(uuids)) {
+                loadPlayerRecordChunk(conn, chunk, records);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public List<String> findUUIDs(String username) throws SQLException {
+        List<String> uuids = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT mojang_uuid FROM usernames WHERE username_lower = ?")) {
+            stmt.setString(1, normalize(username));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    uuids.add(getUuid(rs, "mojang_uuid").toString());
+                }
+            }
+        }
+        return uuids;
+    }
+
+    @Override
+    public Map<String, List<String>> findUUIDs(Collection<String> usernames) throws SQLException {
+        Map<String, List<String>> uuids = new HashMap<>();
+        Map<String, String> requested = new HashMap<>();
+        for (String username : usernames) {
+            requested.putIfAbsent(normalize(username), username);
+        }
+        if (requested.isEmpty()) return uuids;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            for (List<String> chunk : chunk(requested.keySet())) {
+                String query = "SELECT username_lower, mojang_uuid FROM usernames WHERE username_lower IN (" + placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    int index = 1;
+                    for (String normalized : chunk) {
+                        stmt.setString(index++, normalized);
+                    }
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            String username = requested.get(rs.getString("username_lower"));
+                            if (username == null) continue;
+                            uuids.computeIfAbsent(username, key -> new ArrayList<>()).add(getUuid(rs, "mojang_uuid").toString());
+                        }
+                    }
+                }
+            }
+        }
+        return uuids;
+    }
+
+    @Override
+    public String findLatestUsername(String uuid) throws SQLException {
+        String query = "SELECT username FROM usernames WHERE mojang_uuid = ? ORDER BY id DESC LIMIT 1";
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            setUuid(stmt, 1, UUID.fromString(uuid));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("username") : null;
+            }
+        }
+    }
+
+    @Override
+    public Map<String, String> findLatestUsernames(Collection<String> uuids) throws SQLException {
+        Map<String, String> usernames = new HashMap<>();
+        if (uuids.isEmpty()) return usernames;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            for (List<String> chunk : chunk(uuids)) {
+                String query = "SELECT u.mojang_uuid, u.username FROM usernames u " +
+                              "JOIN (SELECT MAX(id) AS id FROM usernames WHERE mojang_uuid IN (" + placeholders(chunk.size()) + ") " +
+                              "GROUP BY mojang_uuid) latest ON u.id = latest.id";
+
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    int index = 1;
+                    for (String uuid : chunk) {
+                        setUuid(stmt, index++, UUID.fromString(uuid));
+                    }
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            usernames.put(getUuid(rs, "mojang_uuid").toString(), rs.getString("username"));
+                        }
+                    }
+                }
+            }
+        }
+        return usernames;
+    }
+
+    // === Helpers ===
+
+    /**
+     * Normalizes a username to the form stored in username_lower.
+     */
+    protected static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    // mojang_uuid is bound as 16 bytes, or as text on tables that haven't been migrated yet.
+    // The layout is read per call since it is only known once the database has been initialized.
+    protected void setUuid(PreparedStatement stmt, int index, UUID uuid) throws SQLException {
+        if (databaseManager.hasBinaryUuids()) stmt.setBytes(index, UUIDUtility.toBytes(uuid));
+        else stmt.setString(index, uuid.toString());
+    }
+
+    protected UUID getUuid(ResultSet rs, String column) throws SQLException {
+        if (databaseManager.hasBinaryUuids()) return UUIDUtility.fromBytes(rs.getBytes(column));
+        return UUID.fromString(rs.getString(column));
+    }
+
+    protected void setUuids(PreparedStatement stmt, List<UUID> uuids) throws SQLException {
+        int index = 1;
+        for (UUID uuid : uuids) {
+            setUuid(stmt, index++, uuid);
+        }
+    }
+
+    protected static long getMillis(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.getTime() : 0L;
+    }
+
+    protected static <T> List<List<T>> chunk(Collection<T> values) {
+        return chunk(values, BATCH_CHUNK_SIZE);
+    }
+
+    protected static <T> List<List<T>> chunk(Collection<T> values, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(values.size(), size));
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == size) {
+                chunks.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+        if (!current.isEmpty()) chunks.add(current);
+        return chunks;
+    }
+
+    protected static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * @return The VALUES list of a multi-row insert, such as "(?, ?), (?, ?)" for two rows of two columns
+     */
+    protected static String valueRows(int rows, int columns) {
+        return String.join(", ", Collections.nCopies(rows, "(" + placeholders(columns) + ")"));
+    }
+}
@@ -0,0 +1,30 @@
+package dev.zerek.featherjoindate.storage;
+
+import java.util.Locale;
+
+/**
+ * The database backends joins can be stored in.
+ */
+public enum StorageType {
+
+    /** A MySQL or MariaDB server, shared between servers. */
+    MYSQL,
+
+    /** A file in the plugin folder, for servers without a database server. */
+    SQLITE;
+
+    /**
+     * Looks up a storage type by its config.yml name, ignoring case.
+     *
+     * @param name The configured name
+     * @return The storage type, or null if the name isn't known
+     */
+    public static StorageType fromName(String name) {
+        if (name == null) return null;
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
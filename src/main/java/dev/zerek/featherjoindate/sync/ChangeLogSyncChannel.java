@@ -0,0 +1,195 @@
+package dev.zerek.featherjoindate.sync;
+
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A channel through the change_log table of the shared database, so servers stay in sync with no broker.
+ *
+ * Each change is a row with an auto-increment seq. Servers poll for rows past the last seq they read,
+ * an index range read of at most batch-size rows per query. Seqs are handed out at insert but become
+ * visible at commit, so a row can appear before one with a lower seq; a gap in the seqs is therefore
+ * waited on for a few seconds before it is skipped as a rolled back insert. MySQL servers set up for
+ * replication may hand out seqs in steps of auto_increment_increment, so a step that size is not a gap. Rows older than the retention
+ * are deleted by whichever server gets to them first.
+ */
+public class ChangeLogSyncChannel implements SyncChannel {
+
+    // Queries made per poll at most, so a large backlog is worked through over several polls
+    private static final int MAX_BATCHES_PER_POLL = 10;
+    // How long a gap in the seqs is waited on before it is taken to be a rolled back insert
+    private static final long GAP_SETTLE_MILLIS = 5000;
+    private static final long PRUNE_INTERVAL_MILLIS = 60_000;
+
+    private final DatabaseManager databaseManager;
+    private final String serverId;
+    private final int batchSize;
+    private final long retentionMillis;
+
+    // Guarded by this
+    private long cursor = -1;
+    // The step between consecutive seqs, read with the first cursor
+    private long seqStep = 1;
+    private long gapCursor = -1;
+    private long gapSeenAt;
+    private long lastPrunedAt;
+
+    /**
+     * Constructs a new ChangeLogSyncChannel.
+     *
+     * @param databaseManager The database shared by every server
+     * @param serverId        An id no other server uses, to tell this server's changes apart
+     * @param batchSize       The most changes read per query
+     * @param retentionMillis How long changes are kept in the table
+     */
+    public ChangeLogSyncChannel(DatabaseManager databaseManager, String serverId, int batchSize, long retentionMillis) {
+        this.databaseManager = databaseManager;
+        this.serverId = serverId;
+        this.batchSize = Math.max(1, batchSize);
+        this.retentionMillis = retentionMillis;
+    }
+
+    @Override
+    public void publish(List<SyncChange> changes) throws IOException {
+        if (changes.isEmpty()) return;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO change_log (server_id, change_type, mojang_uuid, username, amount, sessions, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                long now = System.currentTimeMillis();
+                for (SyncChange change : changes) {
+                    stmt.setString(1, serverId);
+                    stmt.setInt(2, change.getType().getCode());
+                    stmt.setString(3, change.getUuid() != null ? change.getUuid().toString() : null);
+                    stmt.setString(4, change.getUsername());
+                    stmt.setLong(5, change.getAmount());
+                    stmt.setInt(6, change.getSessions());
+                    stmt.setLong(7, now);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Unable to publish changes: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<SyncChange> poll() throws IOException {
+        List<SyncChange> changes = new ArrayList<>();
+        if (!databaseManager.isReady()) return changes;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            if (cursor < 0) {
+                seqStep = readSeqStep(conn);
+                cursor = readLatestSeq(conn);
+                return changes;
+            }
+            for (int batch = 0; batch < MAX_BATCHES_PER_POLL; batch++) {
+                if (!readBatch(conn, changes)) break;
+            }
+            pruneIfDue(conn);
+        } catch (SQLException e) {
+            throw new IOException("Unable to read changes: " + e.getMessage(), e);
+        }
+        return changes;
+    }
+
+    private static long readLatestSeq(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(seq) FROM change_log")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * @return MySQL's auto_increment_increment, or 1 where there is no such setting, as in SQLite
+     */
+    private static long readSeqStep(Connection conn) {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@auto_increment_increment")) {
+            return rs.next() ? Math.max(1, rs.getLong(1)) : 1;
+        } catch (SQLException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Reads the next batch of rows, moving the cursor past them.
+     *
+     * @return true if the batch was full and there may be more to read
+     */
+    private boolean readBatch(Connection conn, List<SyncChange> changes) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT seq, server_id, change_type, mojang_uuid, username, amount, sessions FROM change_log " +
+                "WHERE seq > ? ORDER BY seq LIMIT ?")) {
+            stmt.setLong(1, cursor);
+            stmt.setInt(2, batchSize);
+
+            int read = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong("seq");
+                    if (seq > cursor + seqStep && !gapSettled()) return false;
+                    cursor = seq;
+                    read++;
+
+                    if (serverId.equals(rs.getString("server_id"))) continue;
+                    SyncChange change = decode(rs);
+                    if (change != null) changes.add(change);
+                }
+            }
+            return read == batchSize;
+        }
+    }
+
+    /**
+     * @return true once the gap after the cursor has been waited on long enough to skip
+     */
+    private boolean gapSettled() {
+        long now = System.currentTimeMillis();
+        if (gapCursor != cursor) {
+            gapCursor = cursor;
+            gapSeenAt = now;
+        }
+        return now - gapSeenAt >= GAP_SETTLE_MILLIS;
+    }
+
+    private static SyncChange decode(ResultSet rs) throws SQLException {
+        SyncChange.Type type = SyncChange.Type.fromCode(rs.getInt("change_type"));
+        if (type == null) return null;
+        String uuid = rs.getString("mojang_uuid");
+        try {
+            return new SyncChange(type, uuid != null ? UUID.fromString(uuid) : null,
+                    rs.getString("username"), rs.getLong("amount"), rs.getInt("sessions"));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void pruneIfDue(Connection conn) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPrunedAt < PRUNE_INTERVAL_MILLIS) return;
+        lastPrunedAt = now;
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM change_log WHERE created_at < ?")) {
+            stmt.setLong(1, now - retentionMillis);
+            stmt.executeUpdate();
+        }
+    }
+}
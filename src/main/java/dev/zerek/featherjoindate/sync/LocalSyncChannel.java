@@ -0,0 +1,71 @@
+package dev.zerek.featherjoindate.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-process channel, for running several simulated servers in one JVM.
+ * Every channel opened on the same {@link Log} sees the changes the others publish.
+ */
+public class LocalSyncChannel implements SyncChannel {
+
+    private final Log log;
+    private int cursor = -1;
+
+    /**
+     * Constructs a new LocalSyncChannel for one simulated server.
+     *
+     * @param log The log shared by every simulated server
+     */
+    public LocalSyncChannel(Log log) {
+        this.log = log;
+    }
+
+    @Override
+    public void publish(List<SyncChange> changes) {
+        log.append(this, changes);
+    }
+
+    @Override
+    public synchronized List<SyncChange> poll() {
+        if (cursor < 0) {
+            cursor = log.size();
+            return new ArrayList<>();
+        }
+        List<SyncChange> changes = new ArrayList<>();
+        cursor = log.readAfter(this, cursor, changes);
+        return changes;
+    }
+
+    /**
+     * The published changes, in the order they were published.
+     */
+    public static final class Log {
+
+        private final List<SyncChange> changes = new ArrayList<>();
+        private final List<LocalSyncChannel> origins = new ArrayList<>();
+
+        synchronized void append(LocalSyncChannel origin, List<SyncChange> published) {
+            for (SyncChange change : published) {
+                changes.add(change);
+                origins.add(origin);
+            }
+        }
+
+        synchronized int size() {
+            return changes.size();
+        }
+
+        /**
+         * Copies the changes from position onward not published by the reader.
+         *
+         * @return The position after the last change
+         */
+        synchronized int readAfter(LocalSyncChannel reader, int position, List<SyncChange> into) {
+            for (int i = position; i < changes.size(); i++) {
+                if (origins.get(i) != reader) into.add(changes.get(i));
+            }
+            return changes.size();
+        }
+    }
+}
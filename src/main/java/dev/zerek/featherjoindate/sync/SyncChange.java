@@ -0,0 +1,121 @@
+package dev.zerek.featherjoindate.sync;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+
+import java.util.UUID;
+
+/**
+ * A write made by one server that the other servers sharing its database need to know about.
+ * Changes are immutable; build them with the static factories.
+ */
+public final class SyncChange {
+
+    public enum Type {
+        /**
+         * A join was written: amount is the join time.
+         */
+        JOIN(1),
+
+        /**
+         * Playtime was added: amount is the player's stored playtime in milliseconds after the write, so applying
+         * it twice, or after a reload that already read it, changes nothing.
+         */
+        PLAYTIME(2),
+
+        /**
+         * Many players changed at once, such as after an import, so every cached record is stale.
+         */
+        INVALIDATE_ALL(3);
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        /**
+         * @return The number the type is stored as
+         */
+        public int getCode() {
+            return code;
+        }
+
+        /**
+         * @return The type stored as the given number, or null if there is none
+         */
+        public static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) return type;
+            }
+            return null;
+        }
+    }
+
+    private final Type type;
+    private final UUID uuid;
+    private final String username;
+    private final long amount;
+    private final int sessions;
+
+    /**
+     * Constructs a new SyncChange, such as when decoding one. Prefer the static factories.
+     *
+     * @param type     What changed
+     * @param uuid     The player, or null for {@link Type#INVALIDATE_ALL}
+     * @param username The username joined with, or null
+     * @param amount   The join time or the stored playtime, depending on the type
+     * @param sessions Unused, kept for the stored change layout
+     */
+    public SyncChange(Type type, UUID uuid, String username, long amount, int sessions) {
+        this.type = type;
+        this.uuid = uuid;
+        this.username = username;
+        this.amount = amount;
+        this.sessions = sessions;
+    }
+
+    /**
+     * @param join A single join; split merged joins with {@link JoinEvent#split()}
+     */
+    public static SyncChange join(JoinEvent join) {
+        return new SyncChange(Type.JOIN, join.getUuid(), join.getUsername(), join.getLastJoinedAt(), 0);
+    }
+
+    /**
+     * @param total The player's stored playtime in milliseconds after the write
+     */
+    public static SyncChange playtime(UUID uuid, long total) {
+        return new SyncChange(Type.PLAYTIME, uuid, null, total, 0);
+    }
+
+    public static SyncChange invalidateAll() {
+        return new SyncChange(Type.INVALIDATE_ALL, null, null, 0, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * @return The join a {@link Type#JOIN} change describes
+     */
+    public JoinEvent toJoinEvent() {
+        return new JoinEvent(uuid, username, amount);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.zerek.featherjoindate.sync;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Carries changes between servers that share one database, so each can keep its caches current
+ * without querying the database on every lookup. Implementations decide the transport; each server
+ * opens its own channel and sees every change the others publish, in the order they were published.
+ */
+public interface SyncChannel {
+
+    /**
+     * Publishes changes this server has just written to the database.
+     *
+     * @param changes The changes, oldest first
+     * @throws IOException If the changes could not be published
+     */
+    void publish(List<SyncChange> changes) throws IOException;
+
+    /**
+     * Reads the changes other servers have published since the last poll. Changes published before
+     * the first poll are not returned, as this server read the database itself after they were written.
+     *
+     * @return The changes, oldest first; empty if there are none
+     * @throws IOException If the changes could not be read; they are returned by a later poll instead
+     */
+    List<SyncChange> poll() throws IOException;
+}
@@ -0,0 +1,230 @@
+package dev.zerek.featherjoindate.utils;
+
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.configs.JoinDateConfig;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the plugin's blocking database and HTTP work on threads it owns, so that work neither competes with
+ * other plugins on the Bukkit async pool nor with the rest of the server on the common pool.
+ * Work waiting beyond the queue's capacity is refused rather than piling up.
+ * <p>
+ * On Java 21 or later every task can instead get its own virtual thread, which blocking calls park
+ * rather than hold. The queue's capacity then bounds the tasks in progress instead.
+ */
+public class IoExecutor implements Executor {
+
+    private static final String THREAD_NAME = "FeatherJoinDate-IO-";
+    // How long onDisable waits for running tasks before interrupting them
+    private static final long SHUTDOWN_SECONDS = 10;
+
+    private final Logger logger;
+    private final PluginMetrics metrics;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    // Only in virtual mode, where the executor itself is unbounded; one permit per task in progress
+    private final Semaphore slots;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    public IoExecutor(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
+        this(plugin.getLogger(),
+                joinDateConfig.getExecutorThreads(),
+                joinDateConfig.getExecutorQueueCapacity(),
+                joinDateConfig.isExecutorVirtualThreads(),
+                plugin.getMetrics());
+    }
+
+    /**
+     * Constructs a new IoExecutor.
+     *
+     * @param logger         The logger to report failed tasks to
+     * @param threads        The number of tasks that may run at once
+     * @param queueCapacity  The number of tasks that may wait for a thread before new ones are refused
+     * @param virtualThreads true to run every task on its own virtual thread if the runtime supports them, allowing
+     *                       up to threads + queueCapacity tasks in progress at once
+     * @param metrics        The metrics to record waits and refusals to
+     */
+    public IoExecutor(Logger logger, int threads, int queueCapacity, boolean virtualThreads, PluginMetrics metrics) {
+        this.logger = logger;
+        this.metrics = metrics;
+        int poolSize = Math.max(1, threads);
+        int capacity = Math.max(1, queueCapacity);
+
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.virtual = true;
+            this.slots = new Semaphore(poolSize + capacity);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(capacity), new IoThreadFactory());
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.virtual = false;
+            this.slots = null;
+        }
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, through reflection as the plugin is built for
+     * older runtimes.
+     *
+     * @return The executor, or null if the runtime has no virtual threads
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME + "Virtual-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warning("Virtual threads need Java 21 or later; using platform threads for plugin I/O.");
+            return null;
+        }
+    }
+
+    /**
+     * Runs a task on an I/O thread.
+     *
+     * @throws RejectedExecutionException If the queue is full or the executor has been shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (slots != null && !slots.tryAcquire()) {
+            metrics.getIoRejected().increment();
+            throw new RejectedExecutionException("Plugin I/O queue is full");
+        }
+        long queuedAt = System.nanoTime();
+        queued.incrementAndGet();
+        try {
+            executor.execute(() -> run(task, queuedAt));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            if (slots != null) slots.release();
+            metrics.getIoRejected().increment();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task, long queuedAt) {
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        metrics.getIoQueueWait().recordSince(queuedAt);
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Plugin I/O task failed", e);
+        } finally {
+            running.decrementAndGet();
+            if (slots != null) slots.release();
+        }
+    }
+
+    /**
+     * Runs a task on an I/O thread if there's room for it.
+     *
+     * @return false if the task was refused
+     */
+    public boolean tryExecute(Runnable task) {
+        try {
+            execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs a task on an I/O thread, completing with its result.
+     *
+     * @param task The task to run
+     * @return The task's result, completing exceptionally with a RejectedExecutionException if it was refused
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            execute(() -> {
+                try {
+                    result.complete(task.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                    throw e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Stops accepting tasks and waits for those already accepted to finish. Tasks still running after
+     * {@value #SHUTDOWN_SECONDS} seconds are interrupted, and those still queued are dropped.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) return;
+            List<Runnable> dropped = executor.shutdownNow();
+            logger.warning(String.format("Plugin I/O still running after %d seconds was interrupted and %d queued tasks were dropped.",
+                    SHUTDOWN_SECONDS, dropped.size()));
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // === Metrics ===
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * @return The number of tasks waiting to start
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return The number of tasks running
+     */
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    /**
+     * Names I/O threads so they can be identified in thread dumps.
+     */
+    private static class IoThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, THREAD_NAME + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
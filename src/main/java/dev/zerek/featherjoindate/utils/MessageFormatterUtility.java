@@ -1,16 +1,14 @@
 package dev.zerek.featherjoindate.utils;
 
-import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.configs.JoinDateMessages;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.metadata.MetadataValue;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 
 public class MessageFormatterUtility {
@@ -20,28 +18,28 @@ public class MessageFormatterUtility {
      * and selects the appropriate message template based on player status.
      */
     public static TextComponent formatJoinDateMessage(
-            FeatherJoinDate plugin,
+            JoinDateMessages messages,
             OfflinePlayer offlinePlayer,
-            long joinDateMillis,
-            long lastLoginMillis,
-            List<String> previousUsernames) {
+            PlayerJoinRecord record) {
         
-        return formatJoinDateMessage(plugin, offlinePlayer, joinDateMillis, lastLoginMillis, previousUsernames, null);
+        return formatJoinDateMessage(messages, offlinePlayer, record, offlinePlayer.getName());
     }
     
     /**
      * Formats a join date message with all relevant player information
      * and selects the appropriate message template based on player status.
-     * Allows custom parameters to override default values.
+     * Uses the given display name in place of the player's own name,
+     * for players whose name the server doesn't know.
      */
     public static TextComponent formatJoinDateMessage(
-            FeatherJoinDate plugin,
+            JoinDateMessages messages,
             OfflinePlayer offlinePlayer,
-            long joinDateMillis,
-            long lastLoginMillis,
-            List<String> previousUsernames,
-            Map<String, String> customParams) {
-        String name = offlinePlayer.getName() != null ? offlinePlayer.getName() : "Unknown Player";
+            PlayerJoinRecord record,
+            String displayName) {
+        String currentName = offlinePlayer.getName() != null ? offlinePlayer.getName() : displayName;
+        String name = displayName != null ? displayName : "Unknown Player";
+        long joinDateMillis = record.getJoinDate();
+        long lastLoginMillis = record.getLastLogin();
         boolean hasUnknownValues = TimeFormatterUtility.hasUnknownValues(joinDateMillis, lastLoginMillis);
 
         String joinDate = TimeFormatterUtility.formatDate(joinDateMillis);
@@ -52,8 +50,8 @@ public class MessageFormatterUtility {
         String lastLoginTime = TimeFormatterUtility.formatTime(lastLoginMillis);
         String lastLoginAgo = TimeFormatterUtility.formatRelativeTime(lastLoginMillis);
 
-        boolean hasPastUsernames = !previousUsernames.isEmpty();
-        String usernames = String.join(", ", new ArrayList<>(new HashSet<>(previousUsernames)));
+        boolean hasPastUsernames = record.getUsernames().hasOtherThan(currentName);
+        String usernames = record.getUsernames().joinExcluding(currentName, ", ");
 
         Map<String, String> messageParams = new HashMap<>();
         messageParams.put("player", name);
@@ -64,24 +62,19 @@ public class MessageFormatterUtility {
         messageParams.put("joindateago", joinDateAgo);
         messageParams.put("lastloginago", lastLoginAgo);
         messageParams.put("usernames", usernames);
+        messageParams.put("totalplaytime", TimeFormatterUtility.formatDuration(record.getPlaytime()));
+        messageParams.put("sessions", String.valueOf(record.getSessions()));
 
         if (offlinePlayer.isOnline() && lastLoginMillis > 0) {
             String timeOnline = TimeFormatterUtility.formatOnlineTime(lastLoginMillis);
             messageParams.put("timeonline", timeOnline);
         }
 
-        // Apply any custom parameters that should override the defaults
-        if (customParams != null) {
-            for (Map.Entry<String, String> entry : customParams.entrySet()) {
-                messageParams.put(entry.getKey(), entry.getValue());
-            }
-        }
-
         // Select the appropriate message template based on player status
         String messageKey = selectMessageTemplate(offlinePlayer, hasPastUsernames);
-        TextComponent baseMessage = plugin.getJoinDateMessages().get(messageKey, messageParams);
+        TextComponent baseMessage = messages.get(messageKey, messageParams);
         
-        if (hasUnknownValues) return plugin.getJoinDateMessages().get("unknown-value-warning").append(Component.newline()).append(baseMessage);
+        if (hasUnknownValues) return messages.get("unknown-value-warning").append(Component.newline()).append(baseMessage);
         else return baseMessage;
     }
 
@@ -1,64 +1,184 @@
 package dev.zerek.featherjoindate.utils;
 
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import org.bukkit.plugin.Plugin;
+import dev.zerek.featherjoindate.FeatherJoinDate;
+import dev.zerek.featherjoindate.configs.JoinDateConfig;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class MineToolsAPIUtility {
     private static final String API_URL = "https://api.minetools.eu/uuid/";
-    private static final Map<UUID, CachedUsername> usernameCache = new HashMap<>();
-    private static final long CACHE_EXPIRY_MS = 10 * 60 * 1000; // 24 hours
-    
-    private final Plugin plugin;
-    
-    public MineToolsAPIUtility(Plugin plugin) {
-        this.plugin = plugin;
+
+    private final Logger logger;
+    private final String apiUrl;
+    private final IoExecutor executor;
+    // Set when the executor was made for this utility rather than shared with the plugin, so shutdown stops it
+    private final boolean ownsExecutor;
+    private final PluginMetrics metrics;
+
+    // Usernames found, and UUIDs the API reported as unknown, each with their own expiry
+    private final Cache<UUID, String> usernameCache;
+    private final Cache<UUID, Boolean> unknownCache;
+    // Lookups in progress, so concurrent requests for one UUID share a single HTTP call
+    private final Map<UUID, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public MineToolsAPIUtility(FeatherJoinDate plugin, JoinDateConfig joinDateConfig) {
+        this(plugin.getLogger(), API_URL,
+                plugin.getIoExecutor(),
+                joinDateConfig.getMineToolsCacheSize(),
+                joinDateConfig.getMineToolsCacheMinutes(),
+                joinDateConfig.getMineToolsNegativeCacheMinutes(),
+                plugin.getMetrics());
+    }
+
+    /**
+     * Constructs a MineToolsAPIUtility against a different API base URL, such as a local stub, using default limits.
+     *
+     * @param logger The logger to report lookup errors to
+     * @param apiUrl The base URL that the undashed UUID is appended to
+     */
+    public MineToolsAPIUtility(Logger logger, String apiUrl) {
+        this(logger, apiUrl, new PluginMetrics());
+    }
+
+    private MineToolsAPIUtility(Logger logger, String apiUrl, PluginMetrics metrics) {
+        this(logger, apiUrl, new IoExecutor(logger, 2, 64, false, metrics), 1000, 10, 1, metrics, true, Ticker.systemTicker());
+    }
+
+    /**
+     * Constructs a new MineToolsAPIUtility.
+     *
+     * @param logger               The logger to report lookup errors to
+     * @param apiUrl               The base URL that the undashed UUID is appended to
+     * @param executor             The executor to make API requests on, which bounds how many run or wait at once
+     * @param cacheSize            The maximum number of usernames to cache
+     * @param cacheMinutes         How long a found username is cached
+     * @param negativeCacheMinutes How long a UUID the API doesn't know is remembered as unknown
+     * @param metrics              The metrics to record API calls to
+     */
+    public MineToolsAPIUtility(Logger logger, String apiUrl, IoExecutor executor,
+                               long cacheSize, long cacheMinutes, long negativeCacheMinutes, PluginMetrics metrics) {
+        this(logger, apiUrl, executor, cacheSize, cacheMinutes, negativeCacheMinutes, metrics, false, Ticker.systemTicker());
     }
-    
+
+    /**
+     * Constructs a MineToolsAPIUtility whose caches expire by the given ticker, so tests can move time forward.
+     */
+    MineToolsAPIUtility(Logger logger, String apiUrl, IoExecutor executor, long cacheMinutes, long negativeCacheMinutes,
+                        PluginMetrics metrics, Ticker ticker) {
+        this(logger, apiUrl, executor, 1000, cacheMinutes, negativeCacheMinutes, metrics, false, ticker);
+    }
+
+    private MineToolsAPIUtility(Logger logger, String apiUrl, IoExecutor executor, long cacheSize, long cacheMinutes,
+                                long negativeCacheMinutes, PluginMetrics metrics, boolean ownsExecutor, Ticker ticker) {
+        this.logger = logger;
+        this.apiUrl = apiUrl;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.metrics = metrics;
+        this.usernameCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheMinutes, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build();
+        this.unknownCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(negativeCacheMinutes, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build();
+    }
+
     /**
      * Gets the current username for a UUID, using the MineTools API.
-     * Results are cached to reduce API calls.
+     * Results, including UUIDs the API doesn't know, are cached to reduce API calls,
+     * and concurrent requests for the same UUID share one API call.
      *
      * @param uuid The UUID to look up
      * @return A CompletableFuture that will contain the username, or null if not found
      */
     public CompletableFuture<String> getCurrentUsername(UUID uuid) {
         // Check cache first
-        CachedUsername cached = usernameCache.get(uuid);
-        if (cached != null && !cached.isExpired()) {
-            return CompletableFuture.completedFuture(cached.getUsername());
+        String cached = usernameCache.getIfPresent(uuid);
+        if (cached != null) {
+            metrics.getMineToolsCacheHits().increment();
+            return CompletableFuture.completedFuture(cached);
         }
-        
-        // Not in cache or expired, make API call
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                plugin.getLogger().info("Making MineTools API request for UUID: " + uuid +
-                                       " (cache " + (cached != null ? "expired" : "miss") + ")");
-                String apiResponse = makeApiRequest(uuid.toString().replace("-", ""));
-
-                String username = parseUsernameFromResponse(apiResponse);
-
-                if (username != null) usernameCache.put(uuid, new CachedUsername(username));
-                
-                return username;
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.WARNING, "Error fetching username from MineTools API", e);
-                return null;
-            }
-        });
+        if (unknownCache.getIfPresent(uuid) != null) {
+            metrics.getMineToolsCacheHits().increment();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Join a lookup that is already running for this UUID
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(uuid, lookup);
+        if (running != null) return running;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    lookup.complete(lookupUsername(uuid));
+                } finally {
+                    lookup.complete(null);
+                    inFlight.remove(uuid, lookup);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(uuid, lookup);
+            metrics.getMineToolsRejected().increment();
+            logger.warning("MineTools lookup queue is full, skipping lookup for UUID: " + uuid);
+            lookup.complete(null);
+        }
+        return lookup;
     }
-    
+
+    /**
+     * Completes lookups that haven't finished with null, and stops the executor if it isn't shared.
+     */
+    public void shutdown() {
+        if (ownsExecutor) executor.shutdown();
+        inFlight.values().forEach(lookup -> lookup.complete(null));
+        inFlight.clear();
+    }
+
+    private String lookupUsername(UUID uuid) {
+        long start = System.nanoTime();
+        try {
+            logger.info("Making MineTools API request for UUID: " + uuid);
+            String apiResponse = makeApiRequest(uuid.toString().replace("-", ""));
+
+            String username = parseUsernameFromResponse(apiResponse);
+
+            if (username != null) usernameCache.put(uuid, username);
+            else unknownCache.put(uuid, Boolean.TRUE);
+
+            return username;
+        } catch (IOException e) {
+            metrics.getMineToolsFailures().increment();
+            logger.log(Level.WARNING, "Error fetching username from MineTools API", e);
+            return null;
+        } finally {
+            metrics.getMineToolsLatency().recordSince(start);
+        }
+    }
+
     /**
      * Makes an HTTP request to the MineTools API.
      *
@@ -67,14 +187,14 @@ public class MineToolsAPIUtility {
      * @throws IOException If an error occurs during the request
      */
     private String makeApiRequest(String uuidWithoutDashes) throws IOException {
-        URL url = new URL(API_URL + uuidWithoutDashes);
+        URL url = new URL(apiUrl + uuidWithoutDashes);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod("GET");
         connection.setConnectTimeout(5000);
         connection.setReadTimeout(5000);
-        
+
         StringBuilder response = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 response.append(line);
@@ -82,55 +202,35 @@ public class MineToolsAPIUtility {
         } finally {
             connection.disconnect();
         }
-        
+
         return response.toString();
     }
-    
+
     /**
      * Parses the username from the API response JSON.
      *
      * @param response The API response as a string
-     * @return The username, or null if not found or invalid response
+     * @return The username, or null if the API doesn't know the UUID
+     * @throws IOException If the response is not valid JSON, so the result shouldn't be cached
      */
-    private String parseUsernameFromResponse(String response) {
+    private String parseUsernameFromResponse(String response) throws IOException {
+        JsonObject jsonObject;
         try {
-            JsonObject jsonObject = JsonParser.parseString(response).getAsJsonObject();
-            
-            // Check if the response contains an error
-            if (jsonObject.has("status") && "ERR".equals(jsonObject.get("status").getAsString())) {
-                return null;
-            }
-            
-            // Get the name from the response
-            if (jsonObject.has("name")) {
-                return jsonObject.get("name").getAsString();
-            }
-            
-            return null;
+            jsonObject = JsonParser.parseString(response).getAsJsonObject();
         } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error parsing MineTools API response", e);
-            return null;
-        }
-    }
-    
-    /**
-     * Helper class to store a cached username with its expiry time.
-     */
-    private static class CachedUsername {
-        private final String username;
-        private final long expiryTime;
-        
-        public CachedUsername(String username) {
-            this.username = username;
-            this.expiryTime = System.currentTimeMillis() + CACHE_EXPIRY_MS;
+            throw new IOException("Invalid MineTools API response", e);
         }
-        
-        public String getUsername() {
-            return username;
+
+        // Check if the response contains an error
+        if (jsonObject.has("status") && "ERR".equals(jsonObject.get("status").getAsString())) {
+            return null;
         }
-        
-        public boolean isExpired() {
-            return System.currentTimeMillis() > expiryTime;
+
+        // Get the name from the response
+        if (jsonObject.has("name") && !jsonObject.get("name").isJsonNull()) {
+            return jsonObject.get("name").getAsString();
         }
+
+        return null;
     }
 }
@@ -0,0 +1,83 @@
+package dev.zerek.featherjoindate.utils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs lookups with a cap on how many run at once, merging requests for a key already being looked up
+ * so they share its result instead of starting their own.
+ *
+ * @param <K> The key requests are merged by
+ * @param <V> The lookup's result
+ */
+public class RequestCoalescer<K, V> {
+
+    // Lookups in progress, so concurrent requests for one key share a single lookup
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Semaphore workers;
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param maxConcurrent The most lookups that may run at once
+     */
+    public RequestCoalescer(int maxConcurrent) {
+        this.workers = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * Joins the lookup in progress for a key, or starts one if a worker is free.
+     *
+     * @param key    The key to look up
+     * @param lookup Starts the lookup; called at most once per key at a time, and the worker is held until it completes
+     * @return The result shared by every request for the key, or null if a lookup was needed and every worker is busy
+     */
+    public CompletableFuture<V> submit(K key, Supplier<CompletableFuture<V>> lookup) {
+        CompletableFuture<V> running = inFlight.get(key);
+        if (running != null) {
+            coalesced.increment();
+            return running;
+        }
+        if (!workers.tryAcquire()) return null;
+
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        running = inFlight.putIfAbsent(key, shared);
+        if (running != null) {
+            workers.release();
+            coalesced.increment();
+            return running;
+        }
+
+        CompletableFuture<V> started;
+        try {
+            started = lookup.get();
+        } catch (RuntimeException e) {
+            started = new CompletableFuture<>();
+            started.completeExceptionally(e);
+        }
+        started.whenComplete((value, error) -> {
+            inFlight.remove(key, shared);
+            workers.release();
+            if (error != null) shared.completeExceptionally(error);
+            else shared.complete(value);
+        });
+        return shared;
+    }
+
+    /**
+     * @return The number of requests that shared a lookup already in progress
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return The number of lookups running
+     */
+    public int getRunningCount() {
+        return inFlight.size();
+    }
+}
@@ -58,7 +58,16 @@ public class TimeFormatterUtility {
      */
     public static String formatOnlineTime(long lastLoginMillis) {
         if (!isValidTimestamp(lastLoginMillis)) return "Unknown";
-        Duration duration = Duration.between(Instant.ofEpochMilli(lastLoginMillis), Instant.now());
+        return formatDuration(Duration.between(Instant.ofEpochMilli(lastLoginMillis), Instant.now()).toMillis());
+    }
+
+    /**
+     * Formats a length of time in hours and minutes.
+     * @param millis The length of time in milliseconds
+     * @return Formatted duration string (e.g., "12 hours, 5 minutes")
+     */
+    public static String formatDuration(long millis) {
+        Duration duration = Duration.ofMillis(Math.max(0, millis));
         long hours = duration.toHours();
         long minutes = duration.toMinutes() % 60;
         return String.format("%d hours, %d minutes", hours, minutes);
@@ -0,0 +1,84 @@
+package dev.zerek.featherjoindate.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits how often each key, such as a command sender, may act: every key has a bucket of tokens that refills
+ * at a steady rate up to a burst, and each action takes a token. A key is only held while its bucket is
+ * refilling; full buckets are dropped, so memory follows the senders active within one refill period.
+ */
+public class TokenBucketLimiter {
+
+    private final int burst;
+    private final double tokensPerNano;
+    // How long an empty bucket takes to refill, after which it's the same as no bucket
+    private final long refillNanos;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * Constructs a new TokenBucketLimiter.
+     *
+     * @param burst     The most actions a key may take at once after being idle
+     * @param perSecond The actions a key may take per second once its burst is spent
+     */
+    public TokenBucketLimiter(int burst, double perSecond) {
+        this.burst = Math.max(1, burst);
+        double rate = Math.max(0.001, perSecond);
+        this.tokensPerNano = rate / 1_000_000_000d;
+        this.refillNanos = (long) Math.ceil(this.burst / tokensPerNano);
+    }
+
+    /**
+     * Takes a token from a key's bucket.
+     *
+     * @param key The key acting
+     * @return true if the key may act, false if its bucket is empty
+     */
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        if (now - lastSweep > refillNanos) sweep(now);
+
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, now));
+        synchronized (bucket) {
+            bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.updatedAt) * tokensPerNano);
+            bucket.updatedAt = now;
+            if (bucket.tokens < 1) return false;
+            bucket.tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * Drops the buckets that have refilled, which are the same as having none.
+     */
+    private void sweep(long now) {
+        lastSweep = now;
+        buckets.values().removeIf(bucket -> {
+            synchronized (bucket) {
+                return now - bucket.updatedAt >= refillNanos;
+            }
+        });
+    }
+
+    /**
+     * @return The number of keys held, those that have acted within one refill period
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private static final class Bucket {
+
+        // Guarded by this
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dev.zerek.featherjoindate.utils;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+public class UUIDUtility {
+
+    /**
+     * Converts a UUID to the 16 byte big-endian form stored in BINARY(16) columns.
+     * @param uuid The UUID to convert
+     * @return The UUID's 16 bytes, most significant first
+     */
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Converts 16 bytes read from a BINARY(16) column back to a UUID.
+     * @param bytes The UUID's 16 bytes, most significant first
+     * @return The UUID, or null if bytes is null
+     */
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null) return null;
+        if (bytes.length != 16) throw new IllegalArgumentException("A UUID is 16 bytes, got " + bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
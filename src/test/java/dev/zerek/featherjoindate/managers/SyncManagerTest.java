@@ -0,0 +1,197 @@
+package dev.zerek.featherjoindate.managers;
+
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.PlaytimeDelta;
+import dev.zerek.featherjoindate.leaderboard.LeaderboardType;
+import dev.zerek.featherjoindate.leaderboard.RankedPlayers;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import dev.zerek.featherjoindate.storage.StorageType;
+import dev.zerek.featherjoindate.sync.LocalSyncChannel;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs three simulated servers sharing one database, which keep each other current over a {@link LocalSyncChannel}.
+ */
+class SyncManagerTest {
+
+    private static final Logger LOGGER = Logger.getLogger(SyncManagerTest.class.getName());
+
+    private JdbcConnectionPool h2Pool;
+    private DatabaseManager databaseManager;
+    private LocalSyncChannel.Log log;
+    private Server[] servers;
+
+    @BeforeEach
+    void setUp() {
+        // IGNORECASE stands in for MySQL's case-insensitive default collation
+        h2Pool = JdbcConnectionPool.create("jdbc:h2:mem:sync-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE", "sa", "");
+        databaseManager = new DatabaseManager(LOGGER, h2Pool, StorageType.MYSQL, new PluginMetrics());
+        assertTrue(databaseManager.initialize());
+
+        log = new LocalSyncChannel.Log();
+        servers = new Server[3];
+        for (int i = 0; i < servers.length; i++) servers[i] = new Server();
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.close();
+        h2Pool.dispose();
+    }
+
+    @Test
+    void joinsReachOtherServersViews() {
+        UUID uuid = UUID.randomUUID();
+        servers[0].join(new JoinEvent(uuid, "Traveller", 1_000L));
+        pollAll();
+
+        for (Server server : servers) {
+            RankedPlayers.Entry entry = server.ranked(uuid);
+            assertNotNull(entry, "every server ranks the new player");
+            assertEquals("Traveller", entry.getName());
+            assertEquals(1_000L, entry.getJoinDate());
+        }
+    }
+
+    @Test
+    void joinsUpdateOtherServersCachedRecords() {
+        UUID uuid = UUID.randomUUID();
+        servers[0].join(new JoinEvent(uuid, "Before", 1_000L));
+        pollAll();
+        assertEquals("Before", servers[1].record(uuid).getUsernames().getLatest());
+
+        servers[0].join(new JoinEvent(uuid, "After", 2_000L));
+        pollAll();
+
+        PlayerJoinRecord record = servers[1].record(uuid);
+        assertEquals("After", record.getUsernames().getLatest());
+        assertEquals(2_000L, record.getLastLogin());
+        assertEquals("After", servers[2].ranked(uuid).getName());
+    }
+
+    @Test
+    void playtimeDropsOtherServersCachedRecords() {
+        UUID uuid = UUID.randomUUID();
+        servers[0].join(new JoinEvent(uuid, "Player", 1_000L));
+        pollAll();
+        assertEquals(0L, servers[1].record(uuid).getPlaytime());
+
+        servers[0].addPlaytime(uuid, 60_000L);
+        pollAll();
+
+        assertEquals(60_000L, servers[1].record(uuid).getPlaytime(), "the stale cached record was reloaded");
+    }
+
+    @Test
+    void leaderboardsHoldStoredTotalsWhenSeveralServersAddPlaytime() {
+        UUID uuid = UUID.randomUUID();
+        servers[0].join(new JoinEvent(uuid, "Player", 1_000L));
+        pollAll();
+
+        servers[0].addPlaytime(uuid, 60_000L);
+        servers[1].addPlaytime(uuid, 30_000L);
+        servers[0].addPlaytime(uuid, 10_000L);
+        pollAll();
+
+        for (Server server : servers) assertEquals(100_000L, server.ranked(uuid).getPlaytime());
+    }
+
+    @Test
+    void playtimeReadByAReloadIsNotCountedAgain() {
+        UUID uuid = UUID.randomUUID();
+        servers[0].join(new JoinEvent(uuid, "Player", 1_000L));
+        pollAll();
+
+        servers[0].addPlaytime(uuid, 60_000L);
+        // The reload reads the total before the change announcing it arrives
+        assertTrue(servers[1].joinManager.reloadViews());
+        assertEquals(60_000L, servers[1].ranked(uuid).getPlaytime());
+        pollAll();
+
+        assertEquals(60_000L, servers[1].ranked(uuid).getPlaytime());
+    }
+
+    @Test
+    void invalidateAllReloadsOtherServers() {
+        UUID known = UUID.randomUUID();
+        servers[0].join(new JoinEvent(known, "Known", 5_000L));
+        pollAll();
+        assertEquals(5_000L, servers[1].record(known).getJoinDate());
+
+        UUID imported = UUID.randomUUID();
+        assertTrue(servers[0].joinManager.importHistory(Arrays.asList(
+                new HistoricalJoin(known, null, 1_000L, 1_000L),
+                new HistoricalJoin(imported, "Imported", 2_000L, 2_000L))));
+        servers[0].sync.publishInvalidateAll();
+        assertNull(servers[1].ranked(imported), "nothing changes before the poll");
+        pollAll();
+
+        for (int i = 1; i < servers.length; i++) {
+            assertEquals(1_000L, servers[i].record(known).getJoinDate(), "cached records were dropped");
+            assertNotNull(servers[i].ranked(imported), "leaderboards were reloaded");
+            assertEquals(2, servers[i].leaderboard.getPlayerCount());
+        }
+    }
+
+    private void pollAll() {
+        for (Server server : servers) server.sync.poll();
+    }
+
+    /**
+     * One simulated server: its own cache and views over the shared database.
+     */
+    private final class Server {
+
+        private final LeaderboardManager leaderboard = new LeaderboardManager(LOGGER);
+        private final JoinManager joinManager = new JoinManager(LOGGER, JoinManager.createJoinStore(databaseManager),
+                new PlayerCacheManager(1000, 10), new PluginMetrics(), Collections.singletonList(leaderboard));
+        private final SyncManager sync = new SyncManager(LOGGER, new LocalSyncChannel(log), joinManager);
+
+        private Server() {
+            assertTrue(joinManager.reloadViews());
+            // The first poll marks where the server starts reading
+            sync.poll();
+        }
+
+        private void join(JoinEvent join) {
+            assertTrue(joinManager.storeJoins(Collections.singletonList(join)));
+            sync.publishJoins(Collections.singletonList(join));
+        }
+
+        private void addPlaytime(UUID uuid, long millis) {
+            Map<UUID, Long> totals = joinManager.addPlaytime(Collections.singletonMap(uuid, new PlaytimeDelta(millis, 1)));
+            assertNotNull(totals);
+            sync.publishPlaytime(totals);
+        }
+
+        private PlayerJoinRecord record(UUID uuid) {
+            PlayerJoinRecord record = joinManager.getPlayerFullData(uuid);
+            assertTrue(record.exists());
+            return record;
+        }
+
+        private RankedPlayers.Entry ranked(UUID uuid) {
+            for (RankedPlayers.Entry entry : leaderboard.getPage(LeaderboardType.PLAYTIME, 1, 100)) {
+                if (entry.getUuid().equals(uuid)) return entry;
+            }
+            return null;
+        }
+    }
+}
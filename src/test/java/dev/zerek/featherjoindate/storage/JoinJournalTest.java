@@ -0,0 +1,239 @@
+package dev.zerek.featherjoindate.storage;
+
+import dev.zerek.featherjoindate.data.JoinEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays journals left in the states a crash can leave them in.
+ */
+class JoinJournalTest {
+
+    // Header, UUID and join time; the test usernames are all this many bytes too
+    private static final int RECORD_BYTES = 4 + 2 + 8 + 8 + 8 + 5;
+    private static final Logger LOGGER = Logger.getLogger(JoinJournalTest.class.getName());
+
+    @TempDir
+    File directory;
+
+    private final JoinEvent first = join("Alpha", 1_000L);
+    private final JoinEvent second = join("Bravo", 2_000L);
+    private final JoinEvent third = join("Delta", 3_000L);
+
+    @Test
+    void replaysJoinsInOrderAfterARestart() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.append(second);
+        journal.close();
+
+        assertEquals(describe(first, second), describe(replay()));
+    }
+
+    @Test
+    void mergedJoinsReplayIntoTheSameJoins() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        JoinEvent merged = new JoinEvent(uuid, "Alpha", 1_000L)
+                .merge(new JoinEvent(uuid, "Bravo", 2_000L))
+                .merge(new JoinEvent(uuid, "Alpha", 3_000L));
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(merged);
+        journal.close();
+
+        JoinEvent replayed = null;
+        for (JoinEvent join : replay()) replayed = replayed == null ? join : replayed.merge(join);
+        assertEquals(describe(merged), describe(replayed));
+    }
+
+    @Test
+    void tornTailIsSkipped() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.append(second);
+        journal.append(third);
+        journal.close();
+
+        // The machine went down part way through the last write
+        File segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(segment.length() - 3);
+        }
+
+        assertEquals(describe(first, second), describe(replay()));
+    }
+
+    @Test
+    void tornHeaderIsSkipped() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.append(second);
+        journal.close();
+
+        File segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(RECORD_BYTES + 5);
+        }
+
+        assertEquals(describe(first), describe(replay()));
+    }
+
+    @Test
+    void corruptRecordSkipsTheRestOfItsSegmentOnly() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.append(second);
+        journal.append(third);
+        journal.rotate();
+        JoinEvent later = join("Later", 4_000L);
+        journal.append(later);
+        journal.close();
+
+        // Flip a bit in the second record's join time, which leaves its length intact but fails its checksum
+        File corrupted = segments().get(0);
+        byte[] data = Files.readAllBytes(corrupted.toPath());
+        data[RECORD_BYTES + 4 + 2 + 16] ^= 0x01;
+        Files.write(corrupted.toPath(), data);
+
+        assertEquals(describe(first, later), describe(replay()));
+    }
+
+    @Test
+    void compactionKeepsLiveJoinsAndJoinsAppendedSinceTheRotation() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.append(second);
+        long compacted = journal.rotate();
+        journal.append(third);
+        journal.compact(compacted, Collections.singletonList(second));
+        journal.close();
+
+        assertEquals(2, segments().size(), "the rotated segment was replaced by the compacted one");
+        assertEquals(describe(second, third), describe(replay()));
+        assertEquals(2L * RECORD_BYTES, new JoinJournal(LOGGER, directory).getSize());
+    }
+
+    @Test
+    void compactionWithNothingLiveLeavesOnlyNewerSegments() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        long compacted = journal.rotate();
+        journal.compact(compacted, Collections.emptyList());
+        assertEquals(0, journal.getSize());
+        journal.close();
+
+        assertTrue(segments().isEmpty());
+        assertTrue(replay().isEmpty());
+    }
+
+    @Test
+    void crashBeforeTheCompactedSegmentIsRenamedKeepsTheOriginals() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.append(second);
+        long compacted = journal.rotate();
+        journal.close();
+
+        // A partial copy, as if the process died while writing the replacement
+        File partial = new File(directory, "joins-" + compacted + ".journal.tmp");
+        Files.write(partial.toPath(), new byte[]{1, 2, 3});
+
+        assertEquals(describe(first, second), describe(replay()));
+        assertFalse(partial.exists(), "the partial copy is deleted on open");
+    }
+
+    @Test
+    void crashBeforeTheOldSegmentsAreDeletedReplaysLiveJoinsTwice() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.append(second);
+        long compacted = journal.rotate();
+        File rotated = onlySegment();
+        byte[] original = Files.readAllBytes(rotated.toPath());
+        journal.compact(compacted, Collections.singletonList(second));
+        journal.close();
+
+        // Put the old segment back, as if the process died after the rename but before the deletes
+        Files.write(rotated.toPath(), original);
+
+        List<JoinEvent> replayed = replay();
+        assertEquals(describe(first, second, second), describe(replayed));
+        assertEquals(describe(first, second), describe(merge(replayed)), "the duplicate merges away");
+    }
+
+    @Test
+    void reopenedJournalAppendsAfterExistingSegments() throws IOException {
+        JoinJournal journal = new JoinJournal(LOGGER, directory);
+        journal.append(first);
+        journal.close();
+
+        JoinJournal reopened = new JoinJournal(LOGGER, directory);
+        assertEquals(RECORD_BYTES, reopened.getSize());
+        reopened.append(second);
+        reopened.close();
+
+        assertEquals(2, segments().size());
+        assertEquals(describe(first, second), describe(replay()));
+    }
+
+    private static JoinEvent join(String username, long joinedAt) {
+        return new JoinEvent(UUID.randomUUID(), username, joinedAt);
+    }
+
+    private List<JoinEvent> replay() throws IOException {
+        return new JoinJournal(LOGGER, directory).replay();
+    }
+
+    private List<File> segments() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".journal"));
+        List<File> segments = new ArrayList<>(Arrays.asList(files != null ? files : new File[0]));
+        segments.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return segments;
+    }
+
+    private File onlySegment() {
+        List<File> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private static long sequenceOf(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring("joins-".length(), name.length() - ".journal".length()));
+    }
+
+    private static List<JoinEvent> merge(List<JoinEvent> joins) {
+        Map<UUID, JoinEvent> merged = new LinkedHashMap<>();
+        for (JoinEvent join : joins) merged.merge(join.getUuid(), join, JoinEvent::merge);
+        return new ArrayList<>(merged.values());
+    }
+
+    private static List<String> describe(JoinEvent... joins) {
+        return describe(Arrays.asList(joins));
+    }
+
+    private static List<String> describe(List<JoinEvent> joins) {
+        List<String> described = new ArrayList<>(joins.size());
+        for (JoinEvent join : joins) {
+            described.add(join.getUuid() + " " + join.getUsernames() + " " + join.getFirstJoinedAt() + "-" + join.getLastJoinedAt());
+        }
+        return described;
+    }
+}
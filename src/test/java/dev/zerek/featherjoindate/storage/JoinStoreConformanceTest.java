@@ -0,0 +1,252 @@
+package dev.zerek.featherjoindate.storage;
+
+import dev.zerek.featherjoindate.data.HistoricalJoin;
+import dev.zerek.featherjoindate.data.JoinEvent;
+import dev.zerek.featherjoindate.data.PlayerJoinRecord;
+import dev.zerek.featherjoindate.data.PlaytimeDelta;
+import dev.zerek.featherjoindate.data.UsernameHistory;
+import dev.zerek.featherjoindate.managers.DatabaseManager;
+import dev.zerek.featherjoindate.managers.JoinManager;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the behaviour every JoinStore backend must share: MySQL syntax on H2 in MySQL mode, and a SQLite file
+ * in WAL mode, configured as the benchmarks run them.
+ */
+class JoinStoreConformanceTest {
+
+    @TempDir
+    Path folder;
+
+    private JdbcConnectionPool h2Pool;
+    private DatabaseManager databaseManager;
+    private JoinStore joinStore;
+
+    private void open(StorageType storageType) {
+        Logger logger = Logger.getLogger(JoinStoreConformanceTest.class.getName());
+        if (storageType == StorageType.SQLITE) {
+            SQLiteDataSource dataSource = new SQLiteDataSource();
+            dataSource.setUrl("jdbc:sqlite:" + folder.resolve("joindates.db").toAbsolutePath());
+            dataSource.setJournalMode("WAL");
+            dataSource.setSynchronous("NORMAL");
+            dataSource.setBusyTimeout(5000);
+            dataSource.setEnforceForeignKeys(true);
+            databaseManager = new DatabaseManager(logger, dataSource, storageType, new PluginMetrics());
+        } else {
+            // IGNORECASE stands in for MySQL's case-insensitive default collation
+            h2Pool = JdbcConnectionPool.create("jdbc:h2:mem:conformance-" + UUID.randomUUID()
+                    + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE", "sa", "");
+            databaseManager = new DatabaseManager(logger, h2Pool, storageType, new PluginMetrics());
+        }
+        assertTrue(databaseManager.initialize(), "the schema is created");
+        joinStore = JoinManager.createJoinStore(databaseManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (databaseManager != null) databaseManager.close();
+        if (h2Pool != null) h2Pool.dispose();
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void joinsKeepTheFirstDateAndEveryName(StorageType storageType) throws SQLException {
+        open(storageType);
+        UUID uuid = UUID.randomUUID();
+        store(new JoinEvent(uuid, "Conformance", 1_000L));
+        store(new JoinEvent(uuid, "conformance", 2_000L));
+        store(new JoinEvent(uuid, "Renamed", 3_000L));
+        store(new JoinEvent(uuid, "Conformance", 500L));
+
+        PlayerJoinRecord record = load(uuid);
+        assertEquals(1_000L, record.getJoinDate(), "join date is kept from the first join");
+        assertEquals(3_000L, record.getLastLogin(), "last login is only moved forward");
+        assertEquals(2, record.getUsernames().size(), "usernames differing only in case are stored once");
+        assertEquals("Renamed", record.getUsernames().getLatest(), "usernames are ordered oldest first");
+
+        assertEquals(Collections.singletonList(uuid.toString()), joinStore.findUUIDs("CONFORMANCE"), "username lookup ignores case");
+        Map<String, List<String>> byName = joinStore.findUUIDs(Arrays.asList("renamed", "unused"));
+        assertEquals(Collections.singleton("renamed"), byName.keySet(), "bulk username lookup is keyed by the requested name");
+        assertEquals("Renamed", joinStore.findLatestUsername(uuid.toString()));
+        assertEquals("Renamed", joinStore.findLatestUsernames(Collections.singletonList(uuid.toString())).get(uuid.toString()));
+        assertTrue(joinStore.loadPlayerRecords(Collections.singletonList(UUID.randomUUID())).isEmpty(), "unknown players are absent");
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void mergedJoinsStoreBothTimesAndEveryName(StorageType storageType) throws SQLException {
+        open(storageType);
+        UUID uuid = UUID.randomUUID();
+        store(new JoinEvent(uuid, "Before", 1_000L).merge(new JoinEvent(uuid, "After", 2_000L)));
+
+        PlayerJoinRecord record = load(uuid);
+        assertEquals(1_000L, record.getJoinDate());
+        assertEquals(2_000L, record.getLastLogin());
+        assertEquals(2, record.getUsernames().size());
+        assertEquals("Before", record.getUsernames().get(0));
+        assertEquals("After", record.getUsernames().getLatest());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void addPlaytimeReportsTotalsAndSkipsMissingPlayers(StorageType storageType) throws SQLException {
+        open(storageType);
+        UUID stored = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        store(new JoinEvent(stored, "Stored", 1_000L));
+
+        Map<UUID, PlaytimeDelta> deltas = new HashMap<>();
+        deltas.put(stored, new PlaytimeDelta(60_000L, 1));
+        deltas.put(missing, new PlaytimeDelta(30_000L, 1));
+        assertEquals(Collections.singletonMap(stored, 60_000L), joinStore.addPlaytime(deltas),
+                "players without a stored join are left out of the totals");
+        assertEquals(Collections.singletonMap(stored, 90_000L),
+                joinStore.addPlaytime(Collections.singletonMap(stored, new PlaytimeDelta(30_000L, 1))),
+                "totals include earlier writes");
+
+        PlayerJoinRecord record = load(stored);
+        assertEquals(90_000L, record.getPlaytime());
+        assertEquals(2, record.getSessions());
+        assertTrue(joinStore.loadPlayerRecords(Collections.singletonList(missing)).isEmpty(), "no row is created for playtime alone");
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void importHistoryWidensDatesAndOnlyNamesUnnamedPlayers(StorageType storageType) throws SQLException {
+        open(storageType);
+        UUID known = UUID.randomUUID();
+        UUID imported = UUID.randomUUID();
+        UUID untimed = UUID.randomUUID();
+        store(new JoinEvent(known, "Current", 5_000L));
+
+        joinStore.importHistory(Arrays.asList(
+                new HistoricalJoin(known, "OldName", 1_000L, 9_000L),
+                new HistoricalJoin(imported, "Imported", 2_000L, 3_000L),
+                new HistoricalJoin(untimed, "Untimed", 0L, 0L)));
+
+        PlayerJoinRecord record = load(known);
+        assertEquals(1_000L, record.getJoinDate(), "the earlier join date is kept");
+        assertEquals(9_000L, record.getLastLogin(), "the later last login is kept");
+        assertEquals(1, record.getUsernames().size(), "an imported name never joins a player's stored names");
+        assertEquals("Current", record.getUsernames().getLatest());
+
+        PlayerJoinRecord importedRecord = load(imported);
+        assertEquals(2_000L, importedRecord.getJoinDate());
+        assertEquals(3_000L, importedRecord.getLastLogin());
+        assertEquals("Imported", importedRecord.getUsernames().getLatest());
+        assertTrue(joinStore.loadPlayerRecords(Collections.singletonList(untimed)).isEmpty(), "entries without a timestamp are skipped");
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void restoreRecordsMergesWithStoredRecords(StorageType storageType) throws SQLException {
+        open(storageType);
+        UUID uuid = UUID.randomUUID();
+        UUID restored = UUID.randomUUID();
+        store(new JoinEvent(uuid, "Current", 5_000L));
+        joinStore.addPlaytime(Collections.singletonMap(uuid, new PlaytimeDelta(10_000L, 1)));
+
+        Map<UUID, PlayerJoinRecord> backup = new HashMap<>();
+        backup.put(uuid, new PlayerJoinRecord(1_000L, 2_000L, UsernameHistory.of("First", "Current"), 60_000L, 4));
+        backup.put(restored, new PlayerJoinRecord(1_000L, 2_000L, UsernameHistory.of("Old", "New"), 30_000L, 3));
+        joinStore.restoreRecords(backup);
+
+        PlayerJoinRecord restoredRecord = load(restored);
+        assertEquals(1_000L, restoredRecord.getJoinDate());
+        assertEquals(2_000L, restoredRecord.getLastLogin());
+        assertEquals(30_000L, restoredRecord.getPlaytime());
+        assertEquals(3, restoredRecord.getSessions());
+        assertEquals("Old", restoredRecord.getUsernames().get(0), "a new player's names are restored in history order");
+        assertEquals("New", restoredRecord.getUsernames().getLatest());
+
+        PlayerJoinRecord record = load(uuid);
+        assertEquals(1_000L, record.getJoinDate(), "the earlier join date is kept");
+        assertEquals(5_000L, record.getLastLogin(), "the later last login is kept");
+        assertEquals(60_000L, record.getPlaytime(), "the larger playtime total is kept");
+        assertEquals(4, record.getSessions());
+        assertEquals(2, record.getUsernames().size(), "a restored name already stored isn't added again");
+        assertTrue(record.getUsernames().contains("First"));
+
+        backup.remove(restored);
+        backup.put(uuid, new PlayerJoinRecord(3_000L, 4_000L, UsernameHistory.of("Current"), 20_000L, 2));
+        joinStore.restoreRecords(backup);
+        PlayerJoinRecord again = load(uuid);
+        assertEquals(1_000L, again.getJoinDate());
+        assertEquals(5_000L, again.getLastLogin());
+        assertEquals(60_000L, again.getPlaytime(), "a smaller restored total doesn't replace the stored one");
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageType.class)
+    void exportStreamsEachPlayerOnceWithNamesInHistoryOrder(StorageType storageType) throws Exception {
+        open(storageType);
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID uuid = UUID.randomUUID();
+            uuids.add(uuid);
+            store(new JoinEvent(uuid, "First" + i, 1_000L + i));
+            store(new JoinEvent(uuid, "Second" + i, 2_000L + i));
+        }
+        UUID unnamed = UUID.randomUUID();
+        uuids.add(unnamed);
+        joinStore.importHistory(Collections.singletonList(new HistoricalJoin(unnamed, null, 1_000L, 1_000L)));
+
+        Map<UUID, PlayerJoinRecord> exported = new LinkedHashMap<>();
+        long count = joinStore.exportRecords((uuid, record) -> assertTrue(exported.put(uuid, record) == null,
+                "each player is streamed once"));
+
+        assertEquals(uuids.size(), count);
+        assertEquals(joinStore.countPlayers(), count);
+        // Players arrive in key order, which is the order of their text form for text and binary keys alike
+        uuids.sort(Comparator.comparing(UUID::toString));
+        assertEquals(uuids, new ArrayList<>(exported.keySet()));
+
+        for (int i = 0; i < 20; i++) {
+            PlayerJoinRecord record = exported.get(uuidNamed(exported, "First" + i));
+            assertEquals(2, record.getUsernames().size());
+            assertEquals("First" + i, record.getUsernames().get(0));
+            assertEquals("Second" + i, record.getUsernames().getLatest());
+        }
+        assertEquals(0, exported.get(unnamed).getUsernames().size(), "players without names are still streamed");
+    }
+
+    private UUID uuidNamed(Map<UUID, PlayerJoinRecord> records, String username) {
+        for (Map.Entry<UUID, PlayerJoinRecord> record : records.entrySet()) {
+            if (record.getValue().getUsernames().contains(username)) return record.getKey();
+        }
+        throw new AssertionError("no record has " + username);
+    }
+
+    private void store(JoinEvent join) throws SQLException {
+        joinStore.storeJoins(Collections.singletonList(join));
+    }
+
+    private PlayerJoinRecord load(UUID uuid) throws SQLException {
+        PlayerJoinRecord record = joinStore.loadPlayerRecords(Collections.singletonList(uuid)).get(uuid);
+        assertNotNull(record, "stored player is loaded");
+        return record;
+    }
+}
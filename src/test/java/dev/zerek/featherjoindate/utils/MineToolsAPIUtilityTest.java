@@ -0,0 +1,160 @@
+package dev.zerek.featherjoindate.utils;
+
+import com.google.common.base.Ticker;
+import com.sun.net.httpserver.HttpServer;
+import dev.zerek.featherjoindate.metrics.PluginMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Looks up usernames against a local HTTP server standing in for the MineTools API.
+ */
+class MineToolsAPIUtilityTest {
+
+    private static final String FOUND = "{\"id\":\"069a79f444e94726a5befca90e38aaf5\",\"name\":\"Notch\",\"status\":\"OK\"}";
+    private static final String UNKNOWN = "{\"id\":null,\"name\":null,\"status\":\"ERR\"}";
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+    private volatile String response = FOUND;
+    // Held closed to keep requests waiting on the server
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private IoExecutor executor;
+    private MineToolsAPIUtility api;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/uuid/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        Logger logger = Logger.getLogger(MineToolsAPIUtilityTest.class.getName());
+        PluginMetrics metrics = new PluginMetrics();
+        // One lookup running and one waiting, so a third is refused
+        executor = new IoExecutor(logger, 1, 1, false, metrics);
+        String apiUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/uuid/";
+        api = new MineToolsAPIUtility(logger, apiUrl, executor, 10, 1, metrics, new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        api.shutdown();
+        executor.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsShareOneRequest() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        release = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> lookups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) lookups.add(api.getCurrentUsername(uuid));
+        release.countDown();
+
+        for (CompletableFuture<String> lookup : lookups) assertEquals("Notch", lookup.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("Notch", lookup(uuid), "found usernames are cached");
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void unknownUuidIsCachedUntilItExpires() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        response = UNKNOWN;
+
+        assertNull(lookup(uuid));
+        assertNull(lookup(uuid));
+        assertEquals(1, requests.get(), "a UUID the API doesn't know is remembered");
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(1) + 1);
+        assertNull(lookup(uuid));
+        assertEquals(2, requests.get(), "the UUID is asked about again once the negative cache expires");
+    }
+
+    @Test
+    void malformedResponseIsNotCached() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        response = "<html>502 Bad Gateway</html>";
+
+        assertNull(lookup(uuid));
+        assertNull(lookup(uuid));
+        assertEquals(2, requests.get());
+
+        response = FOUND;
+        assertEquals("Notch", lookup(uuid));
+    }
+
+    @Test
+    void rejectedLookupCompletesWithNull() throws Exception {
+        release = new CountDownLatch(1);
+        CompletableFuture<String> running = api.getCurrentUsername(UUID.randomUUID());
+        awaitRequests(1);
+        CompletableFuture<String> waiting = api.getCurrentUsername(UUID.randomUUID());
+
+        CompletableFuture<String> rejected = api.getCurrentUsername(UUID.randomUUID());
+        assertTrue(rejected.isDone(), "a refused lookup doesn't wait for the queue");
+        assertNull(rejected.get());
+
+        release.countDown();
+        assertEquals("Notch", running.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("Notch", waiting.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, requests.get());
+    }
+
+    private String lookup(UUID uuid) throws Exception {
+        return api.getCurrentUsername(uuid).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (requests.get() < count && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(count, requests.get());
+    }
+}